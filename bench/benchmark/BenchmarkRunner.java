@@ -0,0 +1,33 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the JMH benchmarks of the generation pipeline.
+// Reports the throughput and, through the GC profiler, the allocation rate of
+// each benchmark. Writes the results as JSON to 'bench-results.json' so that
+// runs can be compared to find regressions.
+// Takes the usual JMH command line arguments, e.g. a regex to select
+// benchmarks or '-p mapSize=100' to restrict a parameter.
+public class BenchmarkRunner {
+
+	private static final String RESULT_FILE = "bench-results.json";
+
+	public static void main(String[] args)
+			throws RunnerException, CommandLineOptionException {
+		Options cmdLineOptions = new CommandLineOptions(args);
+		Options options = new OptionsBuilder()
+				.parent(cmdLineOptions)
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result(RESULT_FILE)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,65 @@
+package geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Intersecting the tiles of tesselated square domains of different sizes and
+// densities with a convex polygon.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConvexPolygonIntersection2DBenchmark {
+
+	@Param({"100", "250", "500"})
+	public int mapSize;
+	@Param({"2", "1", "0.67"})
+	public double minSampleDistance;
+	private List<Polygon2D> tileShapes;
+	// Diamond that covers the middle of the domain. Cuts through the tiles
+	// along its edges.
+	private Polygon2D clipShape;
+
+	@Setup
+	public void setup() {
+		Rect2D bounds = new Rect2D(0, 0, mapSize, mapSize);
+		List<Point2D> samples = new PoissonDiscSampling(bounds,
+				minSampleDistance, 30, new Random(1)).generate();
+		List<VoronoiTile> tiles = new VoronoiTesselation(samples, bounds,
+				DelauneyTriangulation.Algorithm.SWEEP_HULL, true).tesselate();
+		tileShapes = new ArrayList<Polygon2D>(tiles.size());
+		for (VoronoiTile tile : tiles)
+			tileShapes.add(tile.outline);
+
+		double half = mapSize / 2.0;
+		List<Point2D> diamond = new ArrayList<Point2D>();
+		diamond.add(new Point2D(half, 0));
+		diamond.add(new Point2D(0, half));
+		diamond.add(new Point2D(half, mapSize));
+		diamond.add(new Point2D(mapSize, half));
+		clipShape = new Polygon2D(diamond);
+	}
+
+	@Benchmark
+	public void intersect(Blackhole bh) {
+		for (Polygon2D shape : tileShapes)
+			bh.consume(ConvexPolygonIntersection2D.intersect(shape, clipShape));
+	}
+}
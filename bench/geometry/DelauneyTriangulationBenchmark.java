@@ -0,0 +1,50 @@
+package geometry;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Triangulating the sample points of square domains of different sizes and
+// densities.
+// Only sweep-hull by default. Bowyer-Watson takes quadratic time and should
+// only be selected for small maps, e.g. '-p algorithm=BOWYER_WATSON
+// -p mapSize=100'.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DelauneyTriangulationBenchmark {
+
+	@Param({"100", "250", "500"})
+	public int mapSize;
+	@Param({"2", "1", "0.67"})
+	public double minSampleDistance;
+	@Param({"SWEEP_HULL"})
+	public DelauneyTriangulation.Algorithm algorithm;
+	private List<Point2D> samples;
+
+	@Setup
+	public void setup() {
+		samples = new PoissonDiscSampling(new Rect2D(0, 0, mapSize, mapSize),
+				minSampleDistance, 30, new Random(1)).generate();
+	}
+
+	@Benchmark
+	public List<Triangle2D> triangulate() {
+		return new DelauneyTriangulation(samples, algorithm).triangulate();
+	}
+}
@@ -0,0 +1,53 @@
+package geometry;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Generating the sample points of square domains of different sizes and
+// densities.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PoissonDiscSamplingBenchmark {
+
+	@Param({"100", "250", "500"})
+	public int mapSize;
+	@Param({"2", "1", "0.67"})
+	public double minSampleDistance;
+	@Param({"30"})
+	public int numSampleCandidates;
+	private Rect2D domain;
+
+	@Setup
+	public void setup() {
+		domain = new Rect2D(0, 0, mapSize, mapSize);
+	}
+
+	@Benchmark
+	public List<Point2D> generate() {
+		return new PoissonDiscSampling(domain, minSampleDistance,
+				numSampleCandidates, new Random(1)).generate();
+	}
+
+	@Benchmark
+	public List<Point2D> generateParallel() {
+		return new PoissonDiscSampling(domain, minSampleDistance,
+				numSampleCandidates, new Random(1)).generateParallel();
+	}
+}
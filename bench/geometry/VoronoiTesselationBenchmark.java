@@ -0,0 +1,50 @@
+package geometry;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Tesselating the sample points of square domains of different sizes and
+// densities. Includes the triangulation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VoronoiTesselationBenchmark {
+
+	@Param({"100", "250", "500"})
+	public int mapSize;
+	@Param({"2", "1", "0.67"})
+	public double minSampleDistance;
+	@Param({"false", "true"})
+	public boolean parallel;
+	private Rect2D bounds;
+	private List<Point2D> samples;
+
+	@Setup
+	public void setup() {
+		bounds = new Rect2D(0, 0, mapSize, mapSize);
+		samples = new PoissonDiscSampling(bounds, minSampleDistance, 30,
+				new Random(1)).generate();
+	}
+
+	@Benchmark
+	public List<VoronoiTile> tesselate() {
+		return new VoronoiTesselation(samples, bounds,
+				DelauneyTriangulation.Algorithm.SWEEP_HULL, parallel).tesselate();
+	}
+}
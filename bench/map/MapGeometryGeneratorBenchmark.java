@@ -0,0 +1,49 @@
+package map;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import geometry.DelauneyTriangulation;
+import geometry.Rect2D;
+
+// Generating the geometry of square maps of different sizes and densities.
+// Covers sampling, triangulation, tesselation and building the map's tiles,
+// nodes and their neighbors. Uses the app's settings otherwise.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapGeometryGeneratorBenchmark {
+
+	@Param({"100", "250", "500"})
+	public int mapSize;
+	@Param({"2", "1", "0.67"})
+	public double minSampleDistance;
+	private MapGeometryGenerator.Spec spec;
+
+	@Setup
+	public void setup() {
+		spec = new MapGeometryGenerator.Spec(new Rect2D(0, 0, mapSize, mapSize),
+				minSampleDistance, 30, DelauneyTriangulation.Algorithm.SWEEP_HULL,
+				true, true);
+	}
+
+	@Benchmark
+	public Map.Representation generate() {
+		return new MapGeometryGenerator(null, spec).generate(new Random(1));
+	}
+}
@@ -0,0 +1,55 @@
+package map;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import geometry.DelauneyTriangulation;
+import geometry.Rect2D;
+
+// Generating the elevations of square maps of different sizes and densities.
+// The map geometry is generated once. Each run overwrites the elevations.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerlinTopographyBenchmark {
+
+	@Param({"100", "250", "500"})
+	public int mapSize;
+	@Param({"2", "1", "0.67"})
+	public double minSampleDistance;
+	@Param({"GRADIENT_TABLE", "HASHED_GRADIENTS"})
+	public PerlinTopography.NoiseAlgorithm noiseAlgorithm;
+	private PerlinTopography.Spec spec;
+	private Map.Representation rep;
+
+	@Setup
+	public void setup() {
+		Rect2D bounds = new Rect2D(0, 0, mapSize, mapSize);
+		rep = new MapGeometryGenerator(null, new MapGeometryGenerator.Spec(
+				bounds, minSampleDistance, 30,
+				DelauneyTriangulation.Algorithm.SWEEP_HULL, true, true))
+				.generate(new Random(1));
+		spec = new PerlinTopography.Spec(bounds, 7, 2, noiseAlgorithm);
+	}
+
+	@Benchmark
+	public Map.Representation generate() {
+		new PerlinTopography(spec, new Random(2)).generate(rep);
+		return rep;
+	}
+}
@@ -0,0 +1,71 @@
+package math;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Calculating octave noise for a batch of points on one thread with the scalar
+// PerlinNoise.calcOctaveNoise() and with the Vector API.
+// The forked JVM adds the incubator module of the Vector API. On JVMs without
+// the module the vectorized runs fail in their setup and are skipped.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class PerlinNoiseBenchmark {
+
+	private static final int WIDTH = 1000;
+	private static final int HEIGHT = 1000;
+	private static final int NUM_POINTS = 100_000;
+	private static final int NUM_OCTAVES = 7;
+	private static final double PERSISTENCE = .5;
+
+	@Param({"scalar", "vector"})
+	public String implementation;
+	private PerlinNoise noise;
+	private VectorPerlinNoise vectorized;
+	private final double[] xs = new double[NUM_POINTS];
+	private final double[] ys = new double[NUM_POINTS];
+	private final double[] out = new double[NUM_POINTS];
+
+	@Setup
+	public void setup() {
+		noise = new PerlinNoise(WIDTH, HEIGHT, new Random(1));
+		Random rand = new Random(2);
+		for (int i = 0; i < NUM_POINTS; ++i) {
+			xs[i] = rand.nextDouble() * WIDTH;
+			ys[i] = rand.nextDouble() * HEIGHT;
+		}
+		if (implementation.equals("vector")) {
+			if (!PerlinNoise.isVectorized())
+				throw new IllegalStateException("Vector API not present.");
+			vectorized = new VectorPerlinNoise(noise);
+		}
+	}
+
+	@Benchmark
+	public double[] calcOctaveNoise() {
+		if (vectorized != null) {
+			vectorized.calcOctaveNoise(xs, ys, out, 0, NUM_POINTS, NUM_OCTAVES,
+					PERSISTENCE);
+		} else {
+			for (int i = 0; i < NUM_POINTS; ++i)
+				out[i] = noise.calcOctaveNoise(xs[i], ys[i], NUM_OCTAVES,
+						PERSISTENCE);
+		}
+		return out;
+	}
+}
@@ -9,6 +9,7 @@ import geometry.*;
 import map.Map;
 import map.MapGeometryGenerator;
 import map.PerlinTopography;
+import view2d.CanvasMapView;
 import view2d.MapScene;
 import view2d.Texture;
 
@@ -26,6 +27,9 @@ public class App extends Application {
 				Texture.ElevationRendering.NODE_BASED;
 		public boolean showWaterDepth = true;
 		public boolean hasFirmShoreline = false;
+		// Raster tiles keep panning and zooming smooth for large maps.
+		public CanvasMapView.RenderMode renderMode =
+				CanvasMapView.RenderMode.RASTER_TILES;
 		// Flag to turn on JavaFX node caching.
 		// Turn on for shape-based view of map. 
 		// Turn off for canvas-based view of map. 
@@ -34,9 +38,16 @@ public class App extends Application {
 		public int mapWidth = 500;
 		public int mapHeight = 200;
 		// Smaller distance => smaller and more tiles.
-		public double minSampleDistance = .5;
+		public double minSampleDistance = .67;
 		// More candidates => more evenly spaced sample points but slower generation.
 		public int numSampleCandidates = 30;
+		// Sweep-hull is much faster than Bowyer-Watson for large maps.
+		public DelauneyTriangulation.Algorithm triangulationAlgorithm =
+				DelauneyTriangulation.Algorithm.SWEEP_HULL;
+		// Build the map's tiles on all cores. Does not change the map.
+		public boolean parallelTesselation = true;
+		// Sample the map's tile seeds on all cores.
+		public boolean parallelSampling = true;
 		// More octaves => Wider and wider areas are affected by values of
 		// individual noise values of higher octave passes. Leads to zoomed in
 		// appearance on features of the map.
@@ -44,13 +55,17 @@ public class App extends Application {
 		// Larger persistence => Larger and smoother features.
 		// Smaller persistence => Smaller and choppier features.
 		public double persistence = 2;
+		// Hashed gradients keep the noise's memory constant for any map size but
+		// change the elevations of existing seeded maps.
+		public PerlinTopography.NoiseAlgorithm noiseAlgorithm =
+				PerlinTopography.NoiseAlgorithm.GRADIENT_TABLE;
 	}
 
 	// Creates a view spec from an app-wide spec.
 	private static MapScene.Spec makeViewSpec(Spec appSpec) {
 		return new MapScene.Spec(appSpec.viewWidth, appSpec.viewHeight,
 				appSpec.scaleFactor, appSpec.seaLevel, appSpec.elevRendering,
-				appSpec.showWaterDepth, appSpec.hasFirmShoreline);
+				appSpec.showWaterDepth, appSpec.hasFirmShoreline, appSpec.renderMode);
 	}
 	
 	// Creates a model spec from an app-wide spec.
@@ -58,9 +73,10 @@ public class App extends Application {
 		Rect2D bounds = new Rect2D(0, 0, appSpec.mapWidth, appSpec.mapHeight);
 		return new Map.Spec(
 				new MapGeometryGenerator.Spec(bounds, appSpec.minSampleDistance,
-						appSpec.numSampleCandidates),
+						appSpec.numSampleCandidates, appSpec.triangulationAlgorithm,
+						appSpec.parallelTesselation, appSpec.parallelSampling),
 				new PerlinTopography.Spec(bounds, appSpec.numOctaves,
-						appSpec.persistence));
+						appSpec.persistence, appSpec.noiseAlgorithm));
 	}
 	
 	///////////////
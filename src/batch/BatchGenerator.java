@@ -0,0 +1,528 @@
+package batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import geometry.DelauneyTriangulation;
+import geometry.Rect2D;
+import map.ChunkedMapGeometryGenerator;
+import map.Map;
+import map.MapGeometryGenerator;
+import map.PerlinTopography;
+import metrics.GenerationMetrics;
+
+// Generates maps without a display.
+// Runs the generation of a list of maps on a pool of worker threads, writes
+// each map to a file and reports the time spent in each stage.
+// Usage:
+//   java batch.BatchGenerator [options]
+// Options:
+//   --seeds <seeds>     Generate a map for each seed with the default settings.
+//                       Comma-separated seeds or ranges, e.g. '1,5,10-20'.
+//   --jobs <file>       Generate a map for each line of a file. Each line holds
+//                       a seed followed by settings that override the defaults,
+//                       e.g. '42 mapWidth=800 minSampleDistance=1'. Empty lines
+//                       and lines starting with '#' are skipped.
+//   --threads <n>       Number of worker threads. Defaults to the number of
+//                       cores.
+//   --out <dir>         Directory that the maps are written to. Defaults to
+//                       'maps'.
+//   --format <format>   Format of the map files. 'map' writes the binary format
+//                       that Map.load() reads, 'text' the plain text format of
+//                       TextMapWriter. Defaults to 'map'.
+//   --metrics <bool>    Whether to write the metrics of each map's generation
+//                       stages as JSON next to the map. Defaults to false.
+//   --<setting> <value> Default for a setting of the maps, e.g.
+//                       '--mapWidth 800'. See Settings for the names.
+public class BatchGenerator {
+
+	// Settings of a generated map. Same meaning as the model specs of the app.
+	public static class Settings {
+		public int mapWidth = 500;
+		public int mapHeight = 200;
+		public double minSampleDistance = .67;
+		public int numSampleCandidates = 30;
+		public DelauneyTriangulation.Algorithm triangulationAlgorithm =
+				DelauneyTriangulation.Algorithm.SWEEP_HULL;
+		// Maps are generated in parallel by the workers. Parallelizing each map
+		// on top of that rarely pays off.
+		public boolean parallelTesselation = false;
+		public boolean parallelSampling = false;
+		// Size of the chunks that the geometry is generated in. Zero to generate
+		// it in a single pass.
+		public double chunkSize = 0;
+		public int numOctaves = 7;
+		public double persistence = 2;
+		public PerlinTopography.NoiseAlgorithm noiseAlgorithm =
+				PerlinTopography.NoiseAlgorithm.GRADIENT_TABLE;
+
+		public Settings copy() {
+			Settings copy = new Settings();
+			copy.mapWidth = mapWidth;
+			copy.mapHeight = mapHeight;
+			copy.minSampleDistance = minSampleDistance;
+			copy.numSampleCandidates = numSampleCandidates;
+			copy.triangulationAlgorithm = triangulationAlgorithm;
+			copy.parallelTesselation = parallelTesselation;
+			copy.parallelSampling = parallelSampling;
+			copy.chunkSize = chunkSize;
+			copy.numOctaves = numOctaves;
+			copy.persistence = persistence;
+			copy.noiseAlgorithm = noiseAlgorithm;
+			return copy;
+		}
+
+		// Sets the setting with a given name to a value given as text.
+		public void set(String name, String value) {
+			try {
+				switch (name) {
+				case "mapWidth":
+					mapWidth = Integer.parseInt(value);
+					break;
+				case "mapHeight":
+					mapHeight = Integer.parseInt(value);
+					break;
+				case "minSampleDistance":
+					minSampleDistance = Double.parseDouble(value);
+					break;
+				case "numSampleCandidates":
+					numSampleCandidates = Integer.parseInt(value);
+					break;
+				case "triangulationAlgorithm":
+					triangulationAlgorithm =
+						DelauneyTriangulation.Algorithm.valueOf(value);
+					break;
+				case "parallelTesselation":
+					parallelTesselation = parseBoolean(value);
+					break;
+				case "parallelSampling":
+					parallelSampling = parseBoolean(value);
+					break;
+				case "chunkSize":
+					chunkSize = Double.parseDouble(value);
+					break;
+				case "numOctaves":
+					numOctaves = Integer.parseInt(value);
+					break;
+				case "persistence":
+					persistence = Double.parseDouble(value);
+					break;
+				case "noiseAlgorithm":
+					noiseAlgorithm = PerlinTopography.NoiseAlgorithm.valueOf(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown setting: " + name);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(
+						"Invalid value for " + name + ": " + value);
+			}
+		}
+
+		// Creates the spec of a map with these settings.
+		public Map.Spec makeMapSpec() {
+			Rect2D bounds = new Rect2D(0, 0, mapWidth, mapHeight);
+			MapGeometryGenerator.Spec geom = new MapGeometryGenerator.Spec(bounds,
+					minSampleDistance, numSampleCandidates, triangulationAlgorithm,
+					parallelTesselation, parallelSampling);
+			ChunkedMapGeometryGenerator.Spec chunks = (chunkSize > 0) ?
+					new ChunkedMapGeometryGenerator.Spec(chunkSize, geom) : null;
+			return new Map.Spec(geom, chunks, new PerlinTopography.Spec(bounds,
+					numOctaves, persistence, noiseAlgorithm));
+		}
+
+		private static boolean parseBoolean(String value) {
+			if (!value.equals("true") && !value.equals("false"))
+				throw new IllegalArgumentException("Invalid boolean: " + value);
+			return Boolean.parseBoolean(value);
+		}
+	}
+
+	///////////////
+
+	// A map to generate.
+	public static class Job {
+		public final long seed;
+		public final Settings settings;
+
+		public Job(long seed, Settings settings) {
+			this.seed = seed;
+			this.settings = settings;
+		}
+	}
+
+	///////////////
+
+	// Outcome of a job.
+	public static class Result {
+		public final Job job;
+		// File that the map was written to. Null if the job failed.
+		public final Path file;
+		public final int numTiles;
+		public final int numNodes;
+		// Time spent in each stage in nanoseconds.
+		public final long geometryNanos;
+		public final long topographyNanos;
+		public final long writeNanos;
+		// Error that the job failed with. Null if the job succeeded.
+		public final Throwable error;
+
+		public Result(Job job, Path file, int numTiles, int numNodes,
+				long geometryNanos, long topographyNanos, long writeNanos) {
+			this.job = job;
+			this.file = file;
+			this.numTiles = numTiles;
+			this.numNodes = numNodes;
+			this.geometryNanos = geometryNanos;
+			this.topographyNanos = topographyNanos;
+			this.writeNanos = writeNanos;
+			this.error = null;
+		}
+
+		public Result(Job job, Throwable error) {
+			this.job = job;
+			this.file = null;
+			this.numTiles = 0;
+			this.numNodes = 0;
+			this.geometryNanos = 0;
+			this.topographyNanos = 0;
+			this.writeNanos = 0;
+			this.error = error;
+		}
+
+		public boolean succeeded() {
+			return error == null;
+		}
+	}
+
+	///////////////
+
+	// Formats that maps can be written in.
+	public enum Format {
+		// Binary format of MapFile. Can be loaded again with Map.load().
+		MAP("map"),
+		// Plain text format of TextMapWriter. For tools outside of the app.
+		TEXT("txt");
+
+		public final String extension;
+
+		private Format(String extension) {
+			this.extension = extension;
+		}
+
+		// Parses a format given by its lower-case name.
+		public static Format parse(String text) {
+			for (Format format : values())
+				if (format.name().toLowerCase().equals(text))
+					return format;
+			throw new IllegalArgumentException("Invalid format: " + text);
+		}
+	}
+
+	///////////////
+
+	public static class Spec {
+		public final List<Job> jobs;
+		public final int numThreads;
+		public final Path outputDir;
+		// Whether to write the generation metrics of each map to a JSON file.
+		public final boolean writeMetrics;
+		public final Format format;
+
+		public Spec(List<Job> jobs, int numThreads, Path outputDir) {
+			this(jobs, numThreads, outputDir, false);
+		}
+
+		public Spec(List<Job> jobs, int numThreads, Path outputDir,
+				boolean writeMetrics) {
+			this(jobs, numThreads, outputDir, writeMetrics, Format.MAP);
+		}
+
+		public Spec(List<Job> jobs, int numThreads, Path outputDir,
+				boolean writeMetrics, Format format) {
+			this.jobs = jobs;
+			this.numThreads = numThreads;
+			this.outputDir = outputDir;
+			this.writeMetrics = writeMetrics;
+			this.format = format;
+		}
+	}
+
+	///////////////
+
+	private static final String SUMMARY_FILE = "summary.csv";
+	private final Spec spec;
+	// Wall time of the last run in nanoseconds.
+	private long elapsedNanos = 0;
+
+	public BatchGenerator(Spec spec) {
+		this.spec = spec;
+	}
+
+	public static void main(String[] args) {
+		Spec spec;
+		try {
+			spec = parseArgs(args);
+		} catch (IllegalArgumentException | IOException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java batch.BatchGenerator [--seeds <seeds>] " +
+					"[--jobs <file>] [--threads <n>] [--out <dir>] [--format <format>] " +
+					"[--metrics <bool>] [--<setting> <value> ...]");
+			System.exit(2);
+			return;
+		}
+
+		try {
+			BatchGenerator gen = new BatchGenerator(spec);
+			List<Result> results = gen.run();
+			gen.printReport(results);
+			for (Result res : results)
+				if (!res.succeeded())
+					System.exit(1);
+		} catch (IOException | InterruptedException e) {
+			System.err.println("Batch failed: " + e);
+			System.exit(1);
+		}
+	}
+
+	// Parses given command line arguments into a batch spec.
+	public static Spec parseArgs(String[] args) throws IOException {
+		Settings defaults = new Settings();
+		List<Long> seeds = new ArrayList<Long>();
+		Path jobFile = null;
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		Path outputDir = Paths.get("maps");
+		boolean writeMetrics = false;
+		Format format = Format.MAP;
+
+		for (int i = 0; i < args.length; i += 2) {
+			String option = args[i];
+			if (!option.startsWith("--") || i + 1 >= args.length)
+				throw new IllegalArgumentException("Invalid argument: " + option);
+			String value = args[i + 1];
+			switch (option) {
+			case "--seeds":
+				seeds.addAll(parseSeeds(value));
+				break;
+			case "--jobs":
+				jobFile = Paths.get(value);
+				break;
+			case "--threads":
+				numThreads = Integer.parseInt(value);
+				if (numThreads < 1)
+					throw new IllegalArgumentException("Invalid threads: " + value);
+				break;
+			case "--out":
+				outputDir = Paths.get(value);
+				break;
+			case "--metrics":
+				writeMetrics = Settings.parseBoolean(value);
+				break;
+			case "--format":
+				format = Format.parse(value);
+				break;
+			default:
+				defaults.set(option.substring(2), value);
+			}
+		}
+
+		// Settings given on the command line are defaults for all jobs, no
+		// matter where they appear.
+		List<Job> jobs = new ArrayList<Job>();
+		for (long seed : seeds)
+			jobs.add(new Job(seed, defaults.copy()));
+		if (jobFile != null)
+			jobs.addAll(parseJobs(Files.readAllLines(jobFile), defaults));
+		if (jobs.isEmpty())
+			throw new IllegalArgumentException("No maps to generate.");
+		return new Spec(jobs, numThreads, outputDir, writeMetrics, format);
+	}
+
+	// Parses seeds given as comma-separated seeds or ranges of seeds, e.g.
+	// '1,5,10-20'. Ranges include both ends.
+	public static List<Long> parseSeeds(String text) {
+		List<Long> seeds = new ArrayList<Long>();
+		for (String part : text.split(",")) {
+			part = part.trim();
+			// Skip the first character to allow for negative seeds.
+			int dash = part.indexOf('-', 1);
+			try {
+				if (dash < 0) {
+					seeds.add(Long.parseLong(part));
+				} else {
+					long first = Long.parseLong(part.substring(0, dash));
+					long last = Long.parseLong(part.substring(dash + 1));
+					for (long seed = first; seed <= last; ++seed)
+						seeds.add(seed);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid seeds: " + part);
+			}
+		}
+		return seeds;
+	}
+
+	// Parses jobs from given lines of a job file. Each job starts with given
+	// default settings.
+	public static List<Job> parseJobs(List<String> lines, Settings defaults) {
+		List<Job> jobs = new ArrayList<Job>();
+		for (String line : lines) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			String[] parts = line.split("\\s+");
+			long seed;
+			try {
+				seed = Long.parseLong(parts[0]);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid job: " + line);
+			}
+			Settings settings = defaults.copy();
+			for (int i = 1; i < parts.length; ++i) {
+				int eq = parts[i].indexOf('=');
+				if (eq < 0)
+					throw new IllegalArgumentException("Invalid job: " + line);
+				settings.set(parts[i].substring(0, eq), parts[i].substring(eq + 1));
+			}
+			jobs.add(new Job(seed, settings));
+		}
+		return jobs;
+	}
+
+	// Generates the maps of all jobs. Returns the results in the order of the
+	// jobs. Failing jobs don't stop the other jobs.
+	public List<Result> run() throws IOException, InterruptedException {
+		Files.createDirectories(spec.outputDir);
+		long start = System.nanoTime();
+
+		ExecutorService workers = Executors.newFixedThreadPool(spec.numThreads);
+		List<Future<Result>> pending = new ArrayList<Future<Result>>();
+		try {
+			for (int i = 0; i < spec.jobs.size(); ++i) {
+				final int jobIdx = i;
+				pending.add(workers.submit(() -> runJob(jobIdx)));
+			}
+			List<Result> results = new ArrayList<Result>(pending.size());
+			for (int i = 0; i < pending.size(); ++i) {
+				try {
+					results.add(pending.get(i).get());
+				} catch (ExecutionException e) {
+					results.add(new Result(spec.jobs.get(i), e.getCause()));
+				}
+			}
+			elapsedNanos = System.nanoTime() - start;
+			writeSummary(results);
+			return results;
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	// Generates the map of the job with a given index and writes it to a file.
+	private Result runJob(int jobIdx) {
+		Job job = spec.jobs.get(jobIdx);
+		try {
+			GenerationMetrics metrics = spec.writeMetrics ?
+					new GenerationMetrics() : GenerationMetrics.DISABLED;
+			Map map = new Map(job.settings.makeMapSpec(), new Random(job.seed),
+					metrics);
+			// Same stages as Map.generate().
+			long start = System.nanoTime();
+			map.generateGeometry();
+			long geomEnd = System.nanoTime();
+			map.generateTopography();
+			long topoEnd = System.nanoTime();
+			String fileName = makeFileName(jobIdx, job);
+			Path file = spec.outputDir.resolve(fileName + "." + spec.format.extension);
+			if (spec.format == Format.TEXT)
+				TextMapWriter.write(map, file);
+			else
+				map.save(file);
+			long writeEnd = System.nanoTime();
+			if (spec.writeMetrics)
+				Files.writeString(spec.outputDir.resolve(fileName + ".metrics.json"),
+						metrics.toJson());
+			return new Result(job, file, map.countTiles(), map.countNodes(),
+					geomEnd - start, topoEnd - geomEnd, writeEnd - topoEnd);
+		} catch (Exception | OutOfMemoryError e) {
+			return new Result(job, e);
+		}
+	}
+
+	// Names the files of a job without extension. Includes the index of the
+	// job to keep the names unique for repeated seeds.
+	private static String makeFileName(int jobIdx, Job job) {
+		return String.format("map-%05d-%d", jobIdx, job.seed);
+	}
+
+	// Writes a line with the counts and timings of each job to a CSV file in the
+	// output directory.
+	private void writeSummary(List<Result> results) throws IOException {
+		Path file = spec.outputDir.resolve(SUMMARY_FILE);
+		try (BufferedWriter out = Files.newBufferedWriter(file)) {
+			out.write("seed,tiles,nodes,geometry_ms,topography_ms,write_ms,file,error");
+			out.newLine();
+			for (Result res : results) {
+				out.write(res.job.seed + "," + res.numTiles + "," + res.numNodes +
+						"," + toMillis(res.geometryNanos) + "," +
+						toMillis(res.topographyNanos) + "," + toMillis(res.writeNanos) +
+						"," + (res.file != null ? res.file.getFileName() : "") + "," +
+						(res.error != null ? quote(res.error.toString()) : ""));
+				out.newLine();
+			}
+		}
+	}
+
+	// Prints the time spent in each stage and the throughput of the last run.
+	public void printReport(List<Result> results) {
+		int numSucceeded = 0;
+		long geomNanos = 0;
+		long topoNanos = 0;
+		long writeNanos = 0;
+		for (Result res : results) {
+			if (res.succeeded()) {
+				++numSucceeded;
+				geomNanos += res.geometryNanos;
+				topoNanos += res.topographyNanos;
+				writeNanos += res.writeNanos;
+			} else {
+				System.out.println("Map with seed " + res.job.seed + " failed: " +
+						res.error);
+			}
+		}
+
+		double elapsedSecs = elapsedNanos / 1e9;
+		System.out.printf("Generated %d maps (%d failed) in %.2f s with %d threads: " +
+				"%.2f maps/s%n", numSucceeded, results.size() - numSucceeded,
+				elapsedSecs, spec.numThreads, numSucceeded / elapsedSecs);
+		System.out.printf("%-12s %12s %12s%n", "Stage", "Total (s)", "Avg (ms)");
+		printStage("geometry", geomNanos, numSucceeded);
+		printStage("topography", topoNanos, numSucceeded);
+		printStage("write", writeNanos, numSucceeded);
+	}
+
+	// Prints the total time of a stage and its average time per map.
+	private static void printStage(String name, long nanos, int numMaps) {
+		System.out.printf("%-12s %12.2f %12.2f%n", name, nanos / 1e9,
+				numMaps > 0 ? toMillis(nanos) / numMaps : 0.0);
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1e6;
+	}
+
+	// Quotes a given value for a CSV file.
+	private static String quote(String val) {
+		return "\"" + val.replace("\"", "\"\"") + "\"";
+	}
+}
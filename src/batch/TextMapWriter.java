@@ -0,0 +1,54 @@
+package batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import map.Map;
+import map.MapNode;
+import map.MapTile;
+
+// Writes maps to files in a plain text format:
+//   map <width> <height>
+//   nodes <number of nodes>
+//   <x> <y> <elevation>
+//   ...
+//   tiles <number of tiles>
+//   <seed x> <seed y> <elevation> <number of nodes> <node id> <node id> ...
+//   ...
+// Nodes are listed in order of their ids. Tiles refer to their nodes by id.
+// Numbers are written so that they read back to the exact same values.
+// The app itself reads maps from the binary format of MapFile. The text format
+// is meant for tools outside of the app that don't want to decode it.
+public class TextMapWriter {
+
+	public static void write(Map map, Path file) throws IOException {
+		try (BufferedWriter out = Files.newBufferedWriter(file)) {
+			out.write("map " + map.width() + " " + map.height());
+			out.newLine();
+
+			out.write("nodes " + map.countNodes());
+			out.newLine();
+			for (int i = 0; i < map.countNodes(); ++i) {
+				MapNode node = map.node(i);
+				out.write(node.pos.x + " " + node.pos.y + " " + node.elevation());
+				out.newLine();
+			}
+
+			out.write("tiles " + map.countTiles());
+			out.newLine();
+			StringBuilder line = new StringBuilder();
+			for (int i = 0; i < map.countTiles(); ++i) {
+				MapTile tile = map.tile(i);
+				line.setLength(0);
+				line.append(tile.seed.x).append(' ').append(tile.seed.y).append(' ')
+						.append(tile.elevation()).append(' ').append(tile.countNodes());
+				for (int n = 0; n < tile.countNodes(); ++n)
+					line.append(' ').append(tile.node(n).id());
+				out.write(line.toString());
+				out.newLine();
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package geometry;
+
+import math.FpUtil;
+
+// Algorithm to intersect a convex polygon with an axis-aligned rectangle.
+// Cheaper and more robust than the general ConvexPolygonIntersection2D for
+// this special case. Clips the polygon against each side of the rectangle in
+// turn (Sutherland-Hodgman).
+// Source:
+// https://en.wikipedia.org/wiki/Sutherland%E2%80%93Hodgman_algorithm
+public class ConvexPolygonRectIntersection2D {
+
+	// Sides of the rectangle.
+	private enum Side {
+		LEFT, TOP, RIGHT, BOTTOM;
+	}
+
+	// Intersects a convex polygon with a rectangle. The resulting polygon keeps
+	// the orientation of the given polygon.
+	public static Polygon2D intersect(Polygon2D poly, Rect2D rect) {
+		Polygon2D result = poly;
+		for (Side side : Side.values()) {
+			result = clip(result, rect, side);
+			if (result.countVertices() == 0)
+				break;
+		}
+		return result;
+	}
+
+	// Checks if a given polygon is strictly inside a given rectangle, i.e. if
+	// intersecting them would not change the polygon.
+	public static boolean isInside(Polygon2D poly, Rect2D rect) {
+		for (int i = 0; i < poly.countVertices(); ++i) {
+			Point2D pt = poly.vertex(i);
+			if (pt.x <= rect.left() || pt.x >= rect.right() ||
+					pt.y <= rect.top() || pt.y >= rect.bottom())
+				return false;
+		}
+		return true;
+	}
+
+	// Clips a given polygon at a given side of a given rectangle.
+	private static Polygon2D clip(Polygon2D poly, Rect2D rect, Side side) {
+		return Polygon2D.clipAtLine(poly, pt -> isInside(pt, rect, side),
+				(a, b) -> intersect(a, b, rect, side));
+	}
+
+	// Checks if a given point is on the inside of a given side of a given
+	// rectangle. Being on the side is also considered 'inside'.
+	private static boolean isInside(Point2D pt, Rect2D rect, Side side) {
+		switch (side) {
+		case LEFT:
+			return FpUtil.fpGreaterEqual(pt.x, rect.left());
+		case TOP:
+			return FpUtil.fpGreaterEqual(pt.y, rect.top());
+		case RIGHT:
+			return FpUtil.fpLessEqual(pt.x, rect.right());
+		case BOTTOM:
+			return FpUtil.fpLessEqual(pt.y, rect.bottom());
+		}
+		return false;
+	}
+
+	// Intersects the line segment between two given points with the line along a
+	// given side of a given rectangle. The points have to be on different sides
+	// of the line.
+	private static Point2D intersect(Point2D a, Point2D b, Rect2D rect,
+			Side side) {
+		switch (side) {
+		case LEFT:
+			return intersectVertical(a, b, rect.left());
+		case TOP:
+			return intersectHorizontal(a, b, rect.top());
+		case RIGHT:
+			return intersectVertical(a, b, rect.right());
+		case BOTTOM:
+			return intersectHorizontal(a, b, rect.bottom());
+		}
+		return null;
+	}
+
+	private static Point2D intersectVertical(Point2D a, Point2D b, double x) {
+		double t = (x - a.x) / (b.x - a.x);
+		return new Point2D(x, a.y + t * (b.y - a.y));
+	}
+
+	private static Point2D intersectHorizontal(Point2D a, Point2D b, double y) {
+		double t = (y - a.y) / (b.y - a.y);
+		return new Point2D(a.x + t * (b.x - a.x), y);
+	}
+}
@@ -1,6 +1,7 @@
 package geometry;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -9,83 +10,233 @@ import java.util.Set;
 import math.FpUtil;
 
 
-// Implementation of Bowyer-Watson algorithm to perform a Delauney triangulation
-// in 2D.
+// Performs a Delauney triangulation in 2D.
 // Triangulates a set of points so that each resulting triangle's cirumcircle
 // has an empty interior, i.e. does not contain any of the other points. This
 // is called the 'Delauney condition'.
+// Implements the Bowyer-Watson algorithm directly. Can delegate to the faster
+// sweep-hull algorithm instead.
 // Source:
 // http://paulbourke.net/papers/triangulate/
 public class DelauneyTriangulation {
 	
-	// Data structure to hold individual edges of triangles. 
+	// Available algorithms to perform the triangulation.
+	public enum Algorithm {
+		// Bowyer-Watson algorithm. Checks all active triangles for each sample.
+		// Time: O(n^2)
+		BOWYER_WATSON,
+		// Sweep-hull algorithm. See SweepHullTriangulation.
+		// Time: O(n log n)
+		SWEEP_HULL
+	}
+	
+	// Data structure to hold individual edges of triangles. Edges are stored as
+	// pairs of sample indices. All buffers are reused across insertions.
 	private static class EdgeBuffer {
-		private List<LineSegment2D> edges = new ArrayList<LineSegment2D>();
+		private static final long EMPTY_KEY = -1;
+		private int[] starts = new int[48];
+		private int[] ends = new int[48];
+		private int size = 0;
+		// Hash table slot that each edge got counted in.
+		private int[] slots = new int[48];
+		// Open-addressing hash table counting how often each edge occurs. Keys
+		// are canonical, i.e. independent of the edge direction.
+		private long[] tableKeys = makeTableKeys(64);
+		private int[] tableCounts = new int[64];
 
-		void addEdges(DelauneyTriangle t) {
+		void addEdges(int[] vertices, int offset) {
 			for (int j = 0; j <= 2; ++j)
-				edges.add(t.edge(j));
+				add(vertices[offset + j], vertices[offset + (j == 2 ? 0 : j + 1)]);
 		}
 		
 		int size() {
-			return edges.size();
+			return size;
+		}
+		
+		int start(int idx) {
+			return starts[idx];
 		}
 		
-		LineSegment2D get(int idx) {
-			return edges.get(idx);
+		int end(int idx) {
+			return ends[idx];
 		}
 		
 		void clear() {
-			edges.clear();
+			size = 0;
 		}
 		
+		// Removes all edges that occur more than once. Keeps the order of the
+		// remaining edges.
+		// Time: O(n)
 		void removeDuplicates() {
-			Set<Integer> duplicates = new HashSet<Integer>();
-			for (int i = 0; i < edges.size(); ++i) {
-				for (int j = i + 1; j < edges.size(); ++j) {
-					if (isDuplicateEdge(edges.get(i), edges.get(j))) {
-						// Remove both duplicates!
-						duplicates.add(i);
-						duplicates.add(j);
-					}
+			ensureTableCapacity();
+			
+			for (int i = 0; i < size; ++i)
+				slots[i] = countEdge(edgeKey(starts[i], ends[i]));
+			
+			int numKept = 0;
+			for (int i = 0; i < size; ++i) {
+				// Remove both duplicates!
+				if (tableCounts[slots[i]] == 1) {
+					starts[numKept] = starts[i];
+					ends[numKept] = ends[i];
+					++numKept;
 				}
 			}
 			
-			List<Integer> sorted = new ArrayList<Integer>(duplicates); 
-	        Collections.sort(sorted);
-	        
-	        for (int i = sorted.size() - 1; i >= 0; --i)
-	        	edges.remove((int)sorted.get(i));
-	    }
+			// Reset the used slots for the next insertion.
+			for (int i = 0; i < size; ++i) {
+				tableKeys[slots[i]] = EMPTY_KEY;
+				tableCounts[slots[i]] = 0;
+			}
+			
+			size = numKept;
+		}
+		
+		private void add(int start, int end) {
+			if (size == starts.length) {
+				int capacity = 2 * size;
+				starts = Arrays.copyOf(starts, capacity);
+				ends = Arrays.copyOf(ends, capacity);
+				slots = new int[capacity];
+			}
+			starts[size] = start;
+			ends[size] = end;
+			++size;
+		}
+		
+		// Increments the count of a given edge key. Returns the table slot of
+		// the key.
+		private int countEdge(long key) {
+			int mask = tableKeys.length - 1;
+			int slot = hashSlot(key, mask);
+			while (tableKeys[slot] != EMPTY_KEY && tableKeys[slot] != key)
+				slot = (slot + 1) & mask;
+			tableKeys[slot] = key;
+			++tableCounts[slot];
+			return slot;
+		}
+		
+		// Keeps the load factor of the hash table at or below 50%.
+		private void ensureTableCapacity() {
+			if (2 * size <= tableKeys.length)
+				return;
+			int capacity = tableKeys.length;
+			while (2 * size > capacity)
+				capacity *= 2;
+			tableKeys = makeTableKeys(capacity);
+			tableCounts = new int[capacity];
+		}
+		
+		private static long[] makeTableKeys(int capacity) {
+			long[] keys = new long[capacity];
+			Arrays.fill(keys, EMPTY_KEY);
+			return keys;
+		}
+		
+		// Returns a key for the edge between two given sample indices that is
+		// the same for both directions of the edge.
+		private static long edgeKey(int a, int b) {
+			int min = Math.min(a, b);
+			int max = Math.max(a, b);
+			return ((long) min << 32) | max;
+		}
+		
+		private static int hashSlot(long key, int mask) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+	}
+	
+	// Active triangles of the triangulation together with the sample indices
+	// of their vertices. The sample indices are in the same order as the
+	// triangles' vertices.
+	private static class ActiveTriangles {
+		private DelauneyTriangle[] triangles = new DelauneyTriangle[64];
+		private int[] vertices = new int[3 * 64];
+		private int size = 0;
+		
+		void add(DelauneyTriangle t, int a, int b, int c) {
+			if (size == triangles.length) {
+				int capacity = 2 * size;
+				triangles = Arrays.copyOf(triangles, capacity);
+				vertices = Arrays.copyOf(vertices, 3 * capacity);
+			}
+			triangles[size] = t;
+			vertices[3 * size] = a;
+			vertices[3 * size + 1] = b;
+			vertices[3 * size + 2] = c;
+			++size;
+		}
+		
+		int size() {
+			return size;
+		}
+		
+		DelauneyTriangle get(int idx) {
+			return triangles[idx];
+		}
 		
-		private boolean isDuplicateEdge(LineSegment2D a, LineSegment2D b) {
-			Point2D sa = a.startPoint(); 
-			Point2D ea = a.endPoint();
-			Point2D sb = b.startPoint();
-			Point2D eb = b.endPoint();
-			return (sa.equals(sb) && ea.equals(eb)) ||
-					(sa.equals(eb) && ea.equals(sb));
+		// Returns the array of vertex indices. The indices of the triangle at
+		// a given position start at three times the position.
+		int[] vertices() {
+			return vertices;
+		}
+		
+		// Moves the triangle at a given position to another given position.
+		// Used to compact the active triangles in place.
+		void move(int from, int to) {
+			triangles[to] = triangles[from];
+			vertices[3 * to] = vertices[3 * from];
+			vertices[3 * to + 1] = vertices[3 * from + 1];
+			vertices[3 * to + 2] = vertices[3 * from + 2];
+		}
+		
+		// Drops all triangles at and after a given position.
+		void truncate(int newSize) {
+			Arrays.fill(triangles, newSize, size, null);
+			size = newSize;
 		}
 	}
 	
 	// List of points that define the triangulation.
 	private final List<Point2D> samples;
+	private final Algorithm algorithm;
 	// Triangle that bounds all input points.
 	private final Triangle2D boundingTriangle;
 	// Current state of the triangulation. Holds active triangles and some data
 	// that they are annotated with.
-	private List<DelauneyTriangle> triangulation =
-			new ArrayList<DelauneyTriangle>();
+	private ActiveTriangles triangulation = new ActiveTriangles();
 	// List of triangles that don't need to be considered anymore for further
 	// triangulation steps.
 	private List<DelauneyTriangle> settledTriangles =
 			new ArrayList<DelauneyTriangle>();
+	// Half-edge mesh of the triangulation. Only generated by the sweep-hull
+	// algorithm.
+	private HalfEdgeMesh mesh = null;
+	// Delauney triangle for each triangle of the mesh or null for degenerate
+	// mesh triangles.
+	private DelauneyTriangle[] meshTriangles = new DelauneyTriangle[0];
 	
 	// Caller is responsible that sample points does not contain duplicates.
 	public DelauneyTriangulation(List<Point2D> samplePoints) {
+		this(samplePoints, Algorithm.BOWYER_WATSON);
+	}
+	
+	// Caller is responsible that sample points does not contain duplicates.
+	// The Bowyer-Watson algorithm adds the vertices of a bounding triangle to
+	// the given sample points and sorts them.
+	public DelauneyTriangulation(List<Point2D> samplePoints, Algorithm algo) {
 		samples = samplePoints;
+		algorithm = algo;
 		boundingTriangle = calcBoundingTriangle(samples);
 		
+		if (algorithm == Algorithm.BOWYER_WATSON)
+			prepareBowyerWatsonSamples();
+	}
+	
+	// Prepares the sample points for the Bowyer-Watson algorithm.
+	private void prepareBowyerWatsonSamples() {
 		// Add bounding triangle vertices to the end of the vertex list.
 		if (!boundingTriangle.isDegenerate()) {
 			samples.add(boundingTriangle.vertex(0));
@@ -102,29 +253,58 @@ public class DelauneyTriangulation {
 	public List<Triangle2D> triangulate() {
 		if (boundingTriangle.isDegenerate())
 			return new ArrayList<Triangle2D>();
+		if (algorithm == Algorithm.SWEEP_HULL)
+			return triangulateWithSweepHull();
 		
 		try {
-			triangulation.add(new DelauneyTriangle(boundingTriangle));
+			triangulation.add(new DelauneyTriangle(boundingTriangle),
+					findSample(boundingTriangle.vertex(0)),
+					findSample(boundingTriangle.vertex(1)),
+					findSample(boundingTriangle.vertex(2)));
 			EdgeBuffer edges = new EdgeBuffer();
 			
-			for (Point2D sample : samples) {
+			for (int i = 0; i < samples.size(); ++i) {
 				edges.clear();
-				findEnclosingPolygonEdges(sample, edges);
+				findEnclosingPolygonEdges(samples.get(i), edges);
 				edges.removeDuplicates();
-				generateNewTriangles(sample, edges);
+				generateNewTriangles(i, edges);
 			}
 			
 			settleRemainingTriangles();
 			removeTrianglesSharingVertices(boundingTriangle);
 		} catch (GeometryException e) {
 			// Abort the triangulation.
-			triangulation.clear();
+			triangulation.truncate(0);
 			settledTriangles.clear();
 		}
 		
 		return prepareResult(settledTriangles);
 	}
 	
+	// Performs the triangulation with the sweep-hull algorithm.
+	private List<Triangle2D> triangulateWithSweepHull() {
+		SweepHullTriangulation sweepHull = new SweepHullTriangulation(samples);
+		sweepHull.triangulate();
+		mesh = sweepHull.mesh();
+		
+		int numTriangles = sweepHull.countTriangles();
+		meshTriangles = new DelauneyTriangle[numTriangles];
+		for (int i = 0; i < numTriangles; ++i) {
+			Triangle2D t = sweepHull.triangle(i);
+			try {
+				// Skip triangles that are lines or points.
+				if (!t.isDegenerate()) {
+					meshTriangles[i] = new DelauneyTriangle(t);
+					settledTriangles.add(meshTriangles[i]);
+				}
+			} catch (GeometryException ex) {
+				// Skip this triangle.
+			}
+		}
+		
+		return prepareResult(settledTriangles);
+	}
+	
 	// Returns the triangulation extended with information that the algorithm
 	// cached for each triangle, e.g. a triangle's circumcircle. Access is given
 	// as optimization, so that callers don't need to recalculate data that the
@@ -133,38 +313,59 @@ public class DelauneyTriangulation {
 		return settledTriangles;
 	}
 	
+	// Returns the triangulation as half-edge mesh whose vertex indices are the
+	// indices of the sample points. Only available for the sweep-hull algorithm.
+	// Returns null otherwise.
+	public HalfEdgeMesh mesh() {
+		return mesh;
+	}
+	
+	// Returns the Delauney triangle for a given triangle index of the mesh.
+	// Returns null if the mesh triangle is degenerate.
+	public DelauneyTriangle meshTriangle(int triangleIdx) {
+		return meshTriangles[triangleIdx];
+	}
+	
 	// Adds the edges of active triangles whose circumcircle contains a given sample
-	// point to a given edge buffer and removes the triangles from the given list.
+	// point to a given edge buffer and removes the triangles from the active
+	// triangles. Compacts the active triangles in place and keeps their order.
 	private void findEnclosingPolygonEdges(Point2D sample, EdgeBuffer edges) {
-		int i = 0;
-		while (i < triangulation.size()) {
+		int numKept = 0;
+		for (int i = 0; i < triangulation.size(); ++i) {
 			DelauneyTriangle t = triangulation.get(i);
 			if (hasTriangleSettled(t, sample)) {
-				triangulation.remove(i);
 				settledTriangles.add(t);
-				continue;
-			}
-			
-			if (t.isPointInCircumcircle(sample)) {
-				edges.addEdges(t);
-				triangulation.remove(i);
-				// Since we removed the triangle we don't need to increase
-				// the loop counter.
+			} else if (t.isPointInCircumcircle(sample)) {
+				edges.addEdges(triangulation.vertices(), 3 * i);
 			} else {
-				++i;
+				triangulation.move(i, numKept);
+				++numKept;
 			}
 		}
+		triangulation.truncate(numKept);
 	}
 	
-	// For each given edge generate a new triangle with a given sample point.
-	private void generateNewTriangles(Point2D sample, EdgeBuffer edges) {
+	// For each given edge generate a new triangle with a sample point given by its
+	// index.
+	private void generateNewTriangles(int sampleIdx, EdgeBuffer edges) {
+		Point2D sample = samples.get(sampleIdx);
 		for (int i = 0; i < edges.size(); ++i) {
-			LineSegment2D e = edges.get(i);
+			int startIdx = edges.start(i);
+			int endIdx = edges.end(i);
+			Point2D start = samples.get(startIdx);
 			try {
-				Triangle2D t = new Triangle2D(sample, e.startPoint(), e.endPoint());
+				Triangle2D t = new Triangle2D(sample, start, samples.get(endIdx));
 				// Skip triangles that are lines or points.
-				if (!t.isDegenerate())
-					triangulation.add(new DelauneyTriangle(t));
+				if (t.isDegenerate())
+					continue;
+				
+				// Keep the vertex indices in the same order as the triangle's
+				// vertices. The triangle might have reordered them to be ccw.
+				DelauneyTriangle dt = new DelauneyTriangle(t);
+				if (t.vertex(1) == start)
+					triangulation.add(dt, sampleIdx, startIdx, endIdx);
+				else
+					triangulation.add(dt, sampleIdx, endIdx, startIdx);
 			} catch (GeometryException ex) {
 				// Skip this triangle.
 			}
@@ -194,8 +395,17 @@ public class DelauneyTriangulation {
 	
 	// Mark all remaining triangles as settles. 
 	private void settleRemainingTriangles() {
-		settledTriangles.addAll(triangulation);
-		triangulation.clear();
+		for (int i = 0; i < triangulation.size(); ++i)
+			settledTriangles.add(triangulation.get(i));
+		triangulation.truncate(0);
+	}
+	
+	// Returns the index of a given sample point object.
+	private int findSample(Point2D pt) {
+		for (int i = 0; i < samples.size(); ++i)
+			if (samples.get(i) == pt)
+				return i;
+		return -1;
 	}
 	
 	// Calculates a triangle that encloses the given points. The points need to
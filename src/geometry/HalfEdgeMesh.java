@@ -0,0 +1,179 @@
+package geometry;
+
+import java.util.Arrays;
+
+
+// Compact half-edge representation of a triangle mesh. All data is kept in flat
+// arrays of primitives. Vertices, triangles, and half-edges are referenced by
+// their indices:
+// - Triangle t consists of the half-edges 3t, 3t+1, 3t+2.
+// - Each half-edge starts at a vertex and ends at the start vertex of the next
+//   half-edge of its triangle.
+// - Each half-edge has an opposite half-edge in the adjacent triangle or none
+//   if it is on the mesh's boundary (the convex hull).
+// Triangles are oriented ccw (in screen coordinates) like Triangle2D.
+public class HalfEdgeMesh {
+
+	// Marks a missing half-edge.
+	public static final int NO_EDGE = -1;
+
+	// Coordinates of the vertices as (x, y) pairs.
+	private final double[] coords;
+	// Start vertex of each half-edge.
+	private final int[] triangles;
+	// Opposite half-edge of each half-edge.
+	private final int[] halfedges;
+	// Vertices on the boundary of the mesh in ccw order.
+	private final int[] hull;
+	// An outgoing half-edge for each vertex. For vertices on the boundary this is
+	// the outgoing boundary half-edge, so that walking around the vertex in ccw
+	// order visits all its triangles.
+	private final int[] vertexEdges;
+	// Circumcenters of the triangles as (x, y) pairs.
+	private final double[] circumcenters;
+
+	// Constructs the mesh from given arrays. The mesh takes ownership of the
+	// arrays. Callers must not modify them afterwards.
+	public HalfEdgeMesh(double[] coords, int[] triangles, int[] halfedges,
+			int[] hull) {
+		this.coords = coords;
+		this.triangles = triangles;
+		this.halfedges = halfedges;
+		this.hull = hull;
+		this.vertexEdges = calcVertexEdges(coords.length / 2, triangles, halfedges);
+		this.circumcenters = calcCircumcenters(coords, triangles);
+	}
+
+	public int countVertices() {
+		return coords.length / 2;
+	}
+
+	public int countTriangles() {
+		return triangles.length / 3;
+	}
+
+	public int countHalfEdges() {
+		return triangles.length;
+	}
+
+	public double vertexX(int v) {
+		return coords[2 * v];
+	}
+
+	public double vertexY(int v) {
+		return coords[2 * v + 1];
+	}
+
+	// Returns the index of a given vertex of a given triangle.
+	public int triangleVertex(int t, int idx) {
+		return triangles[3 * t + idx];
+	}
+
+	// Returns the vertex that a given half-edge starts at.
+	public int startVertex(int e) {
+		return triangles[e];
+	}
+
+	// Returns the vertex that a given half-edge ends at.
+	public int endVertex(int e) {
+		return triangles[nextHalfEdge(e)];
+	}
+
+	// Returns the opposite half-edge of a given half-edge or NO_EDGE if the
+	// half-edge is on the boundary.
+	public int opposite(int e) {
+		return halfedges[e];
+	}
+
+	public boolean isBoundaryEdge(int e) {
+		return halfedges[e] == NO_EDGE;
+	}
+
+	// Returns the triangle that a given half-edge belongs to.
+	public static int triangleOfEdge(int e) {
+		return e / 3;
+	}
+
+	// Returns the next half-edge of the same triangle.
+	public static int nextHalfEdge(int e) {
+		return (e % 3 == 2) ? e - 2 : e + 1;
+	}
+
+	// Returns the previous half-edge of the same triangle.
+	public static int prevHalfEdge(int e) {
+		return (e % 3 == 0) ? e + 2 : e - 1;
+	}
+
+	// Returns the vertices on the boundary of the mesh in ccw order.
+	public int[] hull() {
+		return hull;
+	}
+
+	// Returns the first outgoing half-edge of a given vertex for walking around
+	// it in ccw order. Returns NO_EDGE if the vertex is not part of any triangle.
+	public int firstEdgeAroundVertex(int v) {
+		return vertexEdges[v];
+	}
+
+	// Returns the next outgoing half-edge in ccw order around the start vertex
+	// of a given half-edge. Returns NO_EDGE when the walk reaches the boundary of
+	// the mesh. For interior vertices the walk returns to its first half-edge.
+	public int nextEdgeAroundVertex(int e) {
+		// The previous half-edge ends at the vertex. Its opposite starts at the
+		// vertex in the adjacent triangle.
+		return halfedges[prevHalfEdge(e)];
+	}
+
+	// Checks if a given vertex is on the boundary of the mesh.
+	public boolean isBoundaryVertex(int v) {
+		int e = vertexEdges[v];
+		return e != NO_EDGE && halfedges[e] == NO_EDGE;
+	}
+
+	public double circumcenterX(int t) {
+		return circumcenters[2 * t];
+	}
+
+	public double circumcenterY(int t) {
+		return circumcenters[2 * t + 1];
+	}
+
+	// Finds an outgoing half-edge for each vertex. Prefers boundary half-edges.
+	private static int[] calcVertexEdges(int numVertices, int[] triangles,
+			int[] halfedges) {
+		int[] vertexEdges = new int[numVertices];
+		Arrays.fill(vertexEdges, NO_EDGE);
+		for (int e = 0; e < triangles.length; ++e) {
+			int v = triangles[e];
+			if (vertexEdges[v] == NO_EDGE || halfedges[e] == NO_EDGE)
+				vertexEdges[v] = e;
+		}
+		return vertexEdges;
+	}
+
+	// Calculates the circumcenter of each triangle.
+	private static double[] calcCircumcenters(double[] coords, int[] triangles) {
+		int numTriangles = triangles.length / 3;
+		double[] centers = new double[2 * numTriangles];
+
+		for (int t = 0; t < numTriangles; ++t) {
+			int a = triangles[3 * t];
+			int b = triangles[3 * t + 1];
+			int c = triangles[3 * t + 2];
+			double ax = coords[2 * a];
+			double ay = coords[2 * a + 1];
+			double dx = coords[2 * b] - ax;
+			double dy = coords[2 * b + 1] - ay;
+			double ex = coords[2 * c] - ax;
+			double ey = coords[2 * c + 1] - ay;
+
+			double bl = dx * dx + dy * dy;
+			double cl = ex * ex + ey * ey;
+			double d = 0.5 / (dx * ey - dy * ex);
+			centers[2 * t] = ax + (ey * bl - dy * cl) * d;
+			centers[2 * t + 1] = ay + (dx * cl - ex * bl) * d;
+		}
+
+		return centers;
+	}
+}
@@ -1,8 +1,11 @@
 package geometry;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.IntStream;
 
 // Algorithm for generating evenly distributed points.
 // Implements Bridson's Algorithm:
@@ -10,108 +13,149 @@ import java.util.Random;
 // https://www.cs.ubc.ca/~rbridson/docs/bridson-siggraph07-poissondisk.pdf
 public class PoissonDiscSampling {
 
+	// Strategies for choosing the active sample that candidates are generated
+	// around next.
+	public enum SeedSelection {
+		// Oldest active sample. Grows the samples outward from the initial sample
+		// in rings.
+		FIFO,
+		// Random active sample. Grows the samples evenly into all directions.
+		RANDOM,
+		// Most recently added active sample. Tends to keep working in the same
+		// area of the grid, whose cells are then likely to be cached. Doesn't
+		// order the samples by position.
+		LIFO,
+		// Active sample in the top-most row of grid cells. Sweeps the samples
+		// through the domain row by row, so that the grid cells that are
+		// looked at stay within a narrow band.
+		SPATIAL
+	}
+	
 	///////////////
 	
 	// Grid that divides the domain into cells each containing either the index of a
-	// sample that lies within the cell or an empty marker. Allows to quickly lookup
-	// if another sample is nearby.
+	// sample that lies within the cell or an empty marker. Keeps the coordinates
+	// of the samples with their cells. Allows to quickly lookup if another sample
+	// is nearby.
 	private static class BackgroundGrid {
 		
-		private static final double SQRT_TWO = 1.414213562373;
 		private static final int EMPTY_CELL = -1;
+		// Marks cells that contain an existing sample that is not part of the
+		// generated samples.
+		private static final int EXISTING_CELL = -2;
 		private final Rect2D domain;
 		private final double minDist;
-		private double cellSize;
-		private int[][] grid;
+		private final double minDistSquared;
+		private final double cellSize;
+		private final int numRows;
+		private final int numCols;
+		// Cells in row-major order.
+		private final int[] cells;
+		// Coordinates of the sample in each cell.
+		private final double[] cellX;
+		private final double[] cellY;
 		
-		public BackgroundGrid(Rect2D domain, double minDist) {
+		// Constructs a grid with a given cell size. The cell size cannot be larger
+		// than the max cell size for the min distance, so that each cell contains
+		// at most one sample.
+		public BackgroundGrid(Rect2D domain, double minDist, double cellSize) {
 			this.domain = domain;
 			this.minDist = minDist;
-			// Pick cell size so that when checking whether another point is within the
-			// min distance of a given point only a small number of cells has to be
-			// checked.
-			// Using minDist/sqrt(2) means that the diagonal of a cell is minDist long:
-			//   len(diagonal) = sqrt(cellSize^2 + cellSize^2)
-			//            	   = sqrt((minDist/sqrt(2))^2 + (minDist/sqrt(2))^2)
-			// 	               = sqrt(minDist^2 / 2 + minDist^2 / 2)
-			//	               = sqrt(minDist^2)
-			//	               = minDist
-			// Therefore, for a given point only the following cells need to be checked:
-			//   - cell of point itself
-			//   - 2 cells in each direction (because cellSize < minDist < 2*cellSize)
-			//   - 1 cell in each diagonal (because len(diagonal) == minDist) 
-			this.cellSize = minDist / SQRT_TWO;
-			this.grid = initGrid(makeGrid(domain, minDist, cellSize));
+			this.minDistSquared = minDist * minDist;
+			this.cellSize = Math.min(cellSize, calcMaxCellSize(minDist));
+			this.numRows = (int) Math.ceil(domain.height() / this.cellSize);
+			this.numCols = (int) Math.ceil(domain.width() / this.cellSize);
+			this.cells = new int[numRows * numCols];
+			Arrays.fill(cells, EMPTY_CELL);
+			this.cellX = new double[cells.length];
+			this.cellY = new double[cells.length];
+		}
+		
+		// Calculates the largest cell size for which each cell can contain at
+		// most one sample.
+		// Using minDist/sqrt(2) means that the diagonal of a cell is minDist long:
+		//   len(diagonal) = sqrt(cellSize^2 + cellSize^2)
+		//            	   = sqrt((minDist/sqrt(2))^2 + (minDist/sqrt(2))^2)
+		// 	               = sqrt(minDist^2 / 2 + minDist^2 / 2)
+		//	               = sqrt(minDist^2)
+		//	               = minDist
+		// Therefore, for a given point only the cells up to two cells into each
+		// direction have to be checked.
+		public static double calcMaxCellSize(double minDist) {
+			return minDist / Math.sqrt(2);
 		}
 		
 		// Inserts the given index of a given sample into the grid.
 		public void insert(Point2D sample, int sampleIdx) {
 			int r = calcRow(sample.y);
 			int c = calcCol(sample.x);
-			grid[r][c] = sampleIdx;
+			store(r * numCols + c, sample, sampleIdx);
+		}
+		
+		// Inserts an existing sample into the grid. Ignores samples outside of
+		// the grid's domain.
+		public void insertExisting(Point2D sample) {
+			int r = calcRow(sample.y);
+			int c = calcCol(sample.x);
+			if (isCellInGrid(r, c))
+				store(r * numCols + c, sample, EXISTING_CELL);
 		}
 		
 		// Checks whether another sample is within the minimal distance of a given
 		// test point.
 		public boolean haveSampleWithinMinDistance(Point2D test) {
-			int testRow = calcRow(test.y);  
-			int testCol = calcCol(test.x);
-
-			int topMostRow = calcRow(test.y - minDist); 
-			int bottomMostRow = calcRow(test.y + minDist);
-			int leftMostCol = calcCol(test.x - minDist);
-			int rightMostCol = calcCol(test.x + minDist);
-
-			// Depending on where within its cell the test point is located we have to
-			// check one or two cells into each direction, e.g. if the test point is
-			// located in the top, left quadrant of its cell we have to check two cells
-			// to the left and top of the test cell but only one cell to the right and
-			// bottom. We have to do this for a strip of cells three cells thick
-			// horizontally and vertically.
-			
-			// Proceed from the top most row to the bottom most.
+			return haveSampleWithinMinDistance(test.x, test.y);
+		}
+		
+		// Checks whether another sample is within the minimal distance of a test
+		// point with given coordinates. Compares the actual distances to the
+		// samples in all cells that the min distance reaches into.
+		public boolean haveSampleWithinMinDistance(double testX, double testY) {
+			int topMostRow = Math.max(calcRow(testY - minDist), 0); 
+			int bottomMostRow = Math.min(calcRow(testY + minDist), numRows - 1);
+			int leftMostCol = Math.max(calcCol(testX - minDist), 0);
+			int rightMostCol = Math.min(calcCol(testX + minDist), numCols - 1);
 			
-			// If necessary, row of cells two cells above the test cell.
-			if (topMostRow < testRow - 1) {
-				for (int c = testCol - 1; c <= testCol + 1; ++c)
-					if (isCellOccupied(topMostRow, c))
+			for (int r = topMostRow; r <= bottomMostRow; ++r) {
+				int rowStart = r * numCols;
+				for (int c = leftMostCol; c <= rightMostCol; ++c) {
+					int cell = rowStart + c;
+					if (cells[cell] == EMPTY_CELL)
+						continue;
+					double dx = cellX[cell] - testX;
+					double dy = cellY[cell] - testY;
+					if (dx * dx + dy * dy < minDistSquared)
 						return true;
+				}
 			}
-			// Center block of rows.
-			for (int r = testRow - 1; r <= testRow + 1; ++r) {
-				for (int c = leftMostCol; c <= rightMostCol; ++c)
-					if (isCellOccupied(r, c))
-						return true;
-			}
-			// If necessary, row of cells two cells below the test cell.
-			if (bottomMostRow > testRow + 1) {
-				for (int c = testCol - 1; c <= testCol + 1; ++c)
-					if (isCellOccupied(bottomMostRow, c))
-						return true;
-			}
-			
 			return false;
 		}
 		
-		// Creates a grid for a given domain.
-		private static int[][] makeGrid(Rect2D domain, double minDist, double cellSize) {
-			int numRows = (int) Math.ceil(domain.height() / cellSize);
-			int numCols = (int) Math.ceil(domain.width() / cellSize);
-			return new int[numRows][numCols];
+		public double cellSize() {
+			return cellSize;
 		}
 		
-		// Initializes a given grid as empty.
-		private static int[][] initGrid(int[][] grid) {
-			int numRows = grid.length;
-			if (numRows == 0)
-				return grid;
-			
-			int numCols = grid[0].length;
-			for (int r = 0; r < numRows; ++r)
-				for (int c = 0; c < numCols; ++c)
-					grid[r][c] = EMPTY_CELL;
-			
-			return grid;
+		public int countRows() {
+			return numRows;
+		}
+		
+		public int countColumns() {
+			return numCols;
+		}
+		
+		// Returns the area covered by the cells from a given first row and column
+		// up to but not including a given last row and column.
+		public Rect2D cellBounds(int firstRow, int firstCol, int lastRow, int lastCol) {
+			return new Rect2D(domain.left() + firstCol * cellSize,
+					domain.top() + firstRow * cellSize,
+					domain.left() + lastCol * cellSize,
+					domain.top() + lastRow * cellSize);
+		}
+		
+		private void store(int cell, Point2D sample, int sampleIdx) {
+			cells[cell] = sampleIdx;
+			cellX[cell] = sample.x;
+			cellY[cell] = sample.y;
 		}
 		
 		// Calculates the row index of the grid cell that a given y-coordinate falls
@@ -126,52 +170,338 @@ public class PoissonDiscSampling {
 			return (int) Math.floor((x - domain.left()) / cellSize);
 		}
 		
-		// Checks if a cell at given coordinates is occupied.
-		private boolean isCellOccupied(int r, int c) {
-			if (r < 0 || r >= grid.length)
-				return false;
-			if (c < 0 || c >= grid[0].length)
-				return false;
-			return grid[r][c] != EMPTY_CELL;
+		// Checks if given cell coordinates are within the grid.
+		private boolean isCellInGrid(int r, int c) {
+			return r >= 0 && r < numRows && c >= 0 && c < numCols;
 		}
 	}
 	
 	///////////////
 	
-	// Represents the ring-shaped area around a given point that candidate samples
-	// are taken from.
+	// Represents the ring-shaped area around a seed sample that candidate samples
+	// are taken from. Reused for all seeds of a region to avoid allocations.
 	private static class Annulus {
 		
-		private final Ring2D ring;
-		// Overlap of ring bounds and domain area.
+		// Max number of attempts to generate a candidate within the bounds. The
+		// ring can lie almost entirely outside of small bounds.
+		private static final int MAX_ATTEMPTS = 100;
+		private final double innerRadiusSquared;
+		private final double outerRadiusSquared;
+		// Area that candidates have to be located in.
+		private final Rect2D bounds;
+		private final Random rand;
+		// Coordinates of the most recently generated candidate.
+		private double x;
+		private double y;
+		
+		public Annulus(double innerRadius, double outerRadius, Rect2D bounds,
+				Random rand) {
+			this.innerRadiusSquared = innerRadius * innerRadius;
+			this.outerRadiusSquared = outerRadius * outerRadius;
+			this.bounds = bounds;
+			this.rand = rand;
+		}
+		
+		// Generates a candidate within the ring around a given center and within
+		// the bounds. Samples polar coordinates so that the candidates are evenly
+		// distributed over the ring's area. Returns false if no candidate within
+		// the bounds was found.
+		public boolean generatePointInRing(double centerX, double centerY) {
+			for (int i = 0; i < MAX_ATTEMPTS; ++i) {
+				double angle = 2 * Math.PI * rand.nextDouble();
+				double radius = Math.sqrt(innerRadiusSquared +
+						rand.nextDouble() * (outerRadiusSquared - innerRadiusSquared));
+				x = centerX + radius * Math.cos(angle);
+				y = centerY + radius * Math.sin(angle);
+				if (isInBounds(x, y))
+					return true;
+			}
+			return false;
+		}
+		
+		private boolean isInBounds(double x, double y) {
+			return x >= bounds.left() && x < bounds.right() &&
+					y >= bounds.top() && y < bounds.bottom();
+		}
+	}
+	
+	///////////////
+	
+	// Indices of the samples that are still active. Items are accessed by their
+	// position in the list.
+	private static abstract class ActiveList {
+		
+		public abstract boolean isEmpty();
+		
+		// Returns the item at a given position.
+		public abstract int get(int pos);
+		
+		// Adds the item of a given sample.
+		public abstract void add(int item, Point2D sample);
+		
+		// Chooses the position of the item that candidates are generated around
+		// next.
+		public abstract int choose(Random rand);
+		
+		// Removes the item at a given position.
+		public abstract void remove(int pos);
+	}
+	
+	///////////////
+	
+	// Active list for the FIFO, RANDOM and LIFO strategies. Supports choosing
+	// and removing samples in constant time.
+	private static class QueueActiveList extends ActiveList {
+		
+		private final SeedSelection selection;
+		private int[] items = new int[64];
+		// Position of the first and one past the last active item. Items before
+		// the first position were removed in FIFO order.
+		private int first = 0;
+		private int end = 0;
+		
+		public QueueActiveList(SeedSelection selection) {
+			this.selection = selection;
+		}
+		
+		@Override
+		public boolean isEmpty() {
+			return first == end;
+		}
+		
+		public int size() {
+			return end - first;
+		}
+		
+		@Override
+		public int get(int pos) {
+			return items[pos];
+		}
+		
+		@Override
+		public void add(int item, Point2D sample) {
+			if (end == items.length)
+				makeRoom();
+			items[end++] = item;
+		}
+		
+		@Override
+		public int choose(Random rand) {
+			switch (selection) {
+			case RANDOM:
+				return first + rand.nextInt(size());
+			case LIFO:
+				return end - 1;
+			default:
+				return first;
+			}
+		}
+		
+		// Removing the first item keeps the order of the others. Other items are
+		// replaced by the last item.
+		@Override
+		public void remove(int pos) {
+			if (pos == first) {
+				++first;
+			} else {
+				items[pos] = items[end - 1];
+				--end;
+			}
+		}
+		
+		// Reclaims the space of removed items or grows the storage.
+		private void makeRoom() {
+			int size = size();
+			if (first >= items.length / 2) {
+				System.arraycopy(items, first, items, 0, size);
+			} else {
+				int[] grown = new int[items.length * 2];
+				System.arraycopy(items, first, grown, 0, size);
+				items = grown;
+			}
+			first = 0;
+			end = size;
+		}
+	}
+	
+	///////////////
+	
+	// Active list for the SPATIAL strategy. Buckets the items by the row of grid
+	// cells that their samples are in. Each bucket is a linked list of items,
+	// so that the position of an item is the item itself. Choosing an item
+	// takes amortized constant time because new samples are at most a few rows
+	// above their seed.
+	private static class RowActiveList extends ActiveList {
+		
+		private static final int NO_ITEM = -1;
+		private final double top;
+		private final double rowHeight;
+		// First item of each row's bucket.
+		private final int[] heads;
+		// Next and previous item in the bucket and row of each item.
+		private int[] next = new int[64];
+		private int[] prev = new int[64];
+		private int[] rows = new int[64];
+		// Top-most row that can have items.
+		private int firstRow;
+		private int size = 0;
+		
+		public RowActiveList(Rect2D bounds, double rowHeight) {
+			this.top = bounds.top();
+			this.rowHeight = rowHeight;
+			this.heads = new int[(int) Math.ceil(bounds.height() / rowHeight) + 1];
+			Arrays.fill(heads, NO_ITEM);
+			this.firstRow = heads.length;
+		}
+		
+		@Override
+		public boolean isEmpty() {
+			return size == 0;
+		}
+		
+		@Override
+		public int get(int pos) {
+			return pos;
+		}
+		
+		// Adds the item at the front of its row's bucket.
+		@Override
+		public void add(int item, Point2D sample) {
+			if (item >= next.length) {
+				int newLength = Math.max(item + 1, 2 * next.length);
+				next = Arrays.copyOf(next, newLength);
+				prev = Arrays.copyOf(prev, newLength);
+				rows = Arrays.copyOf(rows, newLength);
+			}
+			int row = Math.min(Math.max(
+					(int) Math.floor((sample.y - top) / rowHeight), 0), heads.length - 1);
+			rows[item] = row;
+			prev[item] = NO_ITEM;
+			next[item] = heads[row];
+			if (heads[row] != NO_ITEM)
+				prev[heads[row]] = item;
+			heads[row] = item;
+			firstRow = Math.min(firstRow, row);
+			++size;
+		}
+		
+		// Chooses the most recently added item of the top-most row.
+		@Override
+		public int choose(Random rand) {
+			while (heads[firstRow] == NO_ITEM)
+				++firstRow;
+			return heads[firstRow];
+		}
+		
+		@Override
+		public void remove(int pos) {
+			if (prev[pos] != NO_ITEM)
+				next[prev[pos]] = next[pos];
+			else
+				heads[rows[pos]] = next[pos];
+			if (next[pos] != NO_ITEM)
+				prev[next[pos]] = prev[pos];
+			--size;
+		}
+	}
+	
+	///////////////
+	
+	// Region of the domain that samples are generated in. The whole domain for
+	// sequential sampling, a tile of the background grid for parallel sampling.
+	private class Region {
+		
 		private final Rect2D bounds;
 		private final Random rand;
+		private final List<Point2D> samples = new ArrayList<Point2D>();
+		private final ActiveList active;
+		private final Annulus annulus;
 		
-		public Annulus(Point2D center, double innerRadius, double outerRadius,
-				Rect2D domain, Random rand) {
-			this.ring = new Ring2D(center, innerRadius, outerRadius);
-			this.bounds = ring.bounds().intersect(domain);
+		public Region(Rect2D bounds, Random rand) {
+			this.bounds = bounds;
 			this.rand = rand;
+			this.active = (seedSelection == SeedSelection.SPATIAL) ?
+					new RowActiveList(bounds, grid.cellSize()) :
+					new QueueActiveList(seedSelection);
+			this.annulus = new Annulus(minDist, maxCandidateDist, bounds, rand);
 		}
 		
-		public Point2D generatePointInRing() {
-			Point2D pt = generatePointInBounds();
-			while (!ring.isPointInRing(pt))
-				pt = generatePointInBounds();
-			return pt;
+		// Generates samples by picking a random initial sample.
+		public List<Point2D> generate() {
+			// Make sure the initial sample keeps its distance to existing samples.
+			Point2D initialSample = generateSample();
+			for (int i = 0; i < numCandidates &&
+					grid.haveSampleWithinMinDistance(initialSample); ++i) {
+				initialSample = generateSample();
+			}
+			if (grid.haveSampleWithinMinDistance(initialSample))
+				return samples;
+			
+			return generate(initialSample);
 		}
 		
-		private Point2D generatePointInBounds() {
+		// Generates samples with given initial sample.
+		public List<Point2D> generate(Point2D initialSample) {
+			storeSample(initialSample);
+	
+			while (!active.isEmpty()) {
+				int seedPos = chooseSeed();
+				Point2D seedSample = samples.get(active.get(seedPos));
+				Point2D newSample = findNewSample(seedSample);
+				if (newSample == null)
+					active.remove(seedPos);
+				else
+					storeSample(newSample);
+			}
+			
+			return samples;
+		}
+		
+		// Generates random sample.
+		private Point2D generateSample() {
 			double x = bounds.left() + rand.nextDouble() * bounds.width();
 			double y = bounds.top() + rand.nextDouble() * bounds.height();
 			return new Point2D(x, y);
 		}
+		
+		// Abstracts the process of choosing the next seed sample to generate
+		// candidates for. Returns position in active list.
+		private int chooseSeed() {
+			return active.choose(rand);
+		}
+		
+		// Stores a given sample in the internal data structures.
+		private void storeSample(Point2D sample) {
+			samples.add(sample);
+			int sampleIdx = samples.size() - 1;
+			active.add(sampleIdx, sample);
+			grid.insert(sample, sampleIdx);
+		}
+		
+		// Finds a new sample for a given seed sample.
+		// Returns null if none could be found.
+		private Point2D findNewSample(Point2D seedSample) {
+			for (int i = 0; i < numCandidates; ++i) {
+				if (annulus.generatePointInRing(seedSample.x, seedSample.y) &&
+						!grid.haveSampleWithinMinDistance(annulus.x, annulus.y))
+					return new Point2D(annulus.x, annulus.y);
+			}
+	
+			return null;
+		}
 	}
 	
 	///////////////
 	
 	// Number of candidates that are generated when trying to find a new sample.
 	public static final int NUM_CANDIDATES_DEFAULT = 30;
+	// Min length of the sides of the tiles that parallel sampling splits the
+	// background grid into as multiple of the min distance. Has to be larger
+	// than one, so that tiles of the same color never look at each other's
+	// cells.
+	private static final double TILE_SIZE_FACTOR = 12;
+	// Number of colors that tiles are assigned in a 2x2 pattern.
+	private static final int NUM_TILE_COLORS = 4;
 	private final Rect2D domain;
 	// Min distance that samples are allowed to be from each other.
 	private final double minDist;
@@ -179,80 +509,138 @@ public class PoissonDiscSampling {
 	// Max distance from seed sample that candidate samples are looked for. 
 	private final double maxCandidateDist;
 	private final Random rand;
-	private List<Point2D> samples = new ArrayList<Point2D>();
-	private List<Integer> active = new ArrayList<Integer>();
+	private final SeedSelection seedSelection;
 	private BackgroundGrid grid;
+	// Number of grid cells along each side of the tiles for parallel sampling.
+	private final int tileCells;
 	
 	public PoissonDiscSampling(Rect2D domain, double minDist, int numCandidatePoints,
 			Random rand) {
+		this(domain, minDist, numCandidatePoints, rand, SeedSelection.FIFO);
+	}
+	
+	public PoissonDiscSampling(Rect2D domain, double minDist, int numCandidatePoints,
+			Random rand, SeedSelection seedSelection) {
+		this(domain, minDist, numCandidatePoints, rand, new ArrayList<Point2D>(),
+				seedSelection);
+	}
+	
+	// Constructs a sampling whose samples keep the min distance to given existing
+	// samples, e.g. samples that were generated for a neighboring domain. The
+	// existing samples can be outside of the domain. They are not part of the
+	// generated samples.
+	public PoissonDiscSampling(Rect2D domain, double minDist, int numCandidatePoints,
+			Random rand, List<Point2D> existingSamples) {
+		this(domain, minDist, numCandidatePoints, rand, existingSamples,
+				SeedSelection.FIFO);
+	}
+	
+	public PoissonDiscSampling(Rect2D domain, double minDist, int numCandidatePoints,
+			Random rand, List<Point2D> existingSamples, SeedSelection seedSelection) {
+		this(domain, minDist, numCandidatePoints, rand, existingSamples,
+				seedSelection, maxCellSize(minDist));
+	}
+	
+	// Constructs a sampling with a given cell size of its background grid.
+	// Smaller cells make each lookup check fewer area outside of the min
+	// distance but more cells. Cell sizes larger than the max cell size for the
+	// min distance are reduced to the max cell size.
+	public PoissonDiscSampling(Rect2D domain, double minDist, int numCandidatePoints,
+			Random rand, List<Point2D> existingSamples, SeedSelection seedSelection,
+			double cellSize) {
 		this.domain = domain;
 		this.minDist = minDist;
 		this.numCandidates = numCandidatePoints;
 		this.maxCandidateDist = 2 * minDist;
 		this.rand = rand;
-		this.grid = new BackgroundGrid(domain, minDist);
+		this.seedSelection = seedSelection;
+		
+		if (existingSamples.isEmpty()) {
+			this.grid = new BackgroundGrid(domain, minDist, cellSize);
+		} else {
+			// Extend the grid so that it covers existing samples that are close
+			// enough to the domain to affect it.
+			Rect2D gridDomain = domain.copy();
+			gridDomain.inflate(minDist);
+			this.grid = new BackgroundGrid(gridDomain, minDist, cellSize);
+			for (Point2D existing : existingSamples)
+				grid.insertExisting(existing);
+		}
+		this.tileCells = (int) Math.ceil(TILE_SIZE_FACTOR * minDist / grid.cellSize());
+	}
+	
+	// Returns the largest cell size of the background grid for a given min
+	// distance. Each cell can then hold at most one sample.
+	public static double maxCellSize(double minDist) {
+		return BackgroundGrid.calcMaxCellSize(minDist);
 	}
 	
 	// Generates samples by picking a random initial samples.
 	public List<Point2D> generate() {
-		return generate(generateSample());
+		return new Region(domain, rand).generate();
 	}
 	
 	// Generates samples with given initial sample.
 	public List<Point2D> generate(Point2D initialSample) {
-		storeSample(initialSample);
-
-		while (!active.isEmpty()) {
-			int seedIdx = chooseSeed();
-			Point2D seedSample = samples.get(seedIdx);
-			Point2D newSample = findNewSample(seedSample);
-			if (newSample == null)
-				deactivateSample(seedIdx);
-			else
-				storeSample(newSample);
+		return new Region(domain, rand).generate(initialSample);
+	}
+	
+	// Generates samples on multiple threads. The samples are different from the
+	// ones generated sequentially but keep the min distance just the same.
+	// - The background grid is split into square tiles that are colored in a
+	//   2x2 pattern. Tiles of the same color are more than the min distance
+	//   apart, so they can be sampled concurrently without looking at each
+	//   other's cells.
+	// - The colors are processed one after the other. Samples of tiles with a
+	//   later color keep their distance to the samples of earlier colors.
+	// - Each tile has its own random number generator derived from the given
+	//   one. Makes the samples independent of how the tiles are scheduled.
+	// Based on: Li-Yi Wei, Parallel Poisson Disk Sampling, 2008.
+	public List<Point2D> generateParallel() {
+		long baseSeed = rand.nextLong();
+		int numTileRows = Math.max(1, grid.countRows() / tileCells);
+		int numTileCols = Math.max(1, grid.countColumns() / tileCells);
+		int numTiles = numTileRows * numTileCols;
+		
+		List<List<Point2D>> tileSamples = new ArrayList<List<Point2D>>(
+				Collections.nCopies(numTiles, (List<Point2D>) null));
+		for (int color = 0; color < NUM_TILE_COLORS; ++color) {
+			final int tileColor = color;
+			IntStream.range(0, numTiles).parallel()
+				.filter((int i) ->
+						calcTileColor(i / numTileCols, i % numTileCols) == tileColor)
+				.forEach((int i) -> tileSamples.set(i, sampleTile(i / numTileCols,
+						i % numTileCols, numTileRows, numTileCols, baseSeed)));
 		}
 		
+		List<Point2D> samples = new ArrayList<Point2D>();
+		for (List<Point2D> tile : tileSamples)
+			samples.addAll(tile);
 		return samples;
 	}
 	
-	// Generates random sample.
-	private Point2D generateSample() {
-		double x = domain.left() + rand.nextDouble() * domain.width();
-		double y = domain.top() + rand.nextDouble() * domain.height();
-		return new Point2D(x, y);
-	}
-	
-	// Abstracts the process of choosing the next seed sample to generate
-	// candidates for. Returns index into sample array.
-	private int chooseSeed() {
-		return active.get(0);
-	}
-	
-	// Stores a given sample in the internal data structures.
-	private void storeSample(Point2D sample) {
-		samples.add(sample);
-		int sampleIdx = samples.size() - 1;
-		active.add(sampleIdx);
-		grid.insert(sample, sampleIdx);
-	}
-	
-	// Marks a given sample as not active anymore
-	private void deactivateSample(int sampleIdx) {
-		active.remove(Integer.valueOf(sampleIdx));
+	// Generates the samples of the tile at a given row and column.
+	private List<Point2D> sampleTile(int row, int col, int numTileRows,
+			int numTileCols, long baseSeed) {
+		// The last tile in each direction also covers the remaining cells.
+		int firstRow = row * tileCells;
+		int lastRow = (row == numTileRows - 1) ? grid.countRows() :
+			firstRow + tileCells;
+		int firstCol = col * tileCells;
+		int lastCol = (col == numTileCols - 1) ? grid.countColumns() :
+			firstCol + tileCells;
+		Rect2D cells = grid.cellBounds(firstRow, firstCol, lastRow, lastCol);
+		Rect2D bounds = cells.intersect(domain);
+		if (bounds.width() <= 0 || bounds.height() <= 0)
+			return new ArrayList<Point2D>();
+		
+		int tileIdx = row * numTileCols + col;
+		Random tileRand = new Random(baseSeed ^ (0x9E3779B97F4A7C15L * (tileIdx + 1)));
+		return new Region(bounds, tileRand).generate();
 	}
 	
-	// Finds a new sample for a given seed sample.
-	// Returns null if none could be found.
-	private Point2D findNewSample(Point2D seedSample) {
-		Annulus annulus =
-				new Annulus(seedSample, minDist, maxCandidateDist, domain, rand);
-		
-		for (int i = 0; i < numCandidates; ++i) {
-			Point2D candidate = annulus.generatePointInRing();
-			if (!grid.haveSampleWithinMinDistance(candidate))
-				return candidate;
-		}
-
-		return null;
+	// Calculates the color of the tile at a given row and column.
+	private static int calcTileColor(int row, int col) {
+		return (row % 2) * 2 + (col % 2);
 	}
 }
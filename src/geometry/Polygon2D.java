@@ -3,6 +3,8 @@ package geometry;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
 
 import math.MathUtil;
 
@@ -139,4 +141,52 @@ public class Polygon2D extends Object {
 		// No changes in orientation - point is inside.
 		return true;
 	}
+	
+	// Clips a given convex polygon at a line. One step of the Sutherland-Hodgman
+	// algorithm. Keeps the vertices on the inside of the line and adds the points
+	// where the polygon's edges cross it. A given test checks if a point is on the
+	// inside. A given function returns the crossing of the edge between two points
+	// that are on different sides of the line. The result has no consecutive
+	// duplicate vertices.
+	static Polygon2D clipAtLine(Polygon2D poly, Predicate<Point2D> isInside,
+			BinaryOperator<Point2D> crossing) {
+		Polygon2D out = new Polygon2D();
+		int numVertices = poly.countVertices();
+		if (numVertices == 0)
+			return out;
+		
+		Point2D prev = poly.vertex(numVertices - 1);
+		boolean isPrevInside = isInside.test(prev);
+		for (int i = 0; i < numVertices; ++i) {
+			Point2D cur = poly.vertex(i);
+			boolean isCurInside = isInside.test(cur);
+			
+			if (isCurInside != isPrevInside)
+				addUniquePoint(out, crossing.apply(prev, cur));
+			if (isCurInside)
+				addUniquePoint(out, cur);
+			
+			prev = cur;
+			isPrevInside = isCurInside;
+		}
+		
+		// Closing the polygon could have produced a duplicate.
+		int last = out.countVertices() - 1;
+		if (last > 0 && out.vertex(last).equals(out.vertex(0)))
+			removeLastVertex(out);
+		return out;
+	}
+	
+	// Adds a given point to a given polygon if it is different from the last
+	// vertex of the polygon.
+	static void addUniquePoint(Polygon2D poly, Point2D pt) {
+		int numVertices = poly.countVertices();
+		if (numVertices == 0 || !poly.vertex(numVertices - 1).equals(pt))
+			poly.addVertex(pt);
+	}
+	
+	// Removes the last vertex of a given polygon.
+	static void removeLastVertex(Polygon2D poly) {
+		poly.vertices.remove(poly.vertices.size() - 1);
+	}
 }
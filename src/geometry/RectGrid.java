@@ -0,0 +1,175 @@
+package geometry;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+// Static spatial index that finds the rects of a fixed list that overlap a
+// given area, e.g. the tiles of a map that are within a viewport.
+// - The bounds of all rects are divided into a uniform grid of square cells.
+//   Each rect is listed in all cells that it overlaps. The cell lists are
+//   stored in compressed-sparse-row format.
+// - The cells are sized so that each holds a few rects if the rects are
+//   similar in size and evenly spread, like the tiles of a map. Queries then
+//   take time proportional to the number of rects that overlap the area
+//   instead of the total number of rects.
+// - Rects that overlap several cells of a query are only reported once, from
+//   the first of those cells. Queries don't allocate or modify the grid, so
+//   they can run concurrently.
+public class RectGrid {
+
+	// Edge length of the cells as multiple of the edge length of a square that
+	// has the average area per rect.
+	private static final double CELL_SIZE_FACTOR = 2;
+	private final int numRects;
+	// Bounds of each rect by index.
+	private final double[] lefts;
+	private final double[] tops;
+	private final double[] rights;
+	private final double[] bottoms;
+	// Column and row of the first cell that each rect overlaps.
+	private final int[] firstCols;
+	private final int[] firstRows;
+	private final double gridLeft;
+	private final double gridTop;
+	private final double cellSize;
+	private final int numCols;
+	private final int numRows;
+	// Indices of the rects of cell i are stored at positions cellStarts[i] to
+	// cellStarts[i+1]-1 of the cell entries. Cells are stored row by row.
+	private final int[] cellStarts;
+	private final int[] cellEntries;
+
+	public RectGrid(List<Rect2D> rects) {
+		numRects = rects.size();
+		lefts = new double[numRects];
+		tops = new double[numRects];
+		rights = new double[numRects];
+		bottoms = new double[numRects];
+		double left = Double.POSITIVE_INFINITY;
+		double top = Double.POSITIVE_INFINITY;
+		double right = Double.NEGATIVE_INFINITY;
+		double bottom = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < numRects; ++i) {
+			Rect2D rect = rects.get(i);
+			lefts[i] = rect.left();
+			tops[i] = rect.top();
+			rights[i] = rect.right();
+			bottoms[i] = rect.bottom();
+			left = Math.min(left, lefts[i]);
+			top = Math.min(top, tops[i]);
+			right = Math.max(right, rights[i]);
+			bottom = Math.max(bottom, bottoms[i]);
+		}
+		if (numRects == 0)
+			left = top = right = bottom = 0;
+
+		gridLeft = left;
+		gridTop = top;
+		double areaPerRect =
+				(right - left) * (bottom - top) / Math.max(numRects, 1);
+		double size = CELL_SIZE_FACTOR * Math.sqrt(areaPerRect);
+		// Limit the number of cells for rects that are spread along a line.
+		size = Math.max(size,
+				Math.max(right - left, bottom - top) / (4.0 * Math.max(numRects, 1)));
+		if (!(size > 0))
+			size = Math.max(Math.max(right - left, bottom - top), 1);
+		cellSize = size;
+		numCols = Math.max((int) Math.ceil((right - left) / cellSize), 1);
+		numRows = Math.max((int) Math.ceil((bottom - top) / cellSize), 1);
+
+		firstCols = new int[numRects];
+		firstRows = new int[numRects];
+		cellStarts = new int[numCols * numRows + 1];
+		for (int i = 0; i < numRects; ++i) {
+			firstCols[i] = column(lefts[i]);
+			firstRows[i] = row(tops[i]);
+			int lastCol = column(rights[i]);
+			int lastRow = row(bottoms[i]);
+			for (int r = firstRows[i]; r <= lastRow; ++r)
+				for (int c = firstCols[i]; c <= lastCol; ++c)
+					++cellStarts[r * numCols + c + 1];
+		}
+		for (int i = 0; i < numCols * numRows; ++i)
+			cellStarts[i + 1] += cellStarts[i];
+
+		cellEntries = new int[cellStarts[numCols * numRows]];
+		int[] fillPos = new int[numCols * numRows];
+		for (int i = 0; i < numRects; ++i) {
+			int lastCol = column(rights[i]);
+			int lastRow = row(bottoms[i]);
+			for (int r = firstRows[i]; r <= lastRow; ++r) {
+				for (int c = firstCols[i]; c <= lastCol; ++c) {
+					int cell = r * numCols + c;
+					cellEntries[cellStarts[cell] + fillPos[cell]++] = i;
+				}
+			}
+		}
+	}
+
+	public int size() {
+		return numRects;
+	}
+
+	// Calls a given action with the index of each rect that overlaps a given
+	// area. Rects that only touch the area count as overlapping. Each rect is
+	// reported once. Returns the number of reported rects.
+	public int forEachOverlapping(Rect2D area, IntConsumer action) {
+		return forEachOverlappingWhile(area, i -> {
+			action.accept(i);
+			return true;
+		});
+	}
+
+	// Calls a given action with the index of each rect that overlaps a given
+	// area like forEachOverlapping() until the action returns false. Returns
+	// the number of rects for which the action returned true.
+	public int forEachOverlappingWhile(Rect2D area, IntPredicate action) {
+		if (numRects == 0 || area.right() < gridLeft || area.bottom() < gridTop ||
+				area.left() > gridLeft + numCols * cellSize ||
+				area.top() > gridTop + numRows * cellSize)
+			return 0;
+
+		int firstCol = column(area.left());
+		int lastCol = column(area.right());
+		int firstRow = row(area.top());
+		int lastRow = row(area.bottom());
+		int numFound = 0;
+		for (int r = firstRow; r <= lastRow; ++r) {
+			for (int c = firstCol; c <= lastCol; ++c) {
+				int cell = r * numCols + c;
+				for (int p = cellStarts[cell]; p < cellStarts[cell + 1]; ++p) {
+					int i = cellEntries[p];
+					// Report the rect only from the first cell of the query that
+					// lists it.
+					if (Math.max(firstCols[i], firstCol) != c ||
+							Math.max(firstRows[i], firstRow) != r)
+						continue;
+					if (rights[i] < area.left() || lefts[i] > area.right() ||
+							bottoms[i] < area.top() || tops[i] > area.bottom())
+						continue;
+					if (!action.test(i))
+						return numFound;
+					++numFound;
+				}
+			}
+		}
+		return numFound;
+	}
+
+	// Returns the column of the cell that a given x coordinate falls into.
+	// Coordinates outside of the grid are clamped to the nearest column.
+	private int column(double x) {
+		return clamp((int) Math.floor((x - gridLeft) / cellSize), numCols);
+	}
+
+	// Returns the row of the cell that a given y coordinate falls into.
+	// Coordinates outside of the grid are clamped to the nearest row.
+	private int row(double y) {
+		return clamp((int) Math.floor((y - gridTop) / cellSize), numRows);
+	}
+
+	private static int clamp(int idx, int num) {
+		return Math.min(Math.max(idx, 0), num - 1);
+	}
+}
@@ -0,0 +1,180 @@
+package geometry;
+
+import java.util.Arrays;
+
+import math.FpUtil;
+
+// Hash map from points to values that uses the same fuzzy equality as
+// Point2D.equals(). Alternative to a TreeMap with a fuzzy comparator that looks
+// up points in O(1) expected time instead of O(log n).
+// - The plane is divided into a grid of square cells that are a small multiple
+//   of the fp threshold in size. Points are hashed by the cell they fall into.
+// - Points within the fp threshold of a given point are either in the same cell
+//   or in a neighboring cell. Lookups also probe those neighboring cells that
+//   are within the threshold of the point.
+// - The fp threshold is captured when the hash is constructed.
+public class SpatialHash2D<V> {
+
+	// Size of the grid cells as multiple of the fp threshold. Larger cells mean
+	// that fewer lookups have to probe neighboring cells.
+	private static final double CELL_SIZE_FACTOR = 16;
+	private static final int NO_ENTRY = -1;
+	private static final int INITIAL_CAPACITY = 16;
+	private final double threshold;
+	private final double cellSize;
+	// Index of the first entry for each bucket.
+	private int[] buckets;
+	// Entries are stored in parallel arrays. Each entry is part of a chain of
+	// entries in the same bucket.
+	private Point2D[] keys;
+	private Object[] values;
+	private int[] hashes;
+	private int[] next;
+	private int size = 0;
+
+	public SpatialHash2D() {
+		this(INITIAL_CAPACITY);
+	}
+
+	public SpatialHash2D(int expectedSize) {
+		this.threshold = FpUtil.globalFpThreshold();
+		this.cellSize = CELL_SIZE_FACTOR * threshold;
+		int capacity = calcCapacity(Math.max(expectedSize, INITIAL_CAPACITY));
+		this.buckets = makeBuckets(capacity);
+		this.keys = new Point2D[capacity];
+		this.values = new Object[capacity];
+		this.hashes = new int[capacity];
+		this.next = new int[capacity];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// Associates a given value with a given point. Replaces the value of a
+	// stored point that is equal to the given point. The stored point is kept.
+	// Returns the previous value or null if there was none.
+	public V put(Point2D pt, V value) {
+		int entry = findEntry(pt);
+		if (entry != NO_ENTRY) {
+			V prev = valueAt(entry);
+			values[entry] = value;
+			return prev;
+		}
+
+		if (size == keys.length)
+			grow();
+		int hash = calcHash(calcCell(pt.x), calcCell(pt.y));
+		int bucket = hash & (buckets.length - 1);
+		keys[size] = pt;
+		values[size] = value;
+		hashes[size] = hash;
+		next[size] = buckets[bucket];
+		buckets[bucket] = size;
+		++size;
+		return null;
+	}
+
+	// Returns the value of the stored point that is equal to a given point or
+	// null if there is none.
+	public V get(Point2D pt) {
+		int entry = findEntry(pt);
+		return (entry != NO_ENTRY) ? valueAt(entry) : null;
+	}
+
+	public boolean containsKey(Point2D pt) {
+		return findEntry(pt) != NO_ENTRY;
+	}
+
+	// Returns the index of the entry whose point is equal to a given point.
+	private int findEntry(Point2D pt) {
+		long cellX = calcCell(pt.x);
+		long cellY = calcCell(pt.y);
+		// Only probe neighboring cells if the point is close enough to them.
+		long minCellX = calcCell(pt.x - threshold);
+		long maxCellX = calcCell(pt.x + threshold);
+		long minCellY = calcCell(pt.y - threshold);
+		long maxCellY = calcCell(pt.y + threshold);
+
+		int entry = findEntryInCell(pt, cellX, cellY);
+		if (entry != NO_ENTRY)
+			return entry;
+		for (long cy = minCellY; cy <= maxCellY; ++cy) {
+			for (long cx = minCellX; cx <= maxCellX; ++cx) {
+				if (cx == cellX && cy == cellY)
+					continue;
+				entry = findEntryInCell(pt, cx, cy);
+				if (entry != NO_ENTRY)
+					return entry;
+			}
+		}
+		return NO_ENTRY;
+	}
+
+	// Returns the index of the entry that is equal to a given point in a cell
+	// at given coordinates.
+	private int findEntryInCell(Point2D pt, long cellX, long cellY) {
+		int hash = calcHash(cellX, cellY);
+		int entry = buckets[hash & (buckets.length - 1)];
+		while (entry != NO_ENTRY) {
+			if (hashes[entry] == hash && keys[entry].equals(pt))
+				return entry;
+			entry = next[entry];
+		}
+		return NO_ENTRY;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V valueAt(int entry) {
+		return (V) values[entry];
+	}
+
+	// Doubles the capacity and rehashes all entries.
+	private void grow() {
+		int capacity = keys.length * 2;
+		keys = Arrays.copyOf(keys, capacity);
+		values = Arrays.copyOf(values, capacity);
+		hashes = Arrays.copyOf(hashes, capacity);
+		next = Arrays.copyOf(next, capacity);
+
+		buckets = makeBuckets(capacity);
+		for (int entry = 0; entry < size; ++entry) {
+			int bucket = hashes[entry] & (buckets.length - 1);
+			next[entry] = buckets[bucket];
+			buckets[bucket] = entry;
+		}
+	}
+
+	// Calculates the cell coordinate that a given coordinate falls into.
+	private long calcCell(double coord) {
+		return (long) Math.floor(coord / cellSize);
+	}
+
+	// Calculates the hash for a cell with given coordinates. Mixes the bits of
+	// both coordinates so that neighboring cells end up in different buckets.
+	private static int calcHash(long cellX, long cellY) {
+		long h = cellX * 0x9E3779B97F4A7C15L + cellY;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		return (int) h;
+	}
+
+	// Calculates a power of two capacity for a given number of entries.
+	private static int calcCapacity(int numEntries) {
+		int capacity = INITIAL_CAPACITY;
+		while (capacity < numEntries)
+			capacity *= 2;
+		return capacity;
+	}
+
+	private static int[] makeBuckets(int capacity) {
+		int[] buckets = new int[capacity];
+		Arrays.fill(buckets, NO_ENTRY);
+		return buckets;
+	}
+}
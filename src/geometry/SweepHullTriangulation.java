@@ -0,0 +1,632 @@
+package geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import math.FpUtil;
+
+
+// Implementation of the sweep-hull algorithm to perform a Delauney triangulation
+// in 2D.
+// - Time: O(n log n)
+// Sorts the points by their distance from a seed triangle and adds them one by
+// one to a growing convex hull. Each added point is connected to the visible
+// hull edges and the new triangles are legalized by flipping edges until they
+// satisfy the Delauney condition.
+// The result is stored in flat arrays of vertex indices and half-edges instead
+// of in objects:
+// - Triangle t consists of the half-edges 3t, 3t+1, 3t+2.
+// - triangles[e] is the index of the sample that half-edge e starts at.
+// - halfedges[e] is the index of the opposite half-edge in the adjacent triangle
+//   or -1 if e is on the convex hull.
+// Triangles are oriented ccw (in screen coordinates) like Triangle2D.
+// Sources:
+// http://www.s-hull.org/paper/s_hull.pdf
+// https://github.com/mapbox/delaunator
+public class SweepHullTriangulation {
+
+	// Marks a half-edge that has no opposite half-edge.
+	public static final int NO_EDGE = -1;
+	// Capacity of the stack of edges that still need to be legalized.
+	private static final int EDGE_STACK_SIZE = 512;
+	// Relative error bound for orientation checks.
+	private static final double ORIENT_EPSILON = 3.3306690738754716e-16;
+
+	// List of points that define the triangulation.
+	private final List<Point2D> samples;
+	// Coordinates of the samples as (x, y) pairs.
+	private final double[] coords;
+	// Vertex index for each half-edge.
+	private int[] triangles = new int[0];
+	// Opposite half-edge for each half-edge.
+	private int[] halfedges = new int[0];
+	// Number of used entries in the triangle and half-edge arrays.
+	private int trianglesLen = 0;
+	// Indices of the samples on the convex hull in ccw order.
+	private int[] hull = new int[0];
+	// Center of the seed triangle's circumcircle.
+	private double centerX;
+	private double centerY;
+	// Doubly-linked list of the samples on the current hull.
+	private int hullStart;
+	private final int[] hullPrev;
+	private final int[] hullNext;
+	// Half-edge on the hull that starts at each hull sample.
+	private final int[] hullTri;
+	// Hash of hull samples by their pseudo-angle around the center. Speeds up
+	// finding the hull edges that are visible from a new sample.
+	private final int hashSize;
+	private final int[] hullHash;
+	// Stack of edges that still need to be legalized.
+	private final int[] edgeStack = new int[EDGE_STACK_SIZE];
+
+	// Caller is responsible that sample points does not contain duplicates.
+	public SweepHullTriangulation(List<Point2D> samplePoints) {
+		samples = samplePoints;
+
+		int n = samples.size();
+		coords = new double[2 * n];
+		for (int i = 0; i < n; ++i) {
+			Point2D pt = samples.get(i);
+			coords[2 * i] = pt.x;
+			coords[2 * i + 1] = pt.y;
+		}
+
+		hullPrev = new int[n];
+		hullNext = new int[n];
+		hullTri = new int[n];
+		hashSize = (int) Math.ceil(Math.sqrt(n));
+		hullHash = new int[hashSize];
+	}
+
+	// Starts the Delauney triangulation.
+	public void triangulate() {
+		trianglesLen = 0;
+		hull = new int[0];
+
+		int n = samples.size();
+		if (n < 3)
+			return;
+
+		int maxTriangles = 2 * n - 5;
+		triangles = new int[3 * maxTriangles];
+		halfedges = new int[3 * maxTriangles];
+
+		// Find the seed triangle.
+		int i0 = findClosestPoint(calcBoundsCenterX(), calcBoundsCenterY(), -1);
+		int i1 = findClosestPoint(coords[2 * i0], coords[2 * i0 + 1], i0);
+		if (i1 == -1)
+			return;
+		int i2 = findSmallestCircumcircle(i0, i1);
+		if (i2 == -1) {
+			// All points are collinear. No triangles.
+			return;
+		}
+
+		// Orient the seed triangle like all other triangles.
+		if (isCw(coords[2 * i0], coords[2 * i0 + 1], coords[2 * i1],
+				coords[2 * i1 + 1], coords[2 * i2], coords[2 * i2 + 1])) {
+			int tmp = i1;
+			i1 = i2;
+			i2 = tmp;
+		}
+
+		double i0x = coords[2 * i0];
+		double i0y = coords[2 * i0 + 1];
+		double i1x = coords[2 * i1];
+		double i1y = coords[2 * i1 + 1];
+		double i2x = coords[2 * i2];
+		double i2y = coords[2 * i2 + 1];
+		centerX = circumcenterX(i0x, i0y, i1x, i1y, i2x, i2y);
+		centerY = circumcenterY(i0x, i0y, i1x, i1y, i2x, i2y);
+
+		// Sort the points by their distance from the seed triangle's circumcenter.
+		int[] ids = new int[n];
+		double[] dists = new double[n];
+		for (int i = 0; i < n; ++i) {
+			ids[i] = i;
+			dists[i] = distanceSquared(coords[2 * i], coords[2 * i + 1],
+					centerX, centerY);
+		}
+		sortByDistance(ids, dists, 0, n - 1);
+
+		// Initialize the hull with the seed triangle.
+		hullStart = i0;
+		int hullSize = 3;
+		hullNext[i0] = hullPrev[i2] = i1;
+		hullNext[i1] = hullPrev[i0] = i2;
+		hullNext[i2] = hullPrev[i1] = i0;
+		hullTri[i0] = 0;
+		hullTri[i1] = 1;
+		hullTri[i2] = 2;
+		Arrays.fill(hullHash, -1);
+		hullHash[hashKey(i0x, i0y)] = i0;
+		hullHash[hashKey(i1x, i1y)] = i1;
+		hullHash[hashKey(i2x, i2y)] = i2;
+
+		addTriangle(i0, i1, i2, NO_EDGE, NO_EDGE, NO_EDGE);
+
+		double prevX = 0;
+		double prevY = 0;
+		for (int k = 0; k < n; ++k) {
+			int i = ids[k];
+			double x = coords[2 * i];
+			double y = coords[2 * i + 1];
+
+			// Skip near-duplicate points.
+			if (k > 0 && FpUtil.fpEqual(x, prevX) && FpUtil.fpEqual(y, prevY))
+				continue;
+			prevX = x;
+			prevY = y;
+
+			// Skip seed triangle points.
+			if (i == i0 || i == i1 || i == i2)
+				continue;
+
+			int start = findHashedStart(x, y);
+			int e = findVisibleEdge(start, x, y);
+			if (e == -1) {
+				// Likely a near-duplicate point. Skip it.
+				continue;
+			}
+
+			// Add the first triangle from the point.
+			int t = addTriangle(e, i, hullNext[e], NO_EDGE, NO_EDGE, hullTri[e]);
+			// Recursively flip triangles from the point until they satisfy the
+			// Delauney condition.
+			hullTri[i] = legalize(t + 2);
+			// Keep track of boundary triangles on the hull.
+			hullTri[e] = t;
+			++hullSize;
+
+			// Walk forward through the hull, adding more triangles and flipping
+			// recursively.
+			int next = hullNext[e];
+			int q = hullNext[next];
+			while (isCw(x, y, coords[2 * next], coords[2 * next + 1], coords[2 * q],
+					coords[2 * q + 1])) {
+				t = addTriangle(next, i, q, hullTri[i], NO_EDGE, hullTri[next]);
+				hullTri[i] = legalize(t + 2);
+				// Mark as removed.
+				hullNext[next] = next;
+				--hullSize;
+				next = q;
+				q = hullNext[next];
+			}
+
+			// Walk backward from the other side, adding more triangles and
+			// flipping.
+			if (e == start) {
+				q = hullPrev[e];
+				while (isCw(x, y, coords[2 * q], coords[2 * q + 1], coords[2 * e],
+						coords[2 * e + 1])) {
+					t = addTriangle(q, i, e, NO_EDGE, hullTri[e], hullTri[q]);
+					legalize(t + 2);
+					hullTri[q] = t;
+					// Mark as removed.
+					hullNext[e] = e;
+					--hullSize;
+					e = q;
+					q = hullPrev[e];
+				}
+			}
+
+			// Update the hull indices.
+			hullStart = hullPrev[i] = e;
+			hullNext[e] = hullPrev[next] = i;
+			hullNext[i] = next;
+
+			// Save the two new edges in the hash table.
+			hullHash[hashKey(x, y)] = i;
+			hullHash[hashKey(coords[2 * e], coords[2 * e + 1])] = e;
+		}
+
+		hull = new int[hullSize];
+		for (int i = 0, e = hullStart; i < hullSize; ++i) {
+			hull[i] = e;
+			e = hullNext[e];
+		}
+
+		triangles = Arrays.copyOf(triangles, trianglesLen);
+		halfedges = Arrays.copyOf(halfedges, trianglesLen);
+	}
+
+	// Returns the number of generated triangles.
+	public int countTriangles() {
+		return trianglesLen / 3;
+	}
+
+	// Returns the sample index of a given vertex of a given triangle.
+	public int vertex(int triangleIdx, int vertexIdx) {
+		return triangles[3 * triangleIdx + vertexIdx];
+	}
+
+	// Returns a triangle made from the sample points of a given triangle index.
+	public Triangle2D triangle(int triangleIdx) {
+		return new Triangle2D(samples.get(vertex(triangleIdx, 0)),
+				samples.get(vertex(triangleIdx, 1)),
+				samples.get(vertex(triangleIdx, 2)));
+	}
+
+	// Returns a list of all generated triangles.
+	public List<Triangle2D> triangleList() {
+		int numTriangles = countTriangles();
+		List<Triangle2D> result = new ArrayList<Triangle2D>(numTriangles);
+		for (int t = 0; t < numTriangles; ++t)
+			result.add(triangle(t));
+		return result;
+	}
+
+	// Access to the raw data structures of the triangulation. Given as
+	// optimization, so that callers can process the triangulation without
+	// creating objects for it. Callers must not modify the returned arrays.
+
+	// Returns the sample indices at the start of each half-edge.
+	public int[] triangles() {
+		return triangles;
+	}
+
+	// Returns the opposite half-edge of each half-edge or NO_EDGE for edges on
+	// the convex hull.
+	public int[] halfedges() {
+		return halfedges;
+	}
+
+	// Returns the sample indices on the convex hull in ccw order.
+	public int[] hull() {
+		return hull;
+	}
+
+	// Returns the triangulation as half-edge mesh. The mesh's vertex indices are
+	// the sample indices. The mesh shares the raw data structures of the
+	// triangulation, so it has to be created after triangulating.
+	public HalfEdgeMesh mesh() {
+		return new HalfEdgeMesh(coords, triangles, halfedges, hull);
+	}
+
+	// Returns the x-coordinate of the center of the bounding box around all samples.
+	private double calcBoundsCenterX() {
+		double minX = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < coords.length; i += 2) {
+			minX = Math.min(minX, coords[i]);
+			maxX = Math.max(maxX, coords[i]);
+		}
+		return (minX + maxX) / 2;
+	}
+
+	// Returns the y-coordinate of the center of the bounding box around all samples.
+	private double calcBoundsCenterY() {
+		double minY = Double.POSITIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 1; i < coords.length; i += 2) {
+			minY = Math.min(minY, coords[i]);
+			maxY = Math.max(maxY, coords[i]);
+		}
+		return (minY + maxY) / 2;
+	}
+
+	// Returns the index of the point closest to a given position. Skips a given
+	// point index and points that are located at the given position.
+	private int findClosestPoint(double x, double y, int skippedIdx) {
+		int closest = -1;
+		double minDist = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < samples.size(); ++i) {
+			if (i == skippedIdx)
+				continue;
+			double d = distanceSquared(x, y, coords[2 * i], coords[2 * i + 1]);
+			if (d < minDist && (skippedIdx == -1 || d > 0)) {
+				closest = i;
+				minDist = d;
+			}
+		}
+		return closest;
+	}
+
+	// Returns the index of the point that forms the smallest circumcircle with two
+	// given points. Returns -1 if all points are collinear.
+	private int findSmallestCircumcircle(int i0, int i1) {
+		int smallest = -1;
+		double minRadius = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < samples.size(); ++i) {
+			if (i == i0 || i == i1)
+				continue;
+			double r = circumradiusSquared(coords[2 * i0], coords[2 * i0 + 1],
+					coords[2 * i1], coords[2 * i1 + 1], coords[2 * i], coords[2 * i + 1]);
+			if (r < minRadius) {
+				smallest = i;
+				minRadius = r;
+			}
+		}
+		return smallest;
+	}
+
+	// Finds a hull point close to a given position by looking up the position's
+	// pseudo-angle in the hull hash.
+	private int findHashedStart(double x, double y) {
+		int start = 0;
+		int key = hashKey(x, y);
+		for (int j = 0; j < hashSize; ++j) {
+			start = hullHash[(key + j) % hashSize];
+			if (start != -1 && start != hullNext[start])
+				break;
+		}
+		return hullPrev[start];
+	}
+
+	// Finds a hull edge that is visible from a given position by walking the hull
+	// from a given start point. Returns the index of the point that starts the
+	// edge or -1 if no edge is visible.
+	private int findVisibleEdge(int start, double x, double y) {
+		int e = start;
+		int q = hullNext[e];
+		while (!isCw(x, y, coords[2 * e], coords[2 * e + 1], coords[2 * q],
+				coords[2 * q + 1])) {
+			e = q;
+			if (e == start)
+				return -1;
+			q = hullNext[e];
+		}
+		return e;
+	}
+
+	// Flips the edges of the triangle pairs that don't satisfy the Delauney
+	// condition starting at a given half-edge. Recursion is eliminated with a
+	// fixed-size stack.
+	// Returns the half-edge that precedes the last processed half-edge.
+	//
+	//           pl                    pl
+	//          /||\                  /  \
+	//       al/ || \bl            al/    \a
+	//        /  ||  \              /      \
+	//       /  a||b  \    flip    /___ar___\
+	//     p0\   ||   /p1   =>   p0\---bl---/p1
+	//        \  ||  /              \      /
+	//       ar\ || /br             b\    /br
+	//          \||/                  \  /
+	//           pr                    pr
+	//
+	private int legalize(int a) {
+		int stackSize = 0;
+		int ar = 0;
+
+		while (true) {
+			int b = halfedges[a];
+			int a0 = a - a % 3;
+			ar = a0 + (a + 2) % 3;
+
+			if (b == NO_EDGE) {
+				// Convex hull edge.
+				if (stackSize == 0)
+					break;
+				a = edgeStack[--stackSize];
+				continue;
+			}
+
+			int b0 = b - b % 3;
+			int al = a0 + (a + 1) % 3;
+			int bl = b0 + (b + 2) % 3;
+
+			int p0 = triangles[ar];
+			int pr = triangles[a];
+			int pl = triangles[al];
+			int p1 = triangles[bl];
+
+			boolean isIllegal = isInCircumcircle(coords[2 * p0], coords[2 * p0 + 1],
+					coords[2 * pr], coords[2 * pr + 1], coords[2 * pl], coords[2 * pl + 1],
+					coords[2 * p1], coords[2 * p1 + 1]);
+
+			if (isIllegal) {
+				triangles[a] = p1;
+				triangles[b] = p0;
+
+				int hbl = halfedges[bl];
+				// Edge swapped on the other side of the hull (rare). Fix the
+				// half-edge reference.
+				if (hbl == NO_EDGE) {
+					int e = hullStart;
+					do {
+						if (hullTri[e] == bl) {
+							hullTri[e] = a;
+							break;
+						}
+						e = hullPrev[e];
+					} while (e != hullStart);
+				}
+				link(a, hbl);
+				link(b, halfedges[ar]);
+				link(ar, bl);
+
+				int br = b0 + (b + 1) % 3;
+				// Hitting the capacity can only happen for extremely degenerate
+				// input.
+				if (stackSize < edgeStack.length)
+					edgeStack[stackSize++] = br;
+			} else {
+				if (stackSize == 0)
+					break;
+				a = edgeStack[--stackSize];
+			}
+		}
+
+		return ar;
+	}
+
+	// Connects two given half-edges as opposites of each other.
+	private void link(int a, int b) {
+		halfedges[a] = b;
+		if (b != NO_EDGE)
+			halfedges[b] = a;
+	}
+
+	// Adds a triangle with given vertices and opposite half-edges for each of
+	// its edges. Returns the index of the triangle's first half-edge.
+	private int addTriangle(int i0, int i1, int i2, int a, int b, int c) {
+		int t = trianglesLen;
+		triangles[t] = i0;
+		triangles[t + 1] = i1;
+		triangles[t + 2] = i2;
+		link(t, a);
+		link(t + 1, b);
+		link(t + 2, c);
+		trianglesLen += 3;
+		return t;
+	}
+
+	// Returns the hash bucket for a given position.
+	private int hashKey(double x, double y) {
+		return (int) Math.floor(pseudoAngle(x - centerX, y - centerY) * hashSize) %
+				hashSize;
+	}
+
+	// Returns a value in range [0, 1] that increases monotonically with the angle
+	// of a given vector. Cheaper to calculate than the real angle.
+	private static double pseudoAngle(double dx, double dy) {
+		double p = dx / (Math.abs(dx) + Math.abs(dy));
+		// Range [0, 4] mapped to [0, 1].
+		return (dy > 0 ? 3 - p : 1 + p) / 4;
+	}
+
+	// Checks whether three given points are in cw order (in screen coordinates),
+	// i.e. in the opposite order of the triangles of the triangulation.
+	// Uses the orientation that can be determined without being affected by
+	// floating point errors.
+	private static boolean isCw(double px, double py, double qx, double qy, double rx,
+			double ry) {
+		double sign = orientIfSure(px, py, rx, ry, qx, qy);
+		if (sign == 0)
+			sign = orientIfSure(rx, ry, qx, qy, px, py);
+		if (sign == 0)
+			sign = orientIfSure(qx, qy, px, py, rx, ry);
+		return sign > 0;
+	}
+
+	// Returns the orientation determinant of three points if its sign can be
+	// trusted or zero otherwise.
+	private static double orientIfSure(double px, double py, double rx, double ry,
+			double qx, double qy) {
+		double l = (ry - py) * (qx - px);
+		double r = (rx - px) * (qy - py);
+		return (Math.abs(l - r) >= ORIENT_EPSILON * Math.abs(l + r)) ? l - r : 0;
+	}
+
+	// Checks if a given point p is strictly inside the circumcircle of a given
+	// triangle abc.
+	private static boolean isInCircumcircle(double ax, double ay, double bx,
+			double by, double cx, double cy, double px, double py) {
+		double dx = ax - px;
+		double dy = ay - py;
+		double ex = bx - px;
+		double ey = by - py;
+		double fx = cx - px;
+		double fy = cy - py;
+
+		double ap = dx * dx + dy * dy;
+		double bp = ex * ex + ey * ey;
+		double cp = fx * fx + fy * fy;
+
+		return dx * (ey * cp - bp * fy) -
+				dy * (ex * cp - bp * fx) +
+				ap * (ex * fy - ey * fx) < 0;
+	}
+
+	// Returns the squared radius of the circumcircle of a given triangle.
+	private static double circumradiusSquared(double ax, double ay, double bx,
+			double by, double cx, double cy) {
+		double x = circumcenterX(ax, ay, bx, by, cx, cy) - ax;
+		double y = circumcenterY(ax, ay, bx, by, cx, cy) - ay;
+		return x * x + y * y;
+	}
+
+	// Returns the x-coordinate of the circumcenter of a given triangle.
+	private static double circumcenterX(double ax, double ay, double bx, double by,
+			double cx, double cy) {
+		double dx = bx - ax;
+		double dy = by - ay;
+		double ex = cx - ax;
+		double ey = cy - ay;
+		double bl = dx * dx + dy * dy;
+		double cl = ex * ex + ey * ey;
+		double d = 0.5 / (dx * ey - dy * ex);
+		return ax + (ey * bl - dy * cl) * d;
+	}
+
+	// Returns the y-coordinate of the circumcenter of a given triangle.
+	private static double circumcenterY(double ax, double ay, double bx, double by,
+			double cx, double cy) {
+		double dx = bx - ax;
+		double dy = by - ay;
+		double ex = cx - ax;
+		double ey = cy - ay;
+		double bl = dx * dx + dy * dy;
+		double cl = ex * ex + ey * ey;
+		double d = 0.5 / (dx * ey - dy * ex);
+		return ay + (dx * cl - ex * bl) * d;
+	}
+
+	private static double distanceSquared(double ax, double ay, double bx, double by) {
+		double dx = ax - bx;
+		double dy = ay - by;
+		return dx * dx + dy * dy;
+	}
+
+	// Sorts a given range of indices by the distances stored for each index.
+	// Quicksort that falls back to insertion sort for short ranges. Recurses
+	// into the smaller partition and loops on the larger one, so that the
+	// recursion depth stays logarithmic.
+	private static void sortByDistance(int[] ids, double[] dists, int left,
+			int right) {
+		while (right - left > 20) {
+			int median = (left + right) >> 1;
+			int i = left + 1;
+			int j = right;
+			swap(ids, median, i);
+			if (dists[ids[left]] > dists[ids[right]])
+				swap(ids, left, right);
+			if (dists[ids[i]] > dists[ids[right]])
+				swap(ids, i, right);
+			if (dists[ids[left]] > dists[ids[i]])
+				swap(ids, left, i);
+
+			int temp = ids[i];
+			double tempDist = dists[temp];
+			while (true) {
+				do
+					++i;
+				while (dists[ids[i]] < tempDist);
+				do
+					--j;
+				while (dists[ids[j]] > tempDist);
+				if (j < i)
+					break;
+				swap(ids, i, j);
+			}
+			ids[left + 1] = ids[j];
+			ids[j] = temp;
+
+			if (right - i + 1 < j - left) {
+				sortByDistance(ids, dists, i, right);
+				right = j - 1;
+			} else {
+				sortByDistance(ids, dists, left, j - 1);
+				left = i;
+			}
+		}
+
+		for (int i = left + 1; i <= right; ++i) {
+			int temp = ids[i];
+			double tempDist = dists[temp];
+			int j = i - 1;
+			while (j >= left && dists[ids[j]] > tempDist)
+				ids[j + 1] = ids[j--];
+			ids[j + 1] = temp;
+		}
+	}
+
+	private static void swap(int[] arr, int i, int j) {
+		int tmp = arr[i];
+		arr[i] = arr[j];
+		arr[j] = tmp;
+	}
+}
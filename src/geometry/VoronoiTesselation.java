@@ -4,6 +4,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import math.FpUtil;
+import metrics.GenerationMetrics;
 
 
 
@@ -277,11 +282,21 @@ public class VoronoiTesselation {
 	// Border around the sample points. Used to terminate Voronoi edges that
 	// would extend to infinity.
 	private final Rect2D border;
+	// Algorithm used for the Delauney triangulation.
+	private final DelauneyTriangulation.Algorithm triangulationAlgorithm;
+	// Whether the tiles are built in parallel. The order of the tiles does not
+	// depend on it.
+	private final boolean isParallel;
+	// Metrics that the stages of the tesselation are reported to.
+	private final GenerationMetrics metrics;
 	// List of tiles generated by the the tesselation.
 	private List<VoronoiTile> tiles = new ArrayList<VoronoiTile>();
 	// Triangles of the Delauney triangulation. A by-product of the tesselation
 	// that can be useful, e.g. for debugging.
 	private List<Triangle2D> triangulation;
+	// Half-edge mesh of the Delauney triangulation if the triangulation
+	// algorithm generates one.
+	private HalfEdgeMesh mesh;
 
 	
 	// Construct from points with the bounding box of the points as border.
@@ -300,8 +315,39 @@ public class VoronoiTesselation {
 	// Construct from points with a given border.
 	// Caller is responsible to make sure the sample points are unique.
 	public VoronoiTesselation(List<Point2D> uniqueSamples, Rect2D border) {
+		this(uniqueSamples, border, DelauneyTriangulation.Algorithm.BOWYER_WATSON);
+	}
+
+	// Construct from points with a given border and a given algorithm for the
+	// Delauney triangulation.
+	// Caller is responsible to make sure the sample points are unique.
+	public VoronoiTesselation(List<Point2D> uniqueSamples, Rect2D border,
+			DelauneyTriangulation.Algorithm triangulationAlgo) {
+		this(uniqueSamples, border, triangulationAlgo, false);
+	}
+
+	// Construct from points with a given border and a given algorithm for the
+	// Delauney triangulation. Optionally builds the tiles in parallel on the
+	// common fork-join pool after triangulating.
+	// Caller is responsible to make sure the sample points are unique.
+	public VoronoiTesselation(List<Point2D> uniqueSamples, Rect2D border,
+			DelauneyTriangulation.Algorithm triangulationAlgo, boolean parallel) {
+		this(uniqueSamples, border, triangulationAlgo, parallel,
+				GenerationMetrics.DISABLED);
+	}
+
+	// Construct from points with a given border, algorithm for the Delauney
+	// triangulation and parallelism. Reports the triangulation and building the
+	// tiles as stages to given metrics.
+	// Caller is responsible to make sure the sample points are unique.
+	public VoronoiTesselation(List<Point2D> uniqueSamples, Rect2D border,
+			DelauneyTriangulation.Algorithm triangulationAlgo, boolean parallel,
+			GenerationMetrics metrics) {
 		this.samples = uniqueSamples;
 		this.border = border;
+		this.triangulationAlgorithm = triangulationAlgo;
+		this.isParallel = parallel;
+		this.metrics = metrics;
 	}
 	
 	// Starts the Voronoi tesselation.
@@ -314,22 +360,47 @@ public class VoronoiTesselation {
 		if (samples.size() == 2)
 			return tesselateIntoTwoTiles();
 		
-		// General case for more than three sample points.
+		// General case for three or more sample points.
 		// - Each sample point is the seed of a Voronoi tile.
 		// - Perform Delauney triangulation.
-		// - For each sample point collect all Delauney edges that share it.
-		// - From each Delauney edge build the corresponding Voronoi edge as
-		//   follows:
-		// -   If two Delauney triangles share the edge, then the Voronoi edge
-		//     is the line connecting the triangles' circumcenters.
-		// -   If only one Delauney triangle contains the edge, then the Voronoi
-		//     edge is clipped by the given border.
-		// - Combine the collected Voronoi edges into a polygon that forms the
-		//   outline of the Voronoi tile for the processed sample point.
+		// - If the triangulation algorithm produces a half-edge mesh (sweep-hull),
+		//   build each tile from the dual graph of the mesh. See tesselateMesh().
+		// - Otherwise build each tile from the Delauney edges that share its
+		//   sample point. See tesselateEdges().
 		
 		// Run triangulation.
+		DelauneyTriangulation delauney =
+				new DelauneyTriangulation(samples, triangulationAlgorithm);
+		try (GenerationMetrics.Stage stage = metrics.beginStage("triangulation")) {
+			triangulation = delauney.triangulate();
+			stage.count("triangles", triangulation.size());
+		}
+		mesh = delauney.mesh();
+		
+		try (GenerationMetrics.Stage stage = metrics.beginStage("tiles")) {
+			if (mesh != null)
+				tesselateMesh(delauney);
+			else
+				tesselateEdges(delauney);
+			stage.count("tiles", tiles.size());
+		}
+		return tiles;
+	}
+	
+	// Calculates the Voronoi tiles from the edges of the triangles of a given
+	// triangulation.
+	// - For each sample point collect all Delauney edges that share it.
+	// - From each Delauney edge build the corresponding Voronoi edge as
+	//   follows:
+	// -   If two Delauney triangles share the edge, then the Voronoi edge
+	//     is the line connecting the triangles' circumcenters.
+	// -   If only one Delauney triangle contains the edge, then the Voronoi
+	//     edge is clipped by the given border.
+	// - Combine the collected Voronoi edges into a polygon that forms the
+	//   outline of the Voronoi tile for the processed sample point.
+	private List<VoronoiTile> tesselateEdges(DelauneyTriangulation delauney) {
 		final List<DelauneyTriangle> delauneyTriangles =
-				delauneyTriangulation();
+				delauney.delauneyTriangles();
 		
 		// Associates each vertex of all Delauney triangles with the edges
 		// that connect to it.
@@ -339,15 +410,18 @@ public class VoronoiTesselation {
 		// Calculate the Voronoi tile for each sample point. (The Delauney
 		// vertices might actually be slightly off the original sample points
 		// because of floating point calculation inaccuracies). 
-		for (var mapEntry : edgeMap.entrySet()) {
-			Point2D sample = mapEntry.getKey();
-			DelauneyEdgeCollection delauneyEdges = edgeMap.get(sample);
-			List<Line2D> voronoiEdges = delauneyEdges.makeVoronoiEdges();
+		final List<Map.Entry<Point2D, DelauneyEdgeCollection>> edgeEntries =
+				new ArrayList<Map.Entry<Point2D, DelauneyEdgeCollection>>(
+						edgeMap.entrySet());
+		makeTiles(edgeEntries.size(), (int i) -> {
+			Point2D sample = edgeEntries.get(i).getKey();
+			List<Line2D> voronoiEdges = edgeEntries.get(i).getValue().makeVoronoiEdges();
 			
 			Polygon2D voronoiPoly = makePolygon(voronoiEdges, border);
 			if (voronoiPoly.countVertices() > 0)
-				tiles.add(new VoronoiTile(sample, voronoiPoly));
-		}
+				return new VoronoiTile(sample, voronoiPoly);
+			return null;
+		});
 		
 		return tiles;
 	}
@@ -357,6 +431,140 @@ public class VoronoiTesselation {
 		return triangulation;
 	}
 	
+	// Returns the half-edge mesh of the Delauney triangulation that was used to
+	// perform the tesselation. The mesh's vertex indices match the seed indices
+	// of the tiles. Returns null if the triangulation algorithm does not
+	// generate a mesh.
+	public HalfEdgeMesh getMesh() {
+		return mesh;
+	}
+	
+	// Calculates the Voronoi tiles from the half-edge mesh of a given
+	// triangulation. Uses the dual graph of the triangulation directly: Walking
+	// the triangles around a sample point in ccw order produces the outline of
+	// its tile as ring of the triangles' circumcenters. Only tiles that extend
+	// past the border need to be clipped.
+	private List<VoronoiTile> tesselateMesh(DelauneyTriangulation delauney) {
+		makeTiles(mesh.countVertices(), (int v) -> {
+			Polygon2D voronoiPoly = makeTileOutline(delauney, v);
+			if (voronoiPoly != null && voronoiPoly.countVertices() > 0)
+				return new VoronoiTile(samples.get(v), voronoiPoly, v);
+			return null;
+		});
+		
+		return tiles;
+	}
+	
+	// Builds the tiles for a given number of items with a given function and
+	// adds them to the generated tiles in the order of the items. The function
+	// returns null for items that don't produce a tile. Each tile is built
+	// independently, so they can be built in parallel if configured. The
+	// function must not modify shared state.
+	private void makeTiles(int numItems, IntFunction<VoronoiTile> makeTile) {
+		VoronoiTile[] itemTiles = new VoronoiTile[numItems];
+		IntStream items = IntStream.range(0, numItems);
+		if (isParallel)
+			items = items.parallel();
+		items.forEach((int i) -> itemTiles[i] = makeTile.apply(i));
+		
+		for (VoronoiTile tile : itemTiles)
+			if (tile != null)
+				tiles.add(tile);
+	}
+	
+	// Creates the clipped outline of the Voronoi tile for a given vertex of the
+	// mesh. Returns null if the vertex is not part of any triangle.
+	private Polygon2D makeTileOutline(DelauneyTriangulation delauney, int v) {
+		int first = mesh.firstEdgeAroundVertex(v);
+		if (first == HalfEdgeMesh.NO_EDGE)
+			return null;
+		
+		Polygon2D outline = null;
+		if (!mesh.isBoundaryVertex(v))
+			outline = makeCircumcenterRing(delauney, first);
+		if (outline == null) {
+			// Tiles of vertices on the hull are open and tiles next to degenerate
+			// triangles lack circumcenters. Cut them directly from the border.
+			// The circumcenters of slivers along the hull can be too far away to
+			// be processed accurately.
+			return makeBisectorTile(v, first);
+		}
+		
+		if (ConvexPolygonRectIntersection2D.isInside(outline, border))
+			return outline;
+		return ConvexPolygonRectIntersection2D.intersect(outline, border);
+	}
+	
+	// Creates the ring of circumcenters of the triangles around the start vertex
+	// of a given half-edge. Returns null if the ring cannot be created because
+	// one of the triangles is degenerate.
+	private Polygon2D makeCircumcenterRing(DelauneyTriangulation delauney,
+			int first) {
+		List<Point2D> ring = new ArrayList<Point2D>();
+		int e = first;
+		do {
+			DelauneyTriangle dt =
+					delauney.meshTriangle(HalfEdgeMesh.triangleOfEdge(e));
+			if (dt == null)
+				return null;
+			
+			// Triangles with the same circumcircle produce only one vertex.
+			Point2D center = dt.circumcenter();
+			if (ring.isEmpty() || !ring.get(ring.size() - 1).equals(center))
+				ring.add(center);
+			
+			e = mesh.nextEdgeAroundVertex(e);
+		} while (e != HalfEdgeMesh.NO_EDGE && e != first);
+		
+		int last = ring.size() - 1;
+		if (last > 0 && ring.get(last).equals(ring.get(0)))
+			ring.remove(last);
+		if (ring.size() < 3)
+			return null;
+		return new Polygon2D(ring);
+	}
+	
+	// Creates the outline of the Voronoi tile for a given vertex of the mesh by
+	// cutting the border at the bisectors between the vertex and each of its
+	// neighbors. Walks the mesh starting at a given half-edge of the vertex.
+	private Polygon2D makeBisectorTile(int v, int first) {
+		Point2D vertexPt = samples.get(v);
+		Polygon2D outline = makePolygon(border);
+		int e = first;
+		int last = first;
+		do {
+			outline = clipAtBisector(outline, vertexPt, samples.get(mesh.endVertex(e)));
+			last = e;
+			e = mesh.nextEdgeAroundVertex(e);
+		} while (e != HalfEdgeMesh.NO_EDGE && e != first);
+		
+		// The walk stopped at the hull. The last triangle has one more neighbor.
+		if (e == HalfEdgeMesh.NO_EDGE) {
+			Point2D prevPt = samples.get(mesh.startVertex(HalfEdgeMesh.prevHalfEdge(last)));
+			outline = clipAtBisector(outline, vertexPt, prevPt);
+		}
+		
+		return outline;
+	}
+	
+	// Clips a given polygon at the bisector between two given points. Keeps the
+	// part of the polygon that is closer to the first point.
+	private static Polygon2D clipAtBisector(Polygon2D poly, Point2D keep,
+			Point2D other) {
+		// Points on the bisector have a signed distance of zero.
+		Vector2D normal = new Vector2D(keep, other).normalize();
+		double offset = normal.x * (keep.x + other.x) / 2 +
+				normal.y * (keep.y + other.y) / 2;
+		return Polygon2D.clipAtLine(poly,
+				pt -> FpUtil.fpLessEqual(normal.x * pt.x + normal.y * pt.y - offset, 0),
+				(a, b) -> {
+					double aDist = normal.x * a.x + normal.y * a.y - offset;
+					double bDist = normal.x * b.x + normal.y * b.y - offset;
+					double t = aDist / (aDist - bDist);
+					return new Point2D(a.x + t * (b.x - a.x), a.y + t * (b.y - a.y));
+				});
+	}
+	
 	// Calculates bounding box at a given offset around a given list of points.
 	private static Rect2D calcBorder(List<Point2D> points, double offset) {
 		Rect2D border = GeometryUtil.calcBoundingBox(points);
@@ -408,13 +616,6 @@ public class VoronoiTesselation {
 		return tiles;
 	}
 	
-	// Performs a Delauney triangulation for the configured sample points.
-	private List<DelauneyTriangle> delauneyTriangulation() {
-		DelauneyTriangulation delauney = new DelauneyTriangulation(samples);
-		triangulation = delauney.triangulate();
-		return delauney.delauneyTriangles();
-	}
-	
 	// Collects all edges of Delauney triangles that share a given sample
 	// point.
 	private Map<Point2D, DelauneyEdgeCollection> collectDelauneyEdges(
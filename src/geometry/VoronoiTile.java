@@ -4,10 +4,18 @@ package geometry;
 public class VoronoiTile {
 	public final Point2D seed;
 	public final Polygon2D outline;
+	// Index of the seed in the sample points of the tesselation or -1 if
+	// unknown.
+	public final int seedIndex;
 	
 	public VoronoiTile(Point2D seed, Polygon2D border) {
+		this(seed, border, -1);
+	}
+	
+	public VoronoiTile(Point2D seed, Polygon2D border, int seedIndex) {
 		this.seed = seed;
 		this.outline = border;
+		this.seedIndex = seedIndex;
 	}
 	
 	public int countVertices() {
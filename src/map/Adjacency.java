@@ -0,0 +1,135 @@
+package map;
+
+import java.util.Arrays;
+
+// Neighbor relationships between elements that are identified by dense int ids,
+// e.g. the tiles or nodes of a map.
+// - Stored in compressed-sparse-row format. The neighbors of the element with
+//   id i are stored at positions offsets[i] to offsets[i+1]-1 of the neighbor
+//   array. Keeps the neighbors of all elements in two flat arrays instead of a
+//   list for each element.
+// - Added neighbors are collected first and merged into the compressed arrays
+//   in one pass when the adjacency is compacted. Each neighbor is only stored
+//   once for an element. The neighbors keep the order they were added in.
+public class Adjacency {
+
+	private static final int INITIAL_CAPACITY = 64;
+	// Number of elements that the compressed arrays hold neighbors for.
+	private int numElements = 0;
+	private int[] offsets = new int[1];
+	private int[] neighbors = new int[0];
+	// Neighbors that were added since the last compaction.
+	private int[] pendingFrom = new int[INITIAL_CAPACITY];
+	private int[] pendingTo = new int[INITIAL_CAPACITY];
+	private int numPending = 0;
+
+	// Adds a given neighbor to the element with a given id.
+	public void addNeighbor(int elem, int neighbor) {
+		if (numPending == pendingFrom.length) {
+			pendingFrom = Arrays.copyOf(pendingFrom, numPending * 2);
+			pendingTo = Arrays.copyOf(pendingTo, numPending * 2);
+		}
+		pendingFrom[numPending] = elem;
+		pendingTo[numPending] = neighbor;
+		++numPending;
+	}
+
+	// Marks two elements with given ids as neighbors of each other.
+	public void connect(int a, int b) {
+		addNeighbor(a, b);
+		addNeighbor(b, a);
+	}
+
+	// Checks if neighbors were added since the last compaction.
+	public boolean isCompact() {
+		return numPending == 0;
+	}
+
+	// Merges the added neighbors into the compressed arrays for a given number
+	// of elements.
+	public void compact(int numElems) {
+		if (isCompact() && numElems == numElements)
+			return;
+		numElems = Math.max(numElems, numElements);
+
+		// Upper bound for the number of neighbors of each element, stored as
+		// start positions of each element's neighbors.
+		int[] starts = new int[numElems + 1];
+		for (int i = 0; i < numElements; ++i)
+			starts[i + 1] = countNeighbors(i);
+		for (int p = 0; p < numPending; ++p)
+			++starts[pendingFrom[p] + 1];
+		for (int i = 0; i < numElems; ++i)
+			starts[i + 1] += starts[i];
+
+		int[] merged = new int[starts[numElems]];
+		int[] counts = new int[numElems];
+		for (int i = 0; i < numElements; ++i) {
+			int count = countNeighbors(i);
+			System.arraycopy(neighbors, offsets[i], merged, starts[i], count);
+			counts[i] = count;
+		}
+		for (int p = 0; p < numPending; ++p) {
+			int elem = pendingFrom[p];
+			if (!contains(merged, starts[elem], counts[elem], pendingTo[p]))
+				merged[starts[elem] + counts[elem]++] = pendingTo[p];
+		}
+
+		// Close the gaps left by duplicates.
+		offsets = new int[numElems + 1];
+		for (int i = 0; i < numElems; ++i)
+			offsets[i + 1] = offsets[i] + counts[i];
+		neighbors = new int[offsets[numElems]];
+		for (int i = 0; i < numElems; ++i)
+			System.arraycopy(merged, starts[i], neighbors, offsets[i], counts[i]);
+
+		numElements = numElems;
+		numPending = 0;
+	}
+
+	// Replaces all neighbors with given compressed arrays, e.g. loaded from a
+	// file. The arrays are used as they are. Has one more offset than there are
+	// elements.
+	void load(int[] offsets, int[] neighbors) {
+		this.offsets = offsets;
+		this.neighbors = neighbors;
+		numElements = offsets.length - 1;
+		numPending = 0;
+	}
+
+	// Returns the number of neighbors of the element with a given id. Only
+	// counts neighbors up to the last compaction.
+	public int countNeighbors(int elem) {
+		if (elem >= numElements)
+			return 0;
+		return offsets[elem + 1] - offsets[elem];
+	}
+
+	// Returns the id of a neighbor of the element with a given id. Only
+	// includes neighbors up to the last compaction.
+	public int neighbor(int elem, int idx) {
+		return neighbors[offsets[elem] + idx];
+	}
+
+	// Returns the start positions of each element's neighbors in the neighbor
+	// array. Has one more entry than there are elements. Not a copy. Must not be
+	// modified.
+	public int[] offsets() {
+		return offsets;
+	}
+
+	// Returns the ids of the neighbors of all elements. Not a copy. Must not be
+	// modified.
+	public int[] neighbors() {
+		return neighbors;
+	}
+
+	// Checks if a range of given length at a given start of an array contains a
+	// given value.
+	private static boolean contains(int[] arr, int start, int len, int val) {
+		for (int i = start; i < start + len; ++i)
+			if (arr[i] == val)
+				return true;
+		return false;
+	}
+}
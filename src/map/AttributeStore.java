@@ -0,0 +1,163 @@
+package map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+// Per-element attributes of a map, e.g. the elevation of each node, stored as
+// columns. Each attribute is a channel that holds one value for each element,
+// indexed by the element's id.
+// - Whole-map passes can read and write a channel as a flat array.
+// - New attributes can be added without growing the element objects.
+// - Channels are created on first access and filled with the attribute's
+//   default value.
+public class AttributeStore {
+
+	// Identifies an attribute with double values.
+	public static final class DoubleAttribute {
+		public final String name;
+		public final double defaultValue;
+
+		public DoubleAttribute(String name, double defaultValue) {
+			this.name = name;
+			this.defaultValue = defaultValue;
+		}
+	}
+
+	///////////////
+
+	// Identifies an attribute with float values. Halves the memory of double
+	// attributes for values that don't need the precision.
+	public static final class FloatAttribute {
+		public final String name;
+		public final float defaultValue;
+
+		public FloatAttribute(String name, float defaultValue) {
+			this.name = name;
+			this.defaultValue = defaultValue;
+		}
+	}
+
+	///////////////
+
+	// Elevation of elements. Negative values are below sea level. Unassigned
+	// elevations are -1.
+	public static final DoubleAttribute ELEVATION =
+			new DoubleAttribute("elevation", -1);
+	private static final int INITIAL_CAPACITY = 64;
+	// Number of elements.
+	private int size = 0;
+	// Length of the channel arrays.
+	private int capacity = INITIAL_CAPACITY;
+	private final java.util.Map<DoubleAttribute, double[]> doubleChannels =
+			new IdentityHashMap<DoubleAttribute, double[]>();
+	private final java.util.Map<FloatAttribute, float[]> floatChannels =
+			new IdentityHashMap<FloatAttribute, float[]>();
+	// Channel of the most frequently accessed attribute.
+	private double[] elevation;
+
+	public int size() {
+		return size;
+	}
+
+	// Makes room for the values of a given number of elements. Values of new
+	// elements are set to their attribute's default value. Channel arrays that
+	// were returned before might be replaced.
+	public void resize(int numElements) {
+		if (numElements > capacity) {
+			int newCapacity = capacity;
+			while (newCapacity < numElements)
+				newCapacity *= 2;
+			for (var entry : doubleChannels.entrySet())
+				entry.setValue(grow(entry.getValue(), newCapacity,
+						entry.getKey().defaultValue));
+			for (var entry : floatChannels.entrySet())
+				entry.setValue(grow(entry.getValue(), newCapacity,
+						entry.getKey().defaultValue));
+			capacity = newCapacity;
+			elevation = doubleChannels.get(ELEVATION);
+		}
+		size = numElements;
+	}
+
+	// Returns the channel of a given attribute. Indexed by element id. Can be
+	// longer than the number of elements. Not a copy. Writing to it changes the
+	// attribute values.
+	public double[] channel(DoubleAttribute attrib) {
+		if (attrib == ELEVATION && elevation != null)
+			return elevation;
+		double[] channel = doubleChannels.get(attrib);
+		if (channel == null) {
+			channel = new double[capacity];
+			Arrays.fill(channel, attrib.defaultValue);
+			doubleChannels.put(attrib, channel);
+			if (attrib == ELEVATION)
+				elevation = channel;
+		}
+		return channel;
+	}
+
+	// Returns the channel of a given attribute. Indexed by element id. Can be
+	// longer than the number of elements. Not a copy. Writing to it changes the
+	// attribute values.
+	public float[] channel(FloatAttribute attrib) {
+		float[] channel = floatChannels.get(attrib);
+		if (channel == null) {
+			channel = new float[capacity];
+			Arrays.fill(channel, attrib.defaultValue);
+			floatChannels.put(attrib, channel);
+		}
+		return channel;
+	}
+
+	public boolean hasChannel(DoubleAttribute attrib) {
+		return doubleChannels.containsKey(attrib);
+	}
+
+	public boolean hasChannel(FloatAttribute attrib) {
+		return floatChannels.containsKey(attrib);
+	}
+
+	// Returns the double attributes that have channels.
+	public List<DoubleAttribute> doubleAttributes() {
+		return new ArrayList<DoubleAttribute>(doubleChannels.keySet());
+	}
+
+	// Returns the float attributes that have channels.
+	public List<FloatAttribute> floatAttributes() {
+		return new ArrayList<FloatAttribute>(floatChannels.keySet());
+	}
+
+	public double get(DoubleAttribute attrib, int id) {
+		return channel(attrib)[id];
+	}
+
+	public void set(DoubleAttribute attrib, int id, double val) {
+		channel(attrib)[id] = val;
+	}
+
+	public float get(FloatAttribute attrib, int id) {
+		return channel(attrib)[id];
+	}
+
+	public void set(FloatAttribute attrib, int id, float val) {
+		channel(attrib)[id] = val;
+	}
+
+	private static double[] grow(double[] channel, int newCapacity,
+			double defaultValue) {
+		int oldCapacity = channel.length;
+		channel = Arrays.copyOf(channel, newCapacity);
+		Arrays.fill(channel, oldCapacity, newCapacity, defaultValue);
+		return channel;
+	}
+
+	private static float[] grow(float[] channel, int newCapacity,
+			float defaultValue) {
+		int oldCapacity = channel.length;
+		channel = Arrays.copyOf(channel, newCapacity);
+		Arrays.fill(channel, oldCapacity, newCapacity, defaultValue);
+		return channel;
+	}
+}
@@ -57,8 +57,11 @@ implements ContinentBasedTopography.ContinentGenerator {
 		while (!nodePool.isEmpty()) {
 			int nodeIdx = rand.nextInt(nodePool.size());
 			MapNode node = nodePool.get(nodeIdx);
-			for (int i = 0; i < node.countNeighbors(); ++i) {
-				MapNode neighbor = node.neighbor(i);
+			Adjacency adjacency = rep.nodeAdjacency();
+			int[] neighbors = adjacency.neighbors();
+			int end = adjacency.offsets()[node.id() + 1];
+			for (int i = adjacency.offsets()[node.id()]; i < end; ++i) {
+				MapNode neighbor = rep.node(neighbors[i]);
 				if (isUnassignedNode(neighbor))
 					return neighbor;
 			}
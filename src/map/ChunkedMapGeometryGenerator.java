@@ -0,0 +1,329 @@
+package map;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import geometry.Point2D;
+import geometry.PoissonDiscSampling;
+import geometry.Rect2D;
+import math.MathUtil;
+
+
+// Generates the layout of tiles for a map in chunks. Allows generating maps
+// that are too large to be generated in one pass.
+// - The map's bounds are partitioned into a grid of square chunks. The last
+//   row and column of chunks also cover the remainder of the map's bounds.
+// - Each chunk samples the seeds for its tiles independently. The sampling
+//   keeps the min distance to the seeds of the chunks that were sampled before.
+// - Each chunk generates the geometry for its seeds and the seeds of its
+//   neighboring chunks within a guard band around the chunk. If the guard band
+//   is wide enough, the tiles of the chunk's own seeds are the same as if the
+//   geometry was generated for all seeds in one pass.
+// - Chunks are processed row by row. Only the seeds of three rows of chunks are
+//   kept at any time. Consumers can process the chunks as they are generated.
+public class ChunkedMapGeometryGenerator {
+
+	public static class Spec {
+		// Edge length of the square chunks.
+		public final double chunkSize;
+		// Width of the band around a chunk whose seeds are included when
+		// generating the chunk's geometry. Has to be wide enough to include all
+		// neighbors of the chunk's tiles. Cannot be larger than the chunk size
+		// because only the seeds of adjacent chunks are included.
+		public final double guardBand;
+		// Whether the chunks of each row are generated in parallel. The generated
+		// chunks are the same either way.
+		public final boolean isParallel;
+
+		// Constructs a spec with a guard band of several times the min sample
+		// distance of a given geometry spec.
+		public Spec(double chunkSize, MapGeometryGenerator.Spec geomSpec) {
+			this(chunkSize, GUARD_BAND_FACTOR * geomSpec.minSampleDistance, false);
+		}
+
+		public Spec(double chunkSize, double guardBand, boolean parallel) {
+			if (chunkSize < guardBand)
+				throw new IllegalArgumentException(
+						"Chunk size is smaller than guard band: " + chunkSize);
+			this.chunkSize = chunkSize;
+			this.guardBand = guardBand;
+			this.isParallel = parallel;
+		}
+	}
+
+	///////////////
+
+	// Generated geometry of a chunk.
+	public static class Chunk {
+		// Row and column of the chunk.
+		public final int row;
+		public final int col;
+		// Area covered by the chunk.
+		public final Rect2D bounds;
+		// Geometry of the chunk. Contains the chunk's own tiles and the tiles of
+		// seeds in its guard band. Only the chunk's own tiles are complete.
+		public final Map.Representation rep;
+		// Seeds of the chunk's own tiles.
+		private final Set<Point2D> ownSeeds;
+
+		private Chunk(int row, int col, Rect2D bounds, Map.Representation rep,
+				List<Point2D> ownSeeds) {
+			this.row = row;
+			this.col = col;
+			this.bounds = bounds;
+			this.rep = rep;
+			this.ownSeeds = Collections.newSetFromMap(
+					new IdentityHashMap<Point2D, Boolean>());
+			this.ownSeeds.addAll(ownSeeds);
+		}
+
+		// Checks if a given tile of the chunk's representation belongs to the
+		// chunk. Tiles that don't belong to the chunk are part of the guard band.
+		// Their neighbors and shapes can be incomplete.
+		public boolean isOwnTile(MapTile tile) {
+			return ownSeeds.contains(tile.seed);
+		}
+
+		public int countOwnTiles() {
+			return ownSeeds.size();
+		}
+	}
+
+	///////////////
+
+	// Receives chunks as they are generated.
+	public interface ChunkConsumer {
+		// Called for each chunk in row-major order.
+		void consume(Chunk chunk);
+	}
+
+	///////////////
+
+	// Combines chunks into a single representation. Stitches tiles and nodes
+	// along the seams between chunks.
+	private static class Stitcher implements ChunkConsumer {
+		private final Map.Representation rep = new Map.Representation();
+		// Seeds of the neighbors of each stitched tile. Tiles of later chunks
+		// are not available yet when a tile is stitched, so neighbors get
+		// connected once all chunks are stitched.
+		private final List<List<Point2D>> neighborSeeds =
+				new ArrayList<List<Point2D>>();
+
+		@Override
+		public void consume(Chunk chunk) {
+			for (int i = 0; i < chunk.rep.countTiles(); ++i) {
+				MapTile chunkTile = chunk.rep.tile(i);
+				if (chunk.isOwnTile(chunkTile))
+					stitchTile(chunkTile);
+			}
+		}
+
+		// Returns the stitched representation after all chunks were consumed.
+		public Map.Representation finish() {
+			for (int i = 0; i < rep.countTiles(); ++i) {
+				MapTile tile = rep.tile(i);
+				for (Point2D seed : neighborSeeds.get(i)) {
+					MapTile neighbor = rep.findTileAt(seed);
+					if (neighbor != null)
+						tile.addNeighbor(neighbor);
+				}
+
+				int numNodes = tile.countNodes();
+				for (int j = 0; j < numNodes; ++j) {
+					MapNode node = tile.node(j);
+					MapNode next = tile.node(MathUtil.cyclicNext(j, numNodes));
+					rep.connectNodes(node.id(), next.id());
+				}
+			}
+			neighborSeeds.clear();
+			rep.tileAdjacency();
+			rep.nodeAdjacency();
+			return rep;
+		}
+
+		// Adds a copy of a given tile of a chunk to the stitched representation.
+		// Reuses nodes that are shared with tiles of other chunks.
+		private void stitchTile(MapTile chunkTile) {
+			MapTile tile = new MapTile(chunkTile.seed, chunkTile.shape);
+
+			List<MapNode> nodes = new ArrayList<MapNode>(chunkTile.countNodes());
+			for (int i = 0; i < chunkTile.countNodes(); ++i) {
+				Point2D pos = chunkTile.node(i).pos;
+				MapNode node = rep.findNodeAt(pos);
+				if (node == null) {
+					node = new MapNode(pos);
+					rep.addNode(node);
+				}
+				nodes.add(node);
+			}
+			tile.setNodes(nodes);
+			rep.addTile(tile);
+
+			List<Point2D> seeds = new ArrayList<Point2D>(chunkTile.countNeighbors());
+			for (int i = 0; i < chunkTile.countNeighbors(); ++i)
+				seeds.add(chunkTile.neighbor(i).seed);
+			neighborSeeds.add(seeds);
+		}
+	}
+
+	///////////////
+
+	// Default width of the guard band as multiple of the min sample distance.
+	// Samples are generated at most twice the min distance apart from their
+	// closest neighbor, so the circumcircles of the triangles around a seed
+	// rarely reach further than that.
+	public static final double GUARD_BAND_FACTOR = 5;
+	private final MapGeometryGenerator.Spec geomSpec;
+	private final Spec spec;
+	private final int numRows;
+	private final int numCols;
+	// Seeds of each chunk in row-major order. Only the rows that are needed for
+	// generating the current row of chunks are kept. The others are null.
+	private final List<List<Point2D>> chunkSeeds;
+
+	public ChunkedMapGeometryGenerator(MapGeometryGenerator.Spec geomSpec,
+			Spec spec) {
+		this.geomSpec = geomSpec;
+		this.spec = spec;
+		// The remainder of the bounds is added to the last row and column
+		// instead of getting chunks of its own. Chunks that are too thin to fit
+		// any samples would otherwise stall the sampling.
+		this.numRows = Math.max(1,
+				(int) Math.floor(geomSpec.bounds.height() / spec.chunkSize));
+		this.numCols = Math.max(1,
+				(int) Math.floor(geomSpec.bounds.width() / spec.chunkSize));
+		this.chunkSeeds = new ArrayList<List<Point2D>>(
+				Collections.nCopies(numRows * numCols, (List<Point2D>) null));
+	}
+
+	public int countChunkRows() {
+		return numRows;
+	}
+
+	public int countChunkColumns() {
+		return numCols;
+	}
+
+	// Uses random sample points to generate the geometry and combines the chunks
+	// into a single representation.
+	public Map.Representation generate(Random rand) {
+		Stitcher stitcher = new Stitcher();
+		generate(rand, stitcher);
+		return stitcher.finish();
+	}
+
+	// Uses random sample points to generate the geometry. Passes each chunk to a
+	// given consumer as soon as it is generated.
+	public void generate(Random rand, ChunkConsumer consumer) {
+		// Each chunk gets its own random number generator derived from a common
+		// seed. Keeps the sampling of a chunk independent of the processing order.
+		long baseSeed = rand.nextLong();
+
+		for (int r = 0; r < numRows; ++r) {
+			// The chunks of a row need the seeds of the rows above and below.
+			if (r == 0)
+				sampleRow(0, baseSeed);
+			if (r + 1 < numRows)
+				sampleRow(r + 1, baseSeed);
+
+			final int row = r;
+			Chunk[] chunks = new Chunk[numCols];
+			IntStream cols = IntStream.range(0, numCols);
+			if (spec.isParallel)
+				cols = cols.parallel();
+			cols.forEach((int c) -> chunks[c] = generateChunk(row, c));
+
+			for (Chunk chunk : chunks)
+				consumer.consume(chunk);
+
+			// The seeds of the previous row are not needed anymore.
+			if (r > 0)
+				releaseRow(r - 1);
+		}
+		releaseRow(numRows - 1);
+	}
+
+	// Returns the area covered by a chunk at a given row and column. The last
+	// chunk in each direction extends to the map's bounds.
+	public Rect2D chunkBounds(int row, int col) {
+		Rect2D bounds = geomSpec.bounds;
+		double left = bounds.left() + col * spec.chunkSize;
+		double top = bounds.top() + row * spec.chunkSize;
+		double right = (col == numCols - 1) ? bounds.right() :
+			Math.min(left + spec.chunkSize, bounds.right());
+		double bottom = (row == numRows - 1) ? bounds.bottom() :
+			Math.min(top + spec.chunkSize, bounds.bottom());
+		return new Rect2D(left, top, right, bottom);
+	}
+
+	// Samples the seeds for all chunks of a given row.
+	private void sampleRow(int row, long baseSeed) {
+		for (int c = 0; c < numCols; ++c)
+			sampleChunk(row, c, baseSeed);
+	}
+
+	// Samples the seeds of a chunk at a given row and column. Keeps the min
+	// distance to the seeds of the neighboring chunks that were sampled before.
+	private void sampleChunk(int row, int col, long baseSeed) {
+		Rect2D bounds = chunkBounds(row, col);
+		Rect2D seamBounds = bounds.copy();
+		seamBounds.inflate(geomSpec.minSampleDistance);
+		List<Point2D> existing = new ArrayList<Point2D>();
+		for (int r = row - 1; r <= row; ++r)
+			for (int c = col - 1; c <= col + 1; ++c)
+				if (r < row || c < col)
+					collectSeeds(r, c, seamBounds, existing);
+
+		Random chunkRand = new Random(
+				baseSeed ^ (0x9E3779B97F4A7C15L * (chunkIndex(row, col) + 1)));
+		PoissonDiscSampling sampler = new PoissonDiscSampling(bounds,
+				geomSpec.minSampleDistance, geomSpec.numSampleCandidates, chunkRand,
+				existing);
+		chunkSeeds.set(chunkIndex(row, col), sampler.generate());
+	}
+
+	// Generates the geometry of a chunk at a given row and column from its seeds
+	// and the seeds in its guard band.
+	private Chunk generateChunk(int row, int col) {
+		Rect2D bounds = chunkBounds(row, col);
+		List<Point2D> ownSeeds = chunkSeeds.get(chunkIndex(row, col));
+
+		Rect2D guardBounds = bounds.copy();
+		guardBounds.inflate(spec.guardBand);
+		List<Point2D> seeds = new ArrayList<Point2D>(ownSeeds);
+		for (int r = row - 1; r <= row + 1; ++r)
+			for (int c = col - 1; c <= col + 1; ++c)
+				if (r != row || c != col)
+					collectSeeds(r, c, guardBounds, seeds);
+
+		// Clip the tiles at the map's bounds, so that tiles along the map's
+		// border are the same as for a single pass.
+		MapGeometryGenerator gen = new MapGeometryGenerator(null, geomSpec);
+		return new Chunk(row, col, bounds, gen.generate(seeds), ownSeeds);
+	}
+
+	// Adds the seeds of a chunk at a given row and column that are within
+	// given bounds to a given list. Ignores chunks outside of the grid.
+	private void collectSeeds(int row, int col, Rect2D bounds, List<Point2D> out) {
+		if (row < 0 || row >= numRows || col < 0 || col >= numCols)
+			return;
+		for (Point2D seed : chunkSeeds.get(chunkIndex(row, col)))
+			if (bounds.isPointInRect(seed))
+				out.add(seed);
+	}
+
+	// Drops the seeds of all chunks in a given row.
+	private void releaseRow(int row) {
+		for (int c = 0; c < numCols; ++c)
+			chunkSeeds.set(chunkIndex(row, c), null);
+	}
+
+	private int chunkIndex(int row, int col) {
+		return row * numCols + col;
+	}
+}
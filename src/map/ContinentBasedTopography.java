@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Random;
 
 import math.MathUtil;
+import metrics.GenerationMetrics;
 
 // Generates the surface profile of a map. 
 public class ContinentBasedTopography implements TopographyGenerator {
@@ -40,11 +41,19 @@ public class ContinentBasedTopography implements TopographyGenerator {
 	private final Random rand;
 	private final ContinentGenerator continentGen;
 	private List<Continent> continents;
+	// Metrics that the generation is reported to.
+	private final GenerationMetrics metrics;
 
 	public ContinentBasedTopography(Spec spec, Random rand) {
+		this(spec, rand, GenerationMetrics.DISABLED);
+	}
+
+	public ContinentBasedTopography(Spec spec, Random rand,
+			GenerationMetrics metrics) {
 		this.spec = spec;
 		this.rand = rand;
 		this.continentGen = spec.continentGen;
+		this.metrics = metrics;
 	}
 	
 	@Override
@@ -52,7 +61,10 @@ public class ContinentBasedTopography implements TopographyGenerator {
 		this.rep = rep;
 		continentGen.setMap(rep);
 		
-		generateContinents();
+		try (GenerationMetrics.Stage stage = metrics.beginStage("continents")) {
+			generateContinents();
+			stage.count("continents", continents.size());
+		}
 	}
 	
 	private void generateContinents() {
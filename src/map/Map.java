@@ -1,21 +1,34 @@
 package map;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
-import java.util.TreeMap;
 
 import geometry.Point2D;
 import geometry.Polygon2D;
+import geometry.SpatialHash2D;
+import metrics.GenerationMetrics;
 
 public class Map {
 
 	public static class Spec {
 		public final MapGeometryGenerator.Spec geom;
+		// Settings for generating the geometry in chunks. Null to generate it in
+		// a single pass.
+		public final ChunkedMapGeometryGenerator.Spec chunks;
 		public final PerlinTopography.Spec topo;
 		
 		public Spec(MapGeometryGenerator.Spec geom, PerlinTopography.Spec topo) {
+			this(geom, null, topo);
+		}
+		
+		public Spec(MapGeometryGenerator.Spec geom,
+				ChunkedMapGeometryGenerator.Spec chunks, PerlinTopography.Spec topo) {
 			this.geom = geom;
+			this.chunks = chunks;
 			this.topo = topo;
 		}
 	}
@@ -28,23 +41,50 @@ public class Map {
 		// Master collection of tiles that map is made from.
 		private List<MapTile> tiles;
 		// Lookup of tiles by their seed location.
-		private java.util.Map<Point2D, MapTile> tileLookup;
+		private SpatialHash2D<MapTile> tileLookup;
 		// Master collection of unique nodes defining the shape of all tiles. A node shared
 		// between tiles is only listed once.
 		private List<MapNode> nodes;
 		// Lookup of nodes by their locations.
-		private java.util.Map<Point2D, MapNode> nodeLookup;
+		private SpatialHash2D<MapNode> nodeLookup;
+		// Neighbors of the tiles and nodes by their ids. The id of a tile or node
+		// is its index in the master collection.
+		final Adjacency tileAdjacency = new Adjacency();
+		final Adjacency nodeAdjacency = new Adjacency();
+		// Attributes of the tiles and nodes by their ids.
+		private final AttributeStore tileAttributes = new AttributeStore();
+		private final AttributeStore nodeAttributes = new AttributeStore();
+		// Mapped file contents that the tiles and nodes of a loaded
+		// representation are decoded from. Tiles and nodes that were not
+		// decoded yet are null in the master collections. Null once all tiles
+		// and nodes are decoded.
+		private MapFile.Contents contents;
 		
 		public Representation() {
 			tiles = new ArrayList<MapTile>();
-			tileLookup = new TreeMap<Point2D, MapTile>(Point2D.makeXYComparator());
+			tileLookup = new SpatialHash2D<MapTile>();
 			nodes = new ArrayList<MapNode>();
-			nodeLookup = new TreeMap<Point2D, MapNode>(Point2D.makeXYComparator());
+			nodeLookup = new SpatialHash2D<MapNode>();
+		}
+		
+		// Creates a representation whose tiles and nodes are decoded from given
+		// file contents when they are first accessed. The caller loads the
+		// neighbors and attributes.
+		Representation(MapFile.Contents contents) {
+			this();
+			this.contents = contents;
+			tiles.addAll(Collections.nCopies(contents.countTiles(), null));
+			nodes.addAll(Collections.nCopies(contents.countNodes(), null));
+			tileAttributes.resize(tiles.size());
+			nodeAttributes.resize(nodes.size());
 		}
 		
 		// Adds a given tile.
 		public void addTile(MapTile tile) {
+			decodeAll();
 			tiles.add(tile);
+			tileAttributes.resize(tiles.size());
+			tile.attach(this, tiles.size() - 1);
 			tileLookup.put(tile.seed, tile);
 		}
 		
@@ -53,17 +93,24 @@ public class Map {
 		}
 		
 		public MapTile tile(int idx) {
-			return tiles.get(idx);
+			MapTile tile = tiles.get(idx);
+			if (tile == null)
+				tile = decodeTile(idx);
+			return tile;
 		}
 		
 		// Returns the tile whose seed is located at a given position.
 		public MapTile findTileAt(Point2D pos) {
+			decodeAll();
 			return  tileLookup.get(pos);
 		}
 
 		// Adds a given node.
 		public void addNode(MapNode node) {
+			decodeAll();
 			nodes.add(node);
+			nodeAttributes.resize(nodes.size());
+			node.attach(this, nodes.size() - 1);
 			nodeLookup.put(node.pos, node);
 		}
 		
@@ -72,13 +119,106 @@ public class Map {
 		}
 		
 		public MapNode node(int idx) {
-			return nodes.get(idx);
+			MapNode node = nodes.get(idx);
+			if (node == null)
+				node = decodeNode(idx);
+			return node;
 		}
 		
 		// Returns the node that is located at a given position.
 		public MapNode findNodeAt(Point2D pos) {
+			decodeAll();
 			return nodeLookup.get(pos);
 		}
+		
+		// Checks if the tiles and nodes of a loaded representation are still
+		// decoded on first access. Decoding modifies the representation, so
+		// call decodeAll() before accessing it from multiple threads.
+		public boolean isLazy() {
+			return contents != null;
+		}
+		
+		// Decodes all tiles and nodes of a loaded representation that were not
+		// accessed yet and builds the lookups by location. Does nothing for
+		// other representations.
+		public void decodeAll() {
+			if (contents == null)
+				return;
+			tileLookup = new SpatialHash2D<MapTile>(tiles.size());
+			for (int i = 0; i < tiles.size(); ++i) {
+				MapTile tile = tile(i);
+				tileLookup.put(tile.seed, tile);
+			}
+			nodeLookup = new SpatialHash2D<MapNode>(nodes.size());
+			for (int i = 0; i < nodes.size(); ++i) {
+				MapNode node = node(i);
+				nodeLookup.put(node.pos, node);
+			}
+			contents = null;
+		}
+		
+		private MapTile decodeTile(int idx) {
+			int numTileNodes = contents.countTileNodes(idx);
+			List<MapNode> tileNodes = new ArrayList<MapNode>(numTileNodes);
+			List<Point2D> shape = new ArrayList<Point2D>(numTileNodes);
+			for (int i = 0; i < numTileNodes; ++i) {
+				MapNode node = node(contents.tileNode(idx, i));
+				tileNodes.add(node);
+				shape.add(node.pos);
+			}
+			MapTile tile = new MapTile(contents.tileSeed(idx), new Polygon2D(shape));
+			tile.setNodes(tileNodes);
+			// Attaching stores the tile's elevation. Keep the loaded one.
+			tile.setElevation(tileAttributes.get(AttributeStore.ELEVATION, idx));
+			tiles.set(idx, tile);
+			tile.attach(this, idx);
+			return tile;
+		}
+		
+		private MapNode decodeNode(int idx) {
+			MapNode node = new MapNode(contents.nodePos(idx));
+			// Attaching stores the node's elevation. Keep the loaded one.
+			node.setElevation(nodeAttributes.get(AttributeStore.ELEVATION, idx));
+			nodes.set(idx, node);
+			node.attach(this, idx);
+			return node;
+		}
+		
+		// Returns the attributes of the tiles by their ids.
+		public AttributeStore tileAttributes() {
+			return tileAttributes;
+		}
+		
+		// Returns the attributes of the nodes by their ids.
+		public AttributeStore nodeAttributes() {
+			return nodeAttributes;
+		}
+		
+		// Marks the tiles with given ids as neighbors.
+		public void connectTiles(int a, int b) {
+			tileAdjacency.connect(a, b);
+		}
+		
+		// Marks the nodes with given ids as neighbors.
+		public void connectNodes(int a, int b) {
+			nodeAdjacency.connect(a, b);
+		}
+		
+		// Returns the neighbors of all tiles by their ids. Merges neighbors that
+		// were added since the last call. Call once after all neighbors were
+		// added before accessing the representation from multiple threads.
+		public Adjacency tileAdjacency() {
+			tileAdjacency.compact(tiles.size());
+			return tileAdjacency;
+		}
+		
+		// Returns the neighbors of all nodes by their ids. Merges neighbors that
+		// were added since the last call. Call once after all neighbors were
+		// added before accessing the representation from multiple threads.
+		public Adjacency nodeAdjacency() {
+			nodeAdjacency.compact(nodes.size());
+			return nodeAdjacency;
+		}
 	}
 	
 	///////////////
@@ -86,11 +226,39 @@ public class Map {
 	private final Spec spec;
 	private final Random rand;
 	private Representation rep;
+	// Metrics that the stages of the generation are reported to.
+	private final GenerationMetrics metrics;
 
 	public Map(Spec spec, Random rand) {
+		this(spec, rand, GenerationMetrics.DISABLED);
+	}
+
+	public Map(Spec spec, Random rand, GenerationMetrics metrics) {
 		this.spec = spec;
 		this.rand = rand;
 		this.rep = new Representation();
+		this.metrics = metrics;
+	}
+
+	// Loads a map that was generated for a given spec from a given file. See
+	// MapFile.
+	public static Map load(Spec spec, Path file) throws IOException {
+		return load(spec, file, List.of(), List.of());
+	}
+
+	// Loads a map like load(Spec, Path). Stored attributes are loaded into the
+	// given attributes with the same names. See MapFile.load(Path, List, List).
+	public static Map load(Spec spec, Path file,
+			List<AttributeStore.DoubleAttribute> attribs,
+			List<AttributeStore.FloatAttribute> floatAttribs) throws IOException {
+		Map map = new Map(spec, new Random());
+		map.rep = MapFile.load(file, attribs, floatAttribs);
+		return map;
+	}
+
+	// Saves the map to a given file. See MapFile.
+	public void save(Path file) throws IOException {
+		MapFile.write(rep, file);
 	}
 
 	// Generates the map tiles.
@@ -115,6 +283,11 @@ public class Map {
 	public MapTile tile(int idx) {
 		return rep.tile(idx);
 	}
+	
+	// Returns the number of unique nodes in the map.
+	public int countNodes() {
+		return rep.countNodes();
+	}
 
 	public MapNode node(int idx) {
 		return rep.node(idx);
@@ -122,22 +295,42 @@ public class Map {
 	
 	// Returns the shapes of all tiles.
 	public List<Polygon2D> tileShapes() {
-		List<Polygon2D> shapes = new ArrayList<Polygon2D>(rep.tiles.size());
-		for (var tile : rep.tiles)
-			shapes.add(tile.shape);
+		List<Polygon2D> shapes = new ArrayList<Polygon2D>(rep.countTiles());
+		for (int i = 0; i < rep.countTiles(); ++i)
+			shapes.add(rep.tile(i).shape);
 		return shapes;
 	}
 	
-	// Generates the tile layout of the map.
-	private void generateGeometry() {
-		MapGeometryGenerator gen = new MapGeometryGenerator(this, spec.geom);
-		rep = gen.generate(rand);
+	// Generates the tile layout of the map. First stage of generate().
+	public void generateGeometry() {
+		try (GenerationMetrics.Stage stage = metrics.beginStage("geometry")) {
+			if (spec.chunks != null) {
+				// The chunked generator doesn't report sub-stages. It is measured
+				// as one stage.
+				ChunkedMapGeometryGenerator gen =
+						new ChunkedMapGeometryGenerator(spec.geom, spec.chunks);
+				rep = gen.generate(rand);
+				stage.count("chunks",
+						gen.countChunkRows() * gen.countChunkColumns());
+			} else {
+				MapGeometryGenerator gen =
+						new MapGeometryGenerator(this, spec.geom, metrics);
+				rep = gen.generate(rand);
+			}
+			stage.count("tiles", rep.countTiles());
+			stage.count("nodes", rep.countNodes());
+		}
 	}
 	
-	// Generates the node elevations.
-	private void generateTopography() {
-		PerlinTopography gen = new PerlinTopography(spec.topo, rand);
-//		ContinentBasedTopography gen = new ContinentBasedTopography(spec.topo, rand);
-		gen.generate(rep);
+	// Generates the node elevations. Second stage of generate(). Requires the
+	// geometry to be generated.
+	public void generateTopography() {
+		try (GenerationMetrics.Stage stage = metrics.beginStage("topography")) {
+			PerlinTopography gen = new PerlinTopography(spec.topo, rand, metrics);
+//			ContinentBasedTopography gen = new ContinentBasedTopography(spec.topo, rand);
+			gen.generate(rep);
+			stage.count("nodes", rep.countNodes());
+			stage.count("tiles", rep.countTiles());
+		}
 	}
 }
@@ -0,0 +1,456 @@
+package map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+
+import geometry.Point2D;
+
+// Binary file format for map representations.
+// - Stores the tiles, nodes, neighbors and attributes of a representation as
+//   flat arrays. Tiles refer to their nodes by id.
+// - Attributes are stored sorted by name, so the same representation always
+//   gives the same file.
+// - Written through a file channel in large blocks.
+// - Loaded by mapping the file into memory. Loading only copies the neighbor
+//   and attribute arrays. Tiles and nodes are decoded from the mapped file
+//   when they are first accessed, so loading takes milliseconds even for
+//   millions of tiles.
+// - The shape of a loaded tile is made from the positions of its nodes.
+// - Numbers are stored little-endian. Each array starts at a multiple of 8
+//   bytes.
+// - Files are limited to 2 GB, the size limit of a mapped buffer.
+// Layout:
+//   int magic, version, number of tiles, number of nodes, number of node ids
+//       of all tiles, number of tile neighbors, number of node neighbors,
+//       number of attributes
+//   double[2 * nodes]   x and y of each node's position
+//   double[2 * tiles]   x and y of each tile's seed
+//   int[tiles + 1]      start positions of each tile's node ids
+//   int[tile node ids]  node ids of each tile in the order of its shape
+//   int[tiles + 1], int[tile neighbors]   neighbors of the tiles, see Adjacency
+//   int[nodes + 1], int[node neighbors]   neighbors of the nodes, see Adjacency
+//   For each attribute:
+//     int target (0 for tiles, 1 for nodes), int type (0 for double, 1 for
+//         float values), int length of name
+//     byte[] UTF-8 name
+//     double default value
+//     double[tiles or nodes] or float[tiles or nodes] values
+public class MapFile {
+
+	static final int MAGIC = 0x4650414D; // "MAPF"
+	static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int TILES = 0;
+	private static final int NODES = 1;
+	private static final int DOUBLE_VALUES = 0;
+	private static final int FLOAT_VALUES = 1;
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	// Mapped arrays of a loaded file that the tiles and nodes are decoded from.
+	static class Contents {
+		private final int numTiles;
+		private final int numNodes;
+		private final DoubleBuffer nodePositions;
+		private final DoubleBuffer tileSeeds;
+		private final IntBuffer tileNodeStarts;
+		private final IntBuffer tileNodeIds;
+
+		private Contents(int numTiles, int numNodes, DoubleBuffer nodePositions,
+				DoubleBuffer tileSeeds, IntBuffer tileNodeStarts,
+				IntBuffer tileNodeIds) {
+			this.numTiles = numTiles;
+			this.numNodes = numNodes;
+			this.nodePositions = nodePositions;
+			this.tileSeeds = tileSeeds;
+			this.tileNodeStarts = tileNodeStarts;
+			this.tileNodeIds = tileNodeIds;
+		}
+
+		int countTiles() {
+			return numTiles;
+		}
+
+		int countNodes() {
+			return numNodes;
+		}
+
+		Point2D nodePos(int id) {
+			return new Point2D(nodePositions.get(2 * id),
+					nodePositions.get(2 * id + 1));
+		}
+
+		Point2D tileSeed(int id) {
+			return new Point2D(tileSeeds.get(2 * id), tileSeeds.get(2 * id + 1));
+		}
+
+		int countTileNodes(int id) {
+			return tileNodeStarts.get(id + 1) - tileNodeStarts.get(id);
+		}
+
+		// Returns the id of the node with a given index in a tile's shape.
+		int tileNode(int id, int idx) {
+			return tileNodeIds.get(tileNodeStarts.get(id) + idx);
+		}
+	}
+
+	///////////////
+
+	// Writes a given representation to a given file. Replaces the file if it
+	// exists.
+	public static void write(Map.Representation rep, Path file)
+			throws IOException {
+		int numTiles = rep.countTiles();
+		int numNodes = rep.countNodes();
+		double[] nodePositions = new double[2 * numNodes];
+		for (int i = 0; i < numNodes; ++i) {
+			MapNode node = rep.node(i);
+			nodePositions[2 * i] = node.pos.x;
+			nodePositions[2 * i + 1] = node.pos.y;
+		}
+		double[] tileSeeds = new double[2 * numTiles];
+		int[] tileNodeStarts = new int[numTiles + 1];
+		for (int i = 0; i < numTiles; ++i) {
+			MapTile tile = rep.tile(i);
+			tileSeeds[2 * i] = tile.seed.x;
+			tileSeeds[2 * i + 1] = tile.seed.y;
+			tileNodeStarts[i + 1] = tileNodeStarts[i] + tile.countNodes();
+		}
+		int[] tileNodeIds = new int[tileNodeStarts[numTiles]];
+		for (int i = 0; i < numTiles; ++i) {
+			MapTile tile = rep.tile(i);
+			for (int n = 0; n < tile.countNodes(); ++n)
+				tileNodeIds[tileNodeStarts[i] + n] = tile.node(n).id();
+		}
+		Adjacency tileAdjacency = rep.tileAdjacency();
+		Adjacency nodeAdjacency = rep.nodeAdjacency();
+		List<AttributeStore.DoubleAttribute> tileAttribs =
+				rep.tileAttributes().doubleAttributes();
+		List<AttributeStore.FloatAttribute> tileFloatAttribs =
+				rep.tileAttributes().floatAttributes();
+		List<AttributeStore.DoubleAttribute> nodeAttribs =
+				rep.nodeAttributes().doubleAttributes();
+		List<AttributeStore.FloatAttribute> nodeFloatAttribs =
+				rep.nodeAttributes().floatAttributes();
+		tileAttribs.sort(Comparator.comparing(attrib -> attrib.name));
+		tileFloatAttribs.sort(Comparator.comparing(attrib -> attrib.name));
+		nodeAttribs.sort(Comparator.comparing(attrib -> attrib.name));
+		nodeFloatAttribs.sort(Comparator.comparing(attrib -> attrib.name));
+
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			BlockWriter out = new BlockWriter(channel);
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putInt(numTiles);
+			out.putInt(numNodes);
+			out.putInt(tileNodeIds.length);
+			out.putInt(tileAdjacency.neighbors().length);
+			out.putInt(nodeAdjacency.neighbors().length);
+			out.putInt(tileAttribs.size() + tileFloatAttribs.size() +
+					nodeAttribs.size() + nodeFloatAttribs.size());
+
+			out.putDoubles(nodePositions, nodePositions.length);
+			out.putDoubles(tileSeeds, tileSeeds.length);
+			out.putInts(tileNodeStarts, tileNodeStarts.length);
+			out.putInts(tileNodeIds, tileNodeIds.length);
+			out.putInts(tileAdjacency.offsets(), numTiles + 1);
+			out.putInts(tileAdjacency.neighbors(),
+					tileAdjacency.neighbors().length);
+			out.putInts(nodeAdjacency.offsets(), numNodes + 1);
+			out.putInts(nodeAdjacency.neighbors(),
+					nodeAdjacency.neighbors().length);
+
+			for (var attrib : tileAttribs)
+				writeAttribute(TILES, attrib, rep.tileAttributes(), numTiles, out);
+			for (var attrib : tileFloatAttribs)
+				writeAttribute(TILES, attrib, rep.tileAttributes(), numTiles, out);
+			for (var attrib : nodeAttribs)
+				writeAttribute(NODES, attrib, rep.nodeAttributes(), numNodes, out);
+			for (var attrib : nodeFloatAttribs)
+				writeAttribute(NODES, attrib, rep.nodeAttributes(), numNodes, out);
+			out.flush();
+		}
+	}
+
+	// Loads a representation from a given file. Its tiles and nodes are decoded
+	// when they are first accessed. See Map.Representation.decodeAll().
+	// Attributes other than the elevation are loaded into new attributes. See
+	// AttributeStore.doubleAttributes() and floatAttributes().
+	public static Map.Representation load(Path file) throws IOException {
+		return load(file, List.of(), List.of());
+	}
+
+	// Loads a representation from a given file like load(Path). Stored
+	// attributes that have the name of one of the given attributes are loaded
+	// into it, so the caller can read them through its own attributes.
+	public static Map.Representation load(Path file,
+			List<AttributeStore.DoubleAttribute> attribs,
+			List<AttributeStore.FloatAttribute> floatAttribs) throws IOException {
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Map file is too large: " + file);
+			// The mapping stays valid after the channel is closed.
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		ByteBuffer in = mapped.order(ByteOrder.LITTLE_ENDIAN);
+		if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC)
+			throw new IOException("Not a map file: " + file);
+		int version = in.getInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported map file version " + version +
+					": " + file);
+		int numTiles = in.getInt();
+		int numNodes = in.getInt();
+		int numTileNodeIds = in.getInt();
+		int numTileNeighbors = in.getInt();
+		int numNodeNeighbors = in.getInt();
+		int numAttribs = in.getInt();
+
+		try {
+			DoubleBuffer nodePositions = sliceDoubles(in, 2 * numNodes);
+			DoubleBuffer tileSeeds = sliceDoubles(in, 2 * numTiles);
+			IntBuffer tileNodeStarts = sliceInts(in, numTiles + 1);
+			IntBuffer tileNodeIds = sliceInts(in, numTileNodeIds);
+			Contents contents = new Contents(numTiles, numNodes, nodePositions,
+					tileSeeds, tileNodeStarts, tileNodeIds);
+			Map.Representation rep = new Map.Representation(contents);
+
+			rep.tileAdjacency.load(readInts(in, numTiles + 1),
+					readInts(in, numTileNeighbors));
+			rep.nodeAdjacency.load(readInts(in, numNodes + 1),
+					readInts(in, numNodeNeighbors));
+
+			for (int i = 0; i < numAttribs; ++i) {
+				int target = in.getInt();
+				int type = in.getInt();
+				byte[] nameBytes = new byte[in.getInt()];
+				in.get(nameBytes);
+				alignTo8(in);
+				String name = new String(nameBytes, StandardCharsets.UTF_8);
+				double defaultValue = in.getDouble();
+				AttributeStore store;
+				int numElements;
+				if (target == TILES) {
+					store = rep.tileAttributes();
+					numElements = numTiles;
+				} else if (target == NODES) {
+					store = rep.nodeAttributes();
+					numElements = numNodes;
+				} else {
+					throw new IOException("Invalid attribute target " + target +
+							": " + file);
+				}
+				if (type == DOUBLE_VALUES) {
+					sliceDoubles(in, numElements).get(store.channel(
+							findAttribute(name, defaultValue, attribs)), 0, numElements);
+				} else if (type == FLOAT_VALUES) {
+					sliceFloats(in, numElements).get(store.channel(
+							findAttribute(name, (float) defaultValue, floatAttribs)), 0,
+							numElements);
+				} else {
+					throw new IOException("Invalid attribute type " + type + ": " +
+							file);
+				}
+			}
+			return rep;
+		} catch (IndexOutOfBoundsException | java.nio.BufferUnderflowException e) {
+			throw new IOException("Truncated map file: " + file, e);
+		}
+	}
+
+	private static void writeAttribute(int target,
+			AttributeStore.DoubleAttribute attrib, AttributeStore store,
+			int numElements, BlockWriter out) throws IOException {
+		writeAttributeHeader(target, DOUBLE_VALUES, attrib.name,
+				attrib.defaultValue, out);
+		out.putDoubles(store.channel(attrib), numElements);
+	}
+
+	private static void writeAttribute(int target,
+			AttributeStore.FloatAttribute attrib, AttributeStore store,
+			int numElements, BlockWriter out) throws IOException {
+		writeAttributeHeader(target, FLOAT_VALUES, attrib.name,
+				attrib.defaultValue, out);
+		out.putFloats(store.channel(attrib), numElements);
+	}
+
+	private static void writeAttributeHeader(int target, int type, String name,
+			double defaultValue, BlockWriter out) throws IOException {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		out.putInt(target);
+		out.putInt(type);
+		out.putInt(nameBytes.length);
+		out.putBytes(nameBytes);
+		out.alignTo8();
+		out.putDouble(defaultValue);
+	}
+
+	// Returns the attribute that a stored attribute is loaded into: the given
+	// attribute with the same name or else a new one. The elevation is loaded
+	// into the shared elevation attribute so that tiles and nodes find it.
+	private static AttributeStore.DoubleAttribute findAttribute(String name,
+			double defaultValue, List<AttributeStore.DoubleAttribute> attribs) {
+		if (name.equals(AttributeStore.ELEVATION.name))
+			return AttributeStore.ELEVATION;
+		for (var attrib : attribs)
+			if (attrib.name.equals(name))
+				return attrib;
+		return new AttributeStore.DoubleAttribute(name, defaultValue);
+	}
+
+	// Returns the float attribute that a stored attribute is loaded into: the
+	// given attribute with the same name or else a new one.
+	private static AttributeStore.FloatAttribute findAttribute(String name,
+			float defaultValue, List<AttributeStore.FloatAttribute> attribs) {
+		for (var attrib : attribs)
+			if (attrib.name.equals(name))
+				return attrib;
+		return new AttributeStore.FloatAttribute(name, defaultValue);
+	}
+
+	// Returns a view of a given number of doubles at the position of a given
+	// buffer and moves the position past them.
+	private static DoubleBuffer sliceDoubles(ByteBuffer in, int num) {
+		DoubleBuffer view = in.slice(in.position(), num * Double.BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		in.position(in.position() + num * Double.BYTES);
+		return view;
+	}
+
+	// Returns a view of a given number of floats at the position of a given
+	// buffer and moves the position past them, aligned to 8 bytes.
+	private static FloatBuffer sliceFloats(ByteBuffer in, int num) {
+		FloatBuffer view = in.slice(in.position(), num * Float.BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+		in.position(in.position() + num * Float.BYTES);
+		alignTo8(in);
+		return view;
+	}
+
+	// Returns a view of a given number of ints at the position of a given
+	// buffer and moves the position past them, aligned to 8 bytes.
+	private static IntBuffer sliceInts(ByteBuffer in, int num) {
+		IntBuffer view = in.slice(in.position(), num * Integer.BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		in.position(in.position() + num * Integer.BYTES);
+		alignTo8(in);
+		return view;
+	}
+
+	private static int[] readInts(ByteBuffer in, int num) {
+		int[] vals = new int[num];
+		sliceInts(in, num).get(vals);
+		return vals;
+	}
+
+	private static void alignTo8(ByteBuffer in) {
+		in.position((in.position() + 7) & ~7);
+	}
+
+	///////////////
+
+	// Writes to a file channel through a direct buffer that is flushed when it
+	// is full. Arrays are copied into the buffer in bulk.
+	private static class BlockWriter {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(
+				WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		// Number of bytes written to the channel.
+		private long numFlushed = 0;
+
+		BlockWriter(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		void putInt(int val) throws IOException {
+			makeRoom(Integer.BYTES);
+			buffer.putInt(val);
+		}
+
+		void putDouble(double val) throws IOException {
+			makeRoom(Double.BYTES);
+			buffer.putDouble(val);
+		}
+
+		void putBytes(byte[] vals) throws IOException {
+			for (byte val : vals) {
+				makeRoom(1);
+				buffer.put(val);
+			}
+		}
+
+		// Writes the first given number of values of a given array.
+		void putDoubles(double[] vals, int num) throws IOException {
+			int i = 0;
+			while (i < num) {
+				makeRoom(Double.BYTES);
+				int count = Math.min(buffer.remaining() / Double.BYTES, num - i);
+				buffer.asDoubleBuffer().put(vals, i, count);
+				buffer.position(buffer.position() + count * Double.BYTES);
+				i += count;
+			}
+		}
+
+		// Writes the first given number of values of a given array and pads
+		// them to 8 bytes.
+		void putFloats(float[] vals, int num) throws IOException {
+			int i = 0;
+			while (i < num) {
+				makeRoom(Float.BYTES);
+				int count = Math.min(buffer.remaining() / Float.BYTES, num - i);
+				buffer.asFloatBuffer().put(vals, i, count);
+				buffer.position(buffer.position() + count * Float.BYTES);
+				i += count;
+			}
+			alignTo8();
+		}
+
+		// Writes the first given number of values of a given array and pads
+		// them to 8 bytes.
+		void putInts(int[] vals, int num) throws IOException {
+			int i = 0;
+			while (i < num) {
+				makeRoom(Integer.BYTES);
+				int count = Math.min(buffer.remaining() / Integer.BYTES, num - i);
+				buffer.asIntBuffer().put(vals, i, count);
+				buffer.position(buffer.position() + count * Integer.BYTES);
+				i += count;
+			}
+			alignTo8();
+		}
+
+		// Pads the written bytes with zeros to a multiple of 8 bytes.
+		void alignTo8() throws IOException {
+			while (((numFlushed + buffer.position()) & 7) != 0) {
+				makeRoom(1);
+				buffer.put((byte) 0);
+			}
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining())
+				numFlushed += channel.write(buffer);
+			buffer.clear();
+		}
+
+		private void makeRoom(int numBytes) throws IOException {
+			if (buffer.remaining() < numBytes)
+				flush();
+		}
+	}
+}
@@ -1,9 +1,12 @@
 package map;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
+import geometry.DelauneyTriangulation;
+import geometry.HalfEdgeMesh;
 import geometry.Point2D;
 import geometry.PoissonDiscSampling;
 import geometry.Polygon2D;
@@ -12,6 +15,7 @@ import geometry.Triangle2D;
 import geometry.VoronoiTesselation;
 import geometry.VoronoiTile;
 import math.MathUtil;
+import metrics.GenerationMetrics;
 
 
 // Generates the layout of tiles for a map.
@@ -25,11 +29,43 @@ public class MapGeometryGenerator {
 		// Number of tested candidates for generated sample points.
 		// Larger number => more evenly spaced sample points but slower.
 		public final int numSampleCandidates;
+		// Algorithm used to triangulate the sample points.
+		// Sweep-hull is much faster for large numbers of sample points.
+		public final DelauneyTriangulation.Algorithm triangulationAlgorithm;
+		// Whether the tiles of the tesselation are built in parallel. The
+		// generated geometry is the same either way.
+		public final boolean isParallelTesselation;
+		// Whether the sample points are generated in parallel. Generates
+		// different sample points than sequential sampling, but the same ones
+		// for the same random number generator.
+		public final boolean isParallelSampling;
 		
 		public Spec(Rect2D bounds, double minSampleDist, int numCandidates) {
+			this(bounds, minSampleDist, numCandidates,
+					DelauneyTriangulation.Algorithm.BOWYER_WATSON);
+		}
+		
+		public Spec(Rect2D bounds, double minSampleDist, int numCandidates,
+				DelauneyTriangulation.Algorithm triangulationAlgo) {
+			this(bounds, minSampleDist, numCandidates, triangulationAlgo, false);
+		}
+		
+		public Spec(Rect2D bounds, double minSampleDist, int numCandidates,
+				DelauneyTriangulation.Algorithm triangulationAlgo,
+				boolean parallelTesselation) {
+			this(bounds, minSampleDist, numCandidates, triangulationAlgo,
+					parallelTesselation, false);
+		}
+		
+		public Spec(Rect2D bounds, double minSampleDist, int numCandidates,
+				DelauneyTriangulation.Algorithm triangulationAlgo,
+				boolean parallelTesselation, boolean parallelSampling) {
 			this.bounds = bounds;
 			this.minSampleDistance = minSampleDist;
 			this.numSampleCandidates = numCandidates;
+			this.triangulationAlgorithm = triangulationAlgo;
+			this.isParallelTesselation = parallelTesselation;
+			this.isParallelSampling = parallelSampling;
 		}
 	}
 
@@ -37,40 +73,63 @@ public class MapGeometryGenerator {
 	
 	private Map.Representation rep;
 	private final Spec spec;
+	// Metrics that the stages of the generation are reported to.
+	private final GenerationMetrics metrics;
 
 	public MapGeometryGenerator(Map map, Spec spec) {
+		this(map, spec, GenerationMetrics.DISABLED);
+	}
+
+	public MapGeometryGenerator(Map map, Spec spec, GenerationMetrics metrics) {
 		this.rep = new Map.Representation();
 		this.spec = spec;
+		this.metrics = metrics;
 	}
 
 	// Uses random sample points to generate the geometry.
 	public Map.Representation generate(Random rand) {
-		List<Point2D> seeds = generateTileSeeds(spec.bounds, spec.minSampleDistance,
-				spec.numSampleCandidates, rand);
-		makeMapGeometry(new VoronoiTesselation(seeds, spec.bounds));
+		List<Point2D> seeds;
+		try (GenerationMetrics.Stage stage = metrics.beginStage("sampling")) {
+			seeds = generateTileSeeds(spec.bounds, spec.minSampleDistance,
+					spec.numSampleCandidates, spec.isParallelSampling, rand);
+			stage.count("samples", seeds.size());
+		}
+		makeMapGeometry(new VoronoiTesselation(seeds, spec.bounds,
+				spec.triangulationAlgorithm, spec.isParallelTesselation, metrics));
 		return rep;
 	}
 	
 	// Uses given sample points to generate the geometry.
 	public Map.Representation generate(List<Point2D> samplePoints) {
-		makeMapGeometry(new VoronoiTesselation(samplePoints, spec.bounds));
+		makeMapGeometry(new VoronoiTesselation(samplePoints, spec.bounds,
+				spec.triangulationAlgorithm, spec.isParallelTesselation, metrics));
 		return rep;
 	}
 	
 	// Generates tile seeds within given bounds.
 	private static List<Point2D> generateTileSeeds(Rect2D bounds, double minSampleDist,
-			int numCandidates, Random rand) {
+			int numCandidates, boolean parallel, Random rand) {
 		PoissonDiscSampling sampler =
 				new PoissonDiscSampling(bounds, minSampleDist, numCandidates, rand);
-		return sampler.generate();
+		return parallel ? sampler.generateParallel() : sampler.generate();
 	}
 	
 	// Constructs the map's geometry for a given tesselation of the mapped area.  
 	private void makeMapGeometry(VoronoiTesselation tess) {
 		List<VoronoiTile> tessTiles = tess.tesselate();
-		makeMapTiles(tessTiles);
-		populateTileNeighbors(tess.getTriangulation());
-		populateNodeNeighbors(tessTiles);
+		try (GenerationMetrics.Stage stage = metrics.beginStage("graph")) {
+			makeMapTiles(tessTiles);
+			if (tess.getMesh() != null)
+				populateTileNeighbors(tess.getMesh(), tessTiles);
+			else
+				populateTileNeighbors(tess.getTriangulation());
+			populateNodeNeighbors();
+			// Compact the neighbors once, so that later reads don't have to.
+			rep.tileAdjacency();
+			rep.nodeAdjacency();
+			stage.count("tiles", rep.countTiles());
+			stage.count("nodes", rep.countNodes());
+		}
 	}
 	
 	// Constructs the tiles that the map is segmented into from given tiles of
@@ -113,7 +172,7 @@ public class MapGeometryGenerator {
 	private void populateTileNeighbors(List<Triangle2D> triangulation) {
 		// Each vertex of a triangle corresponds to a tile seed. The triangle edges
 		// connect neighboring tiles. Mark the tiles of all triangle vertices as
-		// connected to each other.
+		// connected to each other if their shapes touch.
 		for (var triangle : triangulation) {
 			connectTilesAt(triangle.vertex(0), triangle.vertex(1));
 			connectTilesAt(triangle.vertex(1), triangle.vertex(2));
@@ -121,40 +180,81 @@ public class MapGeometryGenerator {
 		}
 	}
 	
-	// Marks two map tiles at given locations as neighbors.
+	// Populates the tile neighbors from the half-edge mesh of the triangulation.
+	// Avoids looking up tiles by location.
+	private void populateTileNeighbors(HalfEdgeMesh mesh,
+			List<VoronoiTile> tessTiles) {
+		// Map each mesh vertex to its tile. The tiles were added to the map in
+		// the same order as the tesselation tiles.
+		int[] vertexTiles = new int[mesh.countVertices()];
+		Arrays.fill(vertexTiles, -1);
+		for (int i = 0; i < tessTiles.size(); ++i)
+			vertexTiles[tessTiles.get(i).seedIndex] = i;
+		
+		// Each edge of the triangulation is the dual of a Voronoi edge. Visit
+		// each edge once through the half-edge with the smaller index. Edges
+		// whose Voronoi edge got clipped away don't connect tiles.
+		int numHalfEdges = mesh.countHalfEdges();
+		for (int e = 0; e < numHalfEdges; ++e) {
+			int opposite = mesh.opposite(e);
+			if (opposite == HalfEdgeMesh.NO_EDGE || e < opposite)
+				connectTiles(vertexTiles[mesh.startVertex(e)],
+						vertexTiles[mesh.endVertex(e)]);
+		}
+	}
+	
+	// Marks two map tiles at given locations as neighbors if their shapes
+	// share a border.
 	private void connectTilesAt(Point2D a, Point2D b) {
-		MapTile tileA = rep.findTileAt(a);
-		MapTile tileB = rep.findTileAt(b);
-		if (tileA != null && tileB != null) {
-			tileA.addNeighbor(tileB);
-			tileB.addNeighbor(tileA);
+		connectTiles(rep.findTileAt(a), rep.findTileAt(b));
+	}
+	
+	// Marks two map tiles at given indices as neighbors if their shapes share
+	// a border.
+	private void connectTiles(int a, int b) {
+		if (a != -1 && b != -1)
+			connectTiles(rep.tile(a), rep.tile(b));
+	}
+	
+	// Marks two given map tiles as neighbors if their shapes share a border.
+	private void connectTiles(MapTile tileA, MapTile tileB) {
+		if (tileA != null && tileB != null && shareBorder(tileA, tileB))
+			rep.connectTiles(tileA.id(), tileB.id());
+	}
+	
+	// Checks if the shapes of two given tiles share a border. The triangles
+	// along the convex hull of the seeds can connect tiles whose Voronoi edge
+	// lies outside of the map's bounds, so their shapes got clipped apart.
+	// Which of those triangles exist depends on the triangulation algorithm.
+	// The shapes are convex, so two shared nodes always span a shared border.
+	private static boolean shareBorder(MapTile a, MapTile b) {
+		int numShared = 0;
+		for (int i = 0; i < a.countNodes(); ++i) {
+			MapNode node = a.node(i);
+			for (int j = 0; j < b.countNodes(); ++j)
+				if (b.node(j) == node && ++numShared == 2)
+					return true;
 		}
+		return false;
 	}
 	
 	// Populates the data structure that holds information about which nodes neighbor
 	// each other.
-	private void populateNodeNeighbors(List<VoronoiTile> tessTiles) {
-		// Each vertex of a Voronoi tile's outline corresponds to a map node. The
-		// border edges connect neighboring nodes. Mark the nodes of neighboring
-		// vertices as connected to each other.
-		for (var tessTile : tessTiles) {
-			int numVertices = tessTile.outline.countVertices();
-			for (int i = 0; i < numVertices; ++i) {
-				Point2D vertex = tessTile.outline.vertex(i);
-				Point2D next = tessTile.outline.vertex(
-						MathUtil.cyclicNext(i, numVertices));
-				connectNodesAt(vertex, next);
+	private void populateNodeNeighbors() {
+		// Each vertex of a tile's shape corresponds to a map node. The border
+		// edges connect neighboring nodes. Mark the nodes of neighboring vertices
+		// as connected to each other. The tiles already hold their nodes in the
+		// order of their shape's vertices, so there is no need to look them up
+		// by location.
+		int numTiles = rep.countTiles();
+		for (int t = 0; t < numTiles; ++t) {
+			MapTile tile = rep.tile(t);
+			int numNodes = tile.countNodes();
+			for (int i = 0; i < numNodes; ++i) {
+				MapNode node = tile.node(i);
+				MapNode next = tile.node(MathUtil.cyclicNext(i, numNodes));
+				rep.connectNodes(node.id(), next.id());
 			}
 		}
 	}
-	
-	// Marks two map nodes at given locations as neighbors.
-	private void connectNodesAt(Point2D a, Point2D b) {
-		MapNode nodeA = rep.findNodeAt(a);
-		MapNode nodeB = rep.findNodeAt(b);
-		if (nodeA != null && nodeB != null) {
-			nodeA.addNeighbor(nodeB);
-			nodeB.addNeighbor(nodeA);
-		}
-	}
 }
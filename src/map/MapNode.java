@@ -9,9 +9,15 @@ import geometry.Point2D;
 public class MapNode extends Object {
 
 	public final Point2D pos;
-	private double elevation = -1;
-	// Array neighboring nodes.
-	private List<MapNode> neighbors = new ArrayList<MapNode>();
+	// Elevation of a node that is not part of a representation. Nodes of a
+	// representation keep their elevation in its attribute store.
+	private double elevation = AttributeStore.ELEVATION.defaultValue;
+	// Representation that the node is part of and the node's id within it. The
+	// representation stores the neighbors of its nodes.
+	private Map.Representation rep;
+	private int id = -1;
+	// Neighboring nodes of a node that is not part of a representation.
+	private List<MapNode> neighbors;
 	
 	public MapNode(Point2D pos) {
 		this.pos = pos;
@@ -29,26 +35,56 @@ public class MapNode extends Object {
 		return pos.equals(otherNode.pos);
 	}
 	
-	// Adds a given node as a neighboring node.
+	// Returns the dense index of the node within its representation or -1 if
+	// the node is not part of a representation.
+	public int id() {
+		return id;
+	}
+	
+	// Makes the node part of a given representation under a given id.
+	void attach(Map.Representation rep, int id) {
+		this.rep = rep;
+		this.id = id;
+		rep.nodeAttributes().set(AttributeStore.ELEVATION, id, elevation);
+	}
+	
+	// Adds a given node as a neighboring node. For nodes of a representation
+	// the neighbor has to be part of the same representation.
 	public void addNeighbor(MapNode node) {
+		if (rep != null) {
+			assert node.rep == rep;
+			rep.nodeAdjacency.addNeighbor(id, node.id);
+			return;
+		}
+		if (neighbors == null)
+			neighbors = new ArrayList<MapNode>();
 		if (!neighbors.contains(node))
 			neighbors.add(node);
 	}
 
 	public int countNeighbors() {
-		return neighbors.size();
+		if (rep != null)
+			return rep.nodeAdjacency().countNeighbors(id);
+		return (neighbors != null) ? neighbors.size() : 0;
 	}
 
 	// Returns a neighboring node given by its index.
 	public MapNode neighbor(int idx) {
+		if (rep != null)
+			return rep.node(rep.nodeAdjacency().neighbor(id, idx));
 		return neighbors.get(idx);
 	}
 	
 	public double elevation() {
+		if (rep != null)
+			return rep.nodeAttributes().get(AttributeStore.ELEVATION, id);
 		return elevation;
 	}
 	
 	public void setElevation(double elevation) {
-		this.elevation = elevation;
+		if (rep != null)
+			rep.nodeAttributes().set(AttributeStore.ELEVATION, id, elevation);
+		else
+			this.elevation = elevation;
 	}
 }
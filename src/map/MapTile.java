@@ -15,9 +15,15 @@ public class MapTile extends Object {
 	public final Rect2D bounds;
 	// Nodes for each point in the tile's shape. Ordered ccw.
 	private List<MapNode> nodes;
-	// Neighboring tiles.
-	private List<MapTile> neighbors = new ArrayList<MapTile>();
-	private double elevation = -1;
+	// Representation that the tile is part of and the tile's id within it. The
+	// representation stores the neighbors of its tiles.
+	private Map.Representation rep;
+	private int id = -1;
+	// Neighboring tiles of a tile that is not part of a representation.
+	private List<MapTile> neighbors;
+	// Elevation of a tile that is not part of a representation. Tiles of a
+	// representation keep their elevation in its attribute store.
+	private double elevation = AttributeStore.ELEVATION.defaultValue;
 	
 	public MapTile(Point2D seed, Polygon2D shape) {
 		this.seed = seed;
@@ -37,6 +43,19 @@ public class MapTile extends Object {
 		return seed.equals(otherTile.seed);
 	}
 	
+	// Returns the dense index of the tile within its representation or -1 if
+	// the tile is not part of a representation.
+	public int id() {
+		return id;
+	}
+	
+	// Makes the tile part of a given representation under a given id.
+	void attach(Map.Representation rep, int id) {
+		this.rep = rep;
+		this.id = id;
+		rep.tileAttributes().set(AttributeStore.ELEVATION, id, elevation);
+	}
+	
 	// Sets the map nodes for each point of the tile's shape.
 	// Caller is responsible to make sure the node's locations correspond
 	// to points on the tile's shape.
@@ -53,27 +72,44 @@ public class MapTile extends Object {
 		return nodes.get(idx);
 	}
 	
-	// Adds a given tile as a neighboring tile.
+	// Adds a given tile as a neighboring tile. For tiles of a representation
+	// the neighbor has to be part of the same representation.
 	public void addNeighbor(MapTile neighbor) {
+		if (rep != null) {
+			assert neighbor.rep == rep;
+			rep.tileAdjacency.addNeighbor(id, neighbor.id);
+			return;
+		}
+		if (neighbors == null)
+			neighbors = new ArrayList<MapTile>();
 		if (!neighbors.contains(neighbor))
 			neighbors.add(neighbor);
 	}
 
 	public int countNeighbors() {
-		return neighbors.size();
+		if (rep != null)
+			return rep.tileAdjacency().countNeighbors(id);
+		return (neighbors != null) ? neighbors.size() : 0;
 	}
 
 	// Returns a neighboring tile.
 	public MapTile neighbor(int idx) {
+		if (rep != null)
+			return rep.tile(rep.tileAdjacency().neighbor(id, idx));
 		return neighbors.get(idx);
 	}
 	
 	public double elevation() {
+		if (rep != null)
+			return rep.tileAttributes().get(AttributeStore.ELEVATION, id);
 		return elevation;
 	}
 	
 	public void setElevation(double val) {
-		elevation = val;
+		if (rep != null)
+			rep.tileAttributes().set(AttributeStore.ELEVATION, id, val);
+		else
+			elevation = val;
 	}
 	
 	public Rect2D bounds() {
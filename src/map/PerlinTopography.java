@@ -3,11 +3,26 @@ package map;
 import java.util.Random;
 
 import geometry.Rect2D;
+import math.HashedPerlinNoise;
 import math.MathUtil;
+import math.Noise2D;
 import math.PerlinNoise;
+import metrics.GenerationMetrics;
 
 public class PerlinTopography implements TopographyGenerator {
 
+	// Algorithms for generating the noise.
+	public enum NoiseAlgorithm {
+		// Random gradient for each integer point of the map's bounds. Memory grows
+		// with the map's size. Keeps the elevations of existing seeded maps.
+		GRADIENT_TABLE,
+		// Gradients derived from a hash of the grid point coordinates. Constant
+		// memory for any map size.
+		HASHED_GRADIENTS
+	}
+	
+	///////////////
+	
 	public static class Spec {
 		public final Rect2D bounds;
 		// Number of octaves used to aggregate Perlin noise value.
@@ -20,11 +35,18 @@ public class PerlinTopography implements TopographyGenerator {
 		// Larger persistence => Larger and smoother features.
 		// Smaller persistence => Smaller and choppier features.
 		public final double persistence;
+		public final NoiseAlgorithm noiseAlgorithm;
 		
 		public Spec(Rect2D bounds, int numOctaves, double persistence) {
+			this(bounds, numOctaves, persistence, NoiseAlgorithm.GRADIENT_TABLE);
+		}
+		
+		public Spec(Rect2D bounds, int numOctaves, double persistence,
+				NoiseAlgorithm noiseAlgo) {
 			this.bounds = bounds;
 			this.numOctaves = numOctaves;
 			this.persistence = persistence;
+			this.noiseAlgorithm = noiseAlgo;
 		}
 	}
 	
@@ -36,9 +58,16 @@ public class PerlinTopography implements TopographyGenerator {
 	private final int width;
 	private final int height;
 	private final Random rand;
+	// Metrics that the generation is reported to.
+	private final GenerationMetrics metrics;
 	
 	public PerlinTopography(Spec spec, Random rand) {
+		this(spec, rand, GenerationMetrics.DISABLED);
+	}
+	
+	public PerlinTopography(Spec spec, Random rand, GenerationMetrics metrics) {
 		this.spec = spec;
+		this.metrics = metrics;
 		this.left = (int) (spec.bounds.left());
 		this.top = (int) (spec.bounds.top());
 		this.width = (int) (spec.bounds.right() - left) + 1;
@@ -48,23 +77,62 @@ public class PerlinTopography implements TopographyGenerator {
 	
 	@Override
 	public void generate(Map.Representation rep) {
-		PerlinNoise perlinGen = new PerlinNoise(width, height, rand);
+		try (GenerationMetrics.Stage stage = metrics.beginStage("noise")) {
+			generateElevations(rep);
+			stage.count("points", rep.countNodes() + rep.countTiles());
+		}
+	}
+	
+	// Calculates the elevations of all nodes and tiles from noise.
+	private void generateElevations(Map.Representation rep) {
+		Noise2D perlinGen = makeNoise();
 		
-		for (int i = 0; i < rep.countNodes(); ++i) {
+		// Calculate the noise for all nodes and tiles in batches and write the
+		// elevations directly into the attribute channels.
+		int numNodes = rep.countNodes();
+		double[] xs = new double[numNodes];
+		double[] ys = new double[numNodes];
+		for (int i = 0; i < numNodes; ++i) {
 			MapNode node = rep.node(i);
-			double noise = perlinGen.calcOctaveNoise(node.pos, spec.numOctaves,
-					spec.persistence);
-			node.setElevation(scaleElevation(noise));
+			xs[i] = node.pos.x;
+			ys[i] = node.pos.y;
 		}
+		double[] nodeElevs = rep.nodeAttributes().channel(AttributeStore.ELEVATION);
+		perlinGen.calcOctaveNoise(xs, ys, nodeElevs, numNodes, spec.numOctaves,
+				spec.persistence);
+		scaleElevations(nodeElevs, numNodes);
 		
-		for (int i = 0; i < rep.countTiles(); ++i) {
+		int numTiles = rep.countTiles();
+		xs = new double[numTiles];
+		ys = new double[numTiles];
+		for (int i = 0; i < numTiles; ++i) {
 			MapTile tile = rep.tile(i);
-			double noise = perlinGen.calcOctaveNoise(tile.seed, spec.numOctaves,
-					spec.persistence);
-			tile.setElevation(scaleElevation(noise));
+			xs[i] = tile.seed.x;
+			ys[i] = tile.seed.y;
+		}
+		double[] tileElevs = rep.tileAttributes().channel(AttributeStore.ELEVATION);
+		perlinGen.calcOctaveNoise(xs, ys, tileElevs, numTiles, spec.numOctaves,
+				spec.persistence);
+		scaleElevations(tileElevs, numTiles);
+	}
+	
+	// Creates the noise generator selected in the spec.
+	private Noise2D makeNoise() {
+		switch (spec.noiseAlgorithm) {
+		case HASHED_GRADIENTS:
+			return new HashedPerlinNoise(rand);
+		default:
+			return new PerlinNoise(width, height, rand);
 		}
 	}
 	
+	// Scales a given number of noise values at the start of a given array to
+	// elevations.
+	private static void scaleElevations(double[] values, int numValues) {
+		for (int i = 0; i < numValues; ++i)
+			values[i] = scaleElevation(values[i]);
+	}
+	
 	// Scales elevation values because Perlin noise values calculated with multiple
 	// octaves tend to be pretty flat.
 	private static double scaleElevation(double elev) {
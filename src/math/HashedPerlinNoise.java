@@ -0,0 +1,106 @@
+package math;
+
+import java.util.Random;
+
+import geometry.Vector2D;
+
+// Implementation of Perlin noise that derives the gradient of each grid point
+// from a hash of the grid point's coordinates. Picks the gradient from a small,
+// fixed table of random gradients. Unlike PerlinNoise the memory is constant and
+// the noise is defined on the whole plane, including negative coordinates,
+// without repeating.
+// Sources:
+//   https://mzucker.github.io/html/perlin-noise-math-faq.html
+//   https://flafla2.github.io/2014/08/09/perlinnoise.html
+public class HashedPerlinNoise implements Noise2D {
+
+	// Number of gradients in the table. Has to be a power of two.
+	private static final int NUM_GRADIENTS = 256;
+	private final long seed;
+	private final double[] gradientX = new double[NUM_GRADIENTS];
+	private final double[] gradientY = new double[NUM_GRADIENTS];
+	
+	public HashedPerlinNoise(Random rand) {
+		this.seed = rand.nextLong();
+		for (int i = 0; i < NUM_GRADIENTS; ++i) {
+			Vector2D grad = makeGradient(rand);
+			gradientX[i] = grad.x;
+			gradientY[i] = grad.y;
+		}
+	}
+	
+	// Calculates Perlin noise value in range [-1, 1) at a point with given
+	// coordinates.
+	@Override
+	public double calcNoise(double x, double y) {
+		// Determine grid cell that point falls into.
+		double left = Math.floor(x);
+		double top = Math.floor(y);
+		long gridLeft = (long) left;
+		long gridTop = (long) top;
+		
+		// Calculate the influence that each grid node has on the result, i.e.
+		// the dot product of the node's gradient and the vector from the node
+		// to the point.
+		double distLeft = x - left;
+		double distRight = distLeft - 1;
+		double distTop = y - top;
+		double distBottom = distTop - 1;
+		int topLeft = gradientIndex(gridLeft, gridTop);
+		int topRight = gradientIndex(gridLeft + 1, gridTop);
+		int bottomLeft = gradientIndex(gridLeft, gridTop + 1);
+		int bottomRight = gradientIndex(gridLeft + 1, gridTop + 1);
+		double influenceTopLeft = gradientX[topLeft] * distLeft +
+				gradientY[topLeft] * distTop;
+		double influenceTopRight = gradientX[topRight] * distRight +
+				gradientY[topRight] * distTop;
+		double influenceBottomLeft = gradientX[bottomLeft] * distLeft +
+				gradientY[bottomLeft] * distBottom;
+		double influenceBottomRight = gradientX[bottomRight] * distRight +
+				gradientY[bottomRight] * distBottom;
+		
+		// Average/interpolate the influences of each grid node.
+		// Use a fade function to smooth the interpolation.
+		double weightX = fade(distLeft);
+		double avgTop = linearInterpolate(influenceTopLeft, influenceTopRight,
+				weightX);
+		double avgBottom = linearInterpolate(influenceBottomLeft,
+				influenceBottomRight, weightX);
+		double weightY = fade(distTop);
+		return linearInterpolate(avgTop, avgBottom, weightY);
+	}
+	
+	// Calculates the index of the gradient for a grid point with given
+	// coordinates by hashing the coordinates.
+	private int gradientIndex(long gridX, long gridY) {
+		long h = seed ^ (gridX * 0x9E3779B97F4A7C15L) ^ (gridY * 0xC2B2AE3D27D4EB4FL);
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		return (int) h & (NUM_GRADIENTS - 1);
+	}
+	
+	// S-shaped fade curve for weighted interpolation.
+	private static double fade(double t) {
+		// f(t) = 6t^5-15t^4+10t^3
+		return t * t * t * (t * (t * 6 - 15) + 10);
+	}
+	
+	// Linear interpolation between two values at a given ratio.
+	private static double linearInterpolate(double a, double b, double ratio) {
+		return a + ratio * (b - a);
+	}
+	
+	// Generates a normalized non-zero gradient vector.
+	private static Vector2D makeGradient(Random rand) {
+		Vector2D grad = new Vector2D(coord(rand), coord(rand));
+		while (grad.lengthSquared() == 0)
+			grad = new Vector2D(rand.nextDouble(), rand.nextDouble());
+		return grad.normalize();
+	}
+	
+	// Returns a random value in range [-1, 1).
+	private static double coord(Random rand) {
+		return -1 + rand.nextDouble() * 2;
+	}
+}
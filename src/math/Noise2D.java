@@ -0,0 +1,62 @@
+package math;
+
+import java.util.stream.IntStream;
+
+import geometry.Point2D;
+
+// Source of 2D noise values. Provides calculating the noise at multiple levels
+// of scale (octaves) for single points and batches of points.
+public interface Noise2D {
+
+	// Calculates the noise value in range [-1, 1) at a point with given
+	// coordinates.
+	public double calcNoise(double x, double y);
+	
+	// Calculates noise in range [-1, 1) at a given point using multiple passes
+	// to accumulate the noise value at different levels of scale.
+	public default double calcOctaveNoise(Point2D at, int numOctaves,
+			double persistence) {
+		return calcOctaveNoise(at.x, at.y, numOctaves, persistence);
+	}
+	
+	// Calculates octave noise at a point with given coordinates. Same as the
+	// overload taking a point but without allocating any objects.
+	public default double calcOctaveNoise(double x, double y, int numOctaves,
+			double persistence) {
+		// Accumulates the influences of terrain areas at different scales to the
+		// noise for the given point.
+	    // As the frequency goes down larger and larger areas in the grid contribute
+	    // a value to the noise. At the same time the amplitude goes up emphasizing
+		// the contribution of larger scale areas compared to smaller scale areas.
+	    double total = 0;
+	    double frequency = 1;
+	    double amplitude = 1;
+	    double maxValue = 0;
+	    
+	    for(int i = 0; i < numOctaves; ++i) {
+	        total += calcNoise(x * frequency, y * frequency) * amplitude;
+	        maxValue += amplitude;
+	        
+	        amplitude *= persistence;
+	        frequency /= 2;
+	    }
+	    
+	    return total / maxValue;
+	}
+	
+	// Calculates octave noise for a batch of points given by their coordinates
+	// and stores it in a given array. Splits the batch into parts that are
+	// calculated in parallel. The results are the same as for calculating
+	// each point on its own.
+	public default void calcOctaveNoise(double[] xs, double[] ys, double[] out,
+			int numOctaves, double persistence) {
+		calcOctaveNoise(xs, ys, out, xs.length, numOctaves, persistence);
+	}
+	
+	// Overload for a given number of points at the start of the arrays.
+	public default void calcOctaveNoise(double[] xs, double[] ys, double[] out,
+			int numPoints, int numOctaves, double persistence) {
+		IntStream.range(0, numPoints).parallel().forEach((int i) ->
+			out[i] = calcOctaveNoise(xs[i], ys[i], numOctaves, persistence));
+	}
+}
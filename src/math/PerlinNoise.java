@@ -1,109 +1,124 @@
 package math;
 
 import java.util.Random;
+import java.util.stream.IntStream;
 
 import geometry.Point2D;
 import geometry.Vector2D;
 
 // Implementation of Perlin noise algorithm.
+// Stores a random gradient for each integer grid point of its range. The memory
+// grows with the size of the range.
+// Batches of points are vectorized if the jdk.incubator.vector module is
+// present. Otherwise they are calculated with scalar code.
 // Sources:
 //   https://mzucker.github.io/html/perlin-noise-math-faq.html
 //   https://flafla2.github.io/2014/08/09/perlinnoise.html
-public class PerlinNoise {
+public class PerlinNoise implements Noise2D {
 
-	// Data needs for a grid node during the calculation.
-	private static class GridNode {
-		public final Point2D pos;
-		public final Vector2D gradient;
-		
-		public GridNode(Point2D pos, Vector2D gradient) {
-			this.pos = pos;
-			this.gradient = gradient;
-		}
-	}
-	
-	///////////////
-	
-	private final int width;
-	private final int height;
-	// Random gradients for each grid point.
-	private final Vector2D gradients[][];
+	// Checks once if the Vector API is available. The module is optional and
+	// only present if it was added when starting the app.
+	private static final boolean VECTOR_API_PRESENT =
+			ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+	// Number of points in each part of a batch that is calculated in parallel.
+	private static final int BATCH_PART_SIZE = 1024;
+	// Package-private to be read by the vectorized calculation.
+	final int width;
+	final int height;
+	// Components of the random gradients for each grid point. Stored row by
+	// row with (width + 1) points per row.
+	final double[] gradientX;
+	final double[] gradientY;
+	// Vectorized calculation for batches. Null if the Vector API is not
+	// available.
+	private final VectorPerlinNoise vectorized;
 	
 	public PerlinNoise(int width, int height, Random rand) {
 		this.width = width;
 		this.height = height;
-		this.gradients = makeGradients(width + 1, height + 1, rand);
+		int numGridPoints = (width + 1) * (height + 1);
+		this.gradientX = new double[numGridPoints];
+		this.gradientY = new double[numGridPoints];
+		makeGradients(width + 1, height + 1, rand);
+		this.vectorized = VECTOR_API_PRESENT ? new VectorPerlinNoise(this) : null;
 	}
 	
-	// Calculates Perlin noise in range [-1, 1) at a given point in 2D range
-	// ([0, width], [0, height]) using multiple passes to accumulate the noise
-	// value at different levels of scale.
-	public double calcOctaveNoise(Point2D at, int numOctaves, double persistence) {
-		// Accumulates the influences of terrain areas at different scales to the
-		// noise for the given point.
-	    // As the frequency goes down larger and larger areas in the grid contribute
-	    // a value to the noise. At the same time the amplitude goes up emphasizing
-		// the contribution of larger scale areas compared to smaller scale areas.
-	    double total = 0;
-	    double frequency = 1;
-	    double amplitude = 1;
-	    double maxValue = 0;
-	    
-	    for(int i = 0; i < numOctaves; ++i) {
-	        total += calcNoise(at.scale(frequency)) * amplitude;
-	        maxValue += amplitude;
-	        
-	        amplitude *= persistence;
-	        frequency /= 2;
-	    }
-	    
-	    return total / maxValue;
+	// Checks if batches of points are calculated with the Vector API.
+	public static boolean isVectorized() {
+		return VECTOR_API_PRESENT;
 	}
 	
 	// Calculates Perlin noise value in range [-1, 1) at a given point in 2D range
 	// ([0, width], [0, height]). Caller is responsible for keeping input point in
 	// legal range.
 	public double calcNoise(Point2D at) {
+		return calcNoise(at.x, at.y);
+	}
+	
+	// Calculates Perlin noise value at a point with given coordinates. Same as
+	// the overload taking a point but without allocating any objects.
+	@Override
+	public double calcNoise(double x, double y) {
 		// Determine grid cell that point falls into.
-		int gridLeft = (int) (at.x % width); 
+		int gridLeft = (int) (x % width); 
 		int gridRight = gridLeft + 1; 
-		int gridTop = (int) (at.y % height); 
+		int gridTop = (int) (y % height); 
 		int gridBottom = gridTop + 1;
 		
-		// Collect data for each grid node that is involved in calculation.
-		final int numGridNodes = 4;
-		GridNode gridNode[] = new GridNode[] {
-			new GridNode(new Point2D(gridLeft, gridTop),
-					gradients[gridTop][gridLeft]),
-			new GridNode(new Point2D(gridRight, gridTop),
-					gradients[gridTop][gridRight]),
-			new GridNode(new Point2D(gridLeft, gridBottom),
-					gradients[gridBottom][gridLeft]),
-			new GridNode(new Point2D(gridRight, gridBottom),
-					gradients[gridBottom][gridRight])
-		};
-		
-		// Calculate the influence that each grid node has on the result.
-		double[] influence = new double[numGridNodes];
-		for (int i = 0; i < numGridNodes; ++i) {
-			GridNode corner = gridNode[i];
-			Vector2D influenceVec = new Vector2D(corner.pos, at);
-			influence[i] = corner.gradient.dot(influenceVec);
-		}
+		// Calculate the influence that each grid node has on the result, i.e.
+		// the dot product of the node's gradient and the vector from the node
+		// to the point.
+		double distLeft = x - gridLeft;
+		double distRight = x - gridRight;
+		double distTop = y - gridTop;
+		double distBottom = y - gridBottom;
+		int topLeft = gridTop * (width + 1) + gridLeft;
+		int bottomLeft = gridBottom * (width + 1) + gridLeft;
+		double influenceTopLeft = gradientX[topLeft] * distLeft +
+				gradientY[topLeft] * distTop;
+		double influenceTopRight = gradientX[topLeft + 1] * distRight +
+				gradientY[topLeft + 1] * distTop;
+		double influenceBottomLeft = gradientX[bottomLeft] * distLeft +
+				gradientY[bottomLeft] * distBottom;
+		double influenceBottomRight = gradientX[bottomLeft + 1] * distRight +
+				gradientY[bottomLeft + 1] * distBottom;
 		
 		// Average/interpolate the influences of each grid node.
 		// Use a fade function to smooth the interpolation.
 		// First average horizontally.
-		double weightX = fade(at.x - gridLeft);
-		double avgTop = linearInterpolate(influence[0], influence[1], weightX);
-		double avgBottom = linearInterpolate(influence[2], influence[3], weightX);
+		double weightX = fade(distLeft);
+		double avgTop = linearInterpolate(influenceTopLeft, influenceTopRight,
+				weightX);
+		double avgBottom = linearInterpolate(influenceBottomLeft,
+				influenceBottomRight, weightX);
 		// Then average the horizontal averages vertically.
-		double weightY = fade(at.y - gridTop);
+		double weightY = fade(distTop);
 		double avg = linearInterpolate(avgTop, avgBottom, weightY);
 		
 		return avg;
 	}
 	
+	// Calculates octave noise for a batch of points. Splits the batch into
+	// parts that are calculated in parallel. Each part is vectorized if
+	// possible. The results are the same as for calculating each point on its
+	// own.
+	@Override
+	public void calcOctaveNoise(double[] xs, double[] ys, double[] out,
+			int numPoints, int numOctaves, double persistence) {
+		if (vectorized == null) {
+			Noise2D.super.calcOctaveNoise(xs, ys, out, numPoints, numOctaves,
+					persistence);
+			return;
+		}
+		int numParts = (numPoints + BATCH_PART_SIZE - 1) / BATCH_PART_SIZE;
+		IntStream.range(0, numParts).parallel().forEach((int part) -> {
+			int from = part * BATCH_PART_SIZE;
+			int to = Math.min(from + BATCH_PART_SIZE, numPoints);
+			vectorized.calcOctaveNoise(xs, ys, out, from, to, numOctaves,
+					persistence);
+		});
+	}
+	
 	// S-shaped fade curve for weighted interpolation.
 	private static double fade(double t) {
 		// f(t) = 6t^5-15t^4+10t^3
@@ -118,12 +133,14 @@ public class PerlinNoise {
 	}
 	
 	// Generates random gradient vectors at each grid point.
-	private static Vector2D[][] makeGradients(int width, int height, Random rand) {
-		var grads = new Vector2D[height][width];
-		for (int r = 0; r < height; ++r)
-			for (int c = 0; c < width; ++c)
-				grads[r][c] = makeGradient(rand);
-		return grads;
+	private void makeGradients(int width, int height, Random rand) {
+		for (int r = 0; r < height; ++r) {
+			for (int c = 0; c < width; ++c) {
+				Vector2D grad = makeGradient(rand);
+				gradientX[r * width + c] = grad.x;
+				gradientY[r * width + c] = grad.y;
+			}
+		}
 	}
 	
 	// Generates a normalized non-zero gradient vector.
@@ -0,0 +1,169 @@
+package math;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// Evaluates the octave noise of a PerlinNoise object for batches of points with
+// the Vector API. Each operation processes as many points as the CPU's vector
+// registers have lanes for doubles, e.g. 4 points for AVX2 and 8 points for
+// AVX-512.
+// - Uses the jdk.incubator.vector module. Only used by PerlinNoise if the module
+//   is present at runtime, i.e. if the app was started with
+//   '--add-modules jdk.incubator.vector'. Must not be referenced otherwise.
+// - Performs the same floating point operations in the same order as the scalar
+//   code. The results are the same as calculating each point on its own.
+// - Looking up the grid points and their gradients is done per lane with
+//   scalar code. The interpolation is done with vector operations.
+// - Points outside of the noise's range are calculated with the scalar code.
+// - The vector operations are kept in a single method. Vectors are only kept
+//   in registers if all operations on them are inlined into the same compiled
+//   method. Otherwise they are boxed.
+final class VectorPerlinNoise {
+
+	private static final VectorSpecies<Double> SPECIES =
+			DoubleVector.SPECIES_PREFERRED;
+	private final PerlinNoise noise;
+	private final int rowLength;
+
+	VectorPerlinNoise(PerlinNoise noise) {
+		this.noise = noise;
+		this.rowLength = noise.width + 1;
+	}
+
+	// Returns the number of points that are calculated in each vector
+	// operation.
+	static int countLanes() {
+		return SPECIES.length();
+	}
+
+	// Calculates octave noise for points with indices [from, to) of given
+	// coordinate arrays and stores it at the same indices of a given array.
+	void calcOctaveNoise(double[] xs, double[] ys, double[] out, int from,
+			int to, int numOctaves, double persistence) {
+		Lanes lanes = new Lanes();
+		int i = from;
+		for (; i <= to - SPECIES.length(); i += SPECIES.length()) {
+			if (!isInRange(xs, ys, i)) {
+				calcScalar(xs, ys, out, i, i + SPECIES.length(), numOctaves,
+						persistence);
+				continue;
+			}
+
+			// Same accumulation as Noise2D.calcOctaveNoise().
+			DoubleVector total = DoubleVector.zero(SPECIES);
+			double frequency = 1;
+			double amplitude = 1;
+			double maxValue = 0;
+			for (int octave = 0; octave < numOctaves; ++octave) {
+				lanes.load(xs, ys, i, frequency);
+
+				// Same operations as PerlinNoise.calcNoise().
+				DoubleVector x = DoubleVector.fromArray(SPECIES, lanes.x, 0);
+				DoubleVector y = DoubleVector.fromArray(SPECIES, lanes.y, 0);
+				DoubleVector gridLeft =
+						DoubleVector.fromArray(SPECIES, lanes.gridLeft, 0);
+				DoubleVector gridTop =
+						DoubleVector.fromArray(SPECIES, lanes.gridTop, 0);
+				DoubleVector distLeft = x.sub(gridLeft);
+				DoubleVector distRight = x.sub(gridLeft.add(1));
+				DoubleVector distTop = y.sub(gridTop);
+				DoubleVector distBottom = y.sub(gridTop.add(1));
+
+				// Influence of each grid node.
+				DoubleVector influenceTopLeft = DoubleVector.fromArray(SPECIES,
+						lanes.gradX[0], 0).mul(distLeft).add(DoubleVector.fromArray(
+						SPECIES, lanes.gradY[0], 0).mul(distTop));
+				DoubleVector influenceTopRight = DoubleVector.fromArray(SPECIES,
+						lanes.gradX[1], 0).mul(distRight).add(DoubleVector.fromArray(
+						SPECIES, lanes.gradY[1], 0).mul(distTop));
+				DoubleVector influenceBottomLeft = DoubleVector.fromArray(SPECIES,
+						lanes.gradX[2], 0).mul(distLeft).add(DoubleVector.fromArray(
+						SPECIES, lanes.gradY[2], 0).mul(distBottom));
+				DoubleVector influenceBottomRight = DoubleVector.fromArray(SPECIES,
+						lanes.gradX[3], 0).mul(distRight).add(DoubleVector.fromArray(
+						SPECIES, lanes.gradY[3], 0).mul(distBottom));
+
+				// Interpolate horizontally, then vertically. The weights use the
+				// fade function t * t * t * (t * (t * 6 - 15) + 10).
+				DoubleVector weightX = distLeft.mul(distLeft).mul(distLeft).mul(
+						distLeft.mul(distLeft.mul(6).sub(15)).add(10));
+				DoubleVector avgTop = influenceTopLeft.add(weightX.mul(
+						influenceTopRight.sub(influenceTopLeft)));
+				DoubleVector avgBottom = influenceBottomLeft.add(weightX.mul(
+						influenceBottomRight.sub(influenceBottomLeft)));
+				DoubleVector weightY = distTop.mul(distTop).mul(distTop).mul(
+						distTop.mul(distTop.mul(6).sub(15)).add(10));
+				DoubleVector noiseVal = avgTop.add(weightY.mul(
+						avgBottom.sub(avgTop)));
+
+				total = total.add(noiseVal.mul(amplitude));
+				maxValue += amplitude;
+
+				amplitude *= persistence;
+				frequency /= 2;
+			}
+			total.div(maxValue).intoArray(out, i);
+		}
+		calcScalar(xs, ys, out, i, to, numOctaves, persistence);
+	}
+
+	// Checks if the points of a vector starting at a given index are within the
+	// noise's range [0, width) x [0, height). Within the range truncating a
+	// coordinate gives the same grid coordinate as the scalar code. The octaves
+	// only scale the coordinates down, so they stay within the range.
+	private boolean isInRange(double[] xs, double[] ys, int start) {
+		for (int i = start; i < start + SPECIES.length(); ++i)
+			if (!(xs[i] >= 0 && xs[i] < noise.width && ys[i] >= 0 &&
+					ys[i] < noise.height))
+				return false;
+		return true;
+	}
+
+	private void calcScalar(double[] xs, double[] ys, double[] out, int from,
+			int to, int numOctaves, double persistence) {
+		for (int i = from; i < to; ++i)
+			out[i] = noise.calcOctaveNoise(xs[i], ys[i], numOctaves, persistence);
+	}
+
+	///////////////
+
+	// Per-lane values that are looked up with scalar code. Reused for all
+	// vectors of a batch.
+	private final class Lanes {
+		final double[] x = new double[SPECIES.length()];
+		final double[] y = new double[SPECIES.length()];
+		final double[] gridLeft = new double[SPECIES.length()];
+		final double[] gridTop = new double[SPECIES.length()];
+		// Gradients of the top-left, top-right, bottom-left and bottom-right
+		// grid points of each lane.
+		final double[][] gradX = new double[4][SPECIES.length()];
+		final double[][] gradY = new double[4][SPECIES.length()];
+
+		// Loads the points of a vector starting at a given index of given
+		// coordinate arrays scaled by a given frequency. Determines the grid cell
+		// that each point falls into and looks up the gradients of its grid
+		// points.
+		void load(double[] xs, double[] ys, int start, double frequency) {
+			double[] gradientX = noise.gradientX;
+			double[] gradientY = noise.gradientY;
+			for (int l = 0; l < x.length; ++l) {
+				x[l] = xs[start + l] * frequency;
+				y[l] = ys[start + l] * frequency;
+				int left = (int) x[l];
+				int top = (int) y[l];
+				gridLeft[l] = left;
+				gridTop[l] = top;
+				int topLeft = top * rowLength + left;
+				int bottomLeft = topLeft + rowLength;
+				gradX[0][l] = gradientX[topLeft];
+				gradY[0][l] = gradientY[topLeft];
+				gradX[1][l] = gradientX[topLeft + 1];
+				gradY[1][l] = gradientY[topLeft + 1];
+				gradX[2][l] = gradientX[bottomLeft];
+				gradY[2][l] = gradientY[bottomLeft];
+				gradX[3][l] = gradientX[bottomLeft + 1];
+				gradY[3][l] = gradientY[bottomLeft + 1];
+			}
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// Records the wall time, allocated memory and element counts of the stages of
+// generating a map.
+// - Generators begin a stage when they start a step and close it when the step
+//   is done. Stages that begin while another stage is open become its
+//   sub-stages.
+// - The recorded stages can be exported as JSON.
+// - DISABLED records nothing. Its stages are a shared object that does
+//   nothing, so generators can report to it at almost no cost.
+// - Not thread-safe. Stages have to be begun and closed on the thread that
+//   generates the map. Use one object for each generated map.
+// - Allocated memory is measured for the thread that begins the stage. Memory
+//   allocated by parallel work on other threads is not included.
+public class GenerationMetrics {
+
+	// Measurements of a step of the generation.
+	public static class Stage implements AutoCloseable {
+		public final String name;
+		private final GenerationMetrics owner;
+		private final long startNanos;
+		private final long startAllocated;
+		private long wallNanos = 0;
+		// Negative if measuring allocations is not supported.
+		private long allocatedBytes = -1;
+		private final java.util.Map<String, Long> counts =
+				new LinkedHashMap<String, Long>();
+		private final List<Stage> subStages = new ArrayList<Stage>();
+		private final Stage parent;
+
+		private Stage(String name, GenerationMetrics owner, Stage parent) {
+			this.name = name;
+			this.owner = owner;
+			this.parent = parent;
+			this.startAllocated = (owner != null) ? owner.currentAllocatedBytes() : -1;
+			this.startNanos = System.nanoTime();
+		}
+
+		// Records the number of elements of a given kind, e.g. "tiles", that the
+		// stage produced. Adds to previous counts of the same kind.
+		public void count(String kind, long num) {
+			if (owner != null)
+				counts.merge(kind, num, Long::sum);
+		}
+
+		// Ends the stage.
+		@Override
+		public void close() {
+			if (owner == null)
+				return;
+			wallNanos = System.nanoTime() - startNanos;
+			long allocated = owner.currentAllocatedBytes();
+			if (allocated >= 0 && startAllocated >= 0)
+				allocatedBytes = allocated - startAllocated;
+			owner.endStage(this);
+		}
+
+		public long wallNanos() {
+			return wallNanos;
+		}
+
+		// Returns the memory allocated during the stage or -1 if it could not be
+		// measured.
+		public long allocatedBytes() {
+			return allocatedBytes;
+		}
+
+		// Returns the recorded count of elements of a given kind or 0 if none
+		// were recorded.
+		public long count(String kind) {
+			return counts.getOrDefault(kind, 0L);
+		}
+
+		public List<Stage> subStages() {
+			return subStages;
+		}
+
+		// Returns the sub-stage with a given name or null if there is none.
+		public Stage subStage(String name) {
+			for (Stage sub : subStages)
+				if (sub.name.equals(name))
+					return sub;
+			return null;
+		}
+
+		private void appendJson(StringBuilder out) {
+			out.append("{\"name\":");
+			appendJsonString(name, out);
+			out.append(",\"wallNanos\":").append(wallNanos);
+			out.append(",\"allocatedBytes\":").append(allocatedBytes);
+			out.append(",\"counts\":{");
+			boolean first = true;
+			for (var entry : counts.entrySet()) {
+				if (!first)
+					out.append(',');
+				appendJsonString(entry.getKey(), out);
+				out.append(':').append(entry.getValue());
+				first = false;
+			}
+			out.append("},\"stages\":");
+			appendStagesJson(subStages, out);
+			out.append('}');
+		}
+	}
+
+	///////////////
+
+	// Records nothing.
+	public static final GenerationMetrics DISABLED = new GenerationMetrics(false);
+	// Stage that records nothing. Returned for all stages of DISABLED.
+	private static final Stage NO_STAGE = new Stage("", null, null);
+	private final boolean isEnabled;
+	// Top-level stages in the order they began.
+	private final List<Stage> stages = new ArrayList<Stage>();
+	// Innermost stage that is open. Null if none is open.
+	private Stage current = null;
+	private final com.sun.management.ThreadMXBean threadBean;
+
+	public GenerationMetrics() {
+		this(true);
+	}
+
+	private GenerationMetrics(boolean enabled) {
+		this.isEnabled = enabled;
+		this.threadBean = enabled ? findThreadBean() : null;
+	}
+
+	public boolean isEnabled() {
+		return isEnabled;
+	}
+
+	// Begins a stage with a given name. Must be closed when the stage ends,
+	// ideally with try-with-resources.
+	public Stage beginStage(String name) {
+		if (!isEnabled)
+			return NO_STAGE;
+		Stage stage = new Stage(name, this, current);
+		if (current != null)
+			current.subStages.add(stage);
+		else
+			stages.add(stage);
+		current = stage;
+		return stage;
+	}
+
+	// Returns the top-level stages in the order they began.
+	public List<Stage> stages() {
+		return stages;
+	}
+
+	// Returns the top-level stage with a given name or null if there is none.
+	public Stage stage(String name) {
+		for (Stage stage : stages)
+			if (stage.name.equals(name))
+				return stage;
+		return null;
+	}
+
+	// Exports the recorded stages as JSON. Each stage is an object with its
+	// name, wall time in nanoseconds, allocated bytes (-1 if unknown), counts
+	// and sub-stages.
+	public String toJson() {
+		StringBuilder out = new StringBuilder();
+		out.append("{\"stages\":");
+		appendStagesJson(stages, out);
+		out.append('}');
+		return out.toString();
+	}
+
+	private void endStage(Stage stage) {
+		// Closing an outer stage also ends the inner stages that are still open.
+		if (current != null)
+			current = stage.parent;
+	}
+
+	// Returns the memory allocated by the current thread so far or -1 if it
+	// can't be measured.
+	private long currentAllocatedBytes() {
+		if (threadBean == null)
+			return -1;
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	// Returns the JVM's thread bean if it supports measuring allocated memory.
+	private static com.sun.management.ThreadMXBean findThreadBean() {
+		var bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			var sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() &&
+					sunBean.isThreadAllocatedMemoryEnabled())
+				return sunBean;
+		}
+		return null;
+	}
+
+	private static void appendStagesJson(List<Stage> stages, StringBuilder out) {
+		out.append('[');
+		for (int i = 0; i < stages.size(); ++i) {
+			if (i > 0)
+				out.append(',');
+			stages.get(i).appendJson(out);
+		}
+		out.append(']');
+	}
+
+	private static void appendJsonString(String val, StringBuilder out) {
+		out.append('"');
+		for (int i = 0; i < val.length(); ++i) {
+			char c = val.charAt(i);
+			if (c == '"' || c == '\\')
+				out.append('\\').append(c);
+			else if (c < 0x20)
+				out.append(String.format("\\u%04x", (int) c));
+			else
+				out.append(c);
+		}
+		out.append('"');
+	}
+}
@@ -7,10 +7,15 @@ module TheMapApp {
 	requires javafx.swing;
 	requires javafx.web;
 	requires junit;
+	requires jdk.management;
+	// Optional. Vectorizes noise calculation if present at runtime.
+	requires static jdk.incubator.vector;
 	
 	exports app;
+	exports batch;
 	exports geometry;
 	exports map;
 	exports math;
+	exports metrics;
 	exports view2d;
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.util.List;
 
 import geometry.Point2D;
 import geometry.Rect2D;
+import geometry.RectGrid;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.canvas.Canvas;
@@ -15,6 +16,22 @@ import map.MapTile;
 
 public class CanvasMapView implements MapView {
 
+	// How the map is drawn onto the canvas.
+	public enum RenderMode {
+		// Fills the shapes of the visible tiles for each frame.
+		VECTOR,
+		// Draws cached images of the map at a set of zoom levels. Fills the
+		// shapes when zoomed in further than the cached levels. See
+		// RasterTileCache.
+		RASTER_TILES,
+		// Renders whole frames on a background thread and shows them when they
+		// are finished. Pans only render the exposed strips. See FrameRenderer.
+		BACKGROUND_FRAMES
+	}
+	
+	///////////////
+	
+	private static final Color BACKGROUND = Color.web("#FFFFDC");
 	private Texture tex;
 	private Group mapNode;
 	// Canvas that map is drawn into.
@@ -30,10 +47,30 @@ public class CanvasMapView implements MapView {
 	// as class fields avoids allocating them for each tile for each render operation.
 	List<double[]> tileXCoords;
 	List<double[]> tileYCoords;
+	// Index of the tile bounds used to find the tiles within the viewport.
+	private RectGrid tileGrid;
+	// Cached images of the map. Null if not rendering from raster tiles.
+	private RasterTileCache rasterCache;
+	// Renderer of background frames. Null if not rendering in the background.
+	private FrameRenderer frameRenderer;
+	// Part of the moves that was not applied yet because background frames are
+	// only moved by whole pixels.
+	private double pendingDx = 0;
+	private double pendingDy = 0;
 	
 	public CanvasMapView(Texture tex, int width, int height, double scale) {
+		this(tex, width, height, scale, RenderMode.VECTOR);
+	}
+	
+	public CanvasMapView(Texture tex, int width, int height, double scale,
+			RenderMode renderMode) {
 		this.tex = tex;
+		if (renderMode == RenderMode.RASTER_TILES)
+			this.rasterCache = new RasterTileCache(TileRasterizer.toArgb(BACKGROUND),
+					this::render);
 		this.canvas = new Canvas(width, height);
+		if (renderMode == RenderMode.BACKGROUND_FRAMES)
+			this.frameRenderer = new FrameRenderer(canvas, BACKGROUND);
 		this.mapNode = new Group();
 		mapNode.getChildren().add(canvas);
 		this.zoom = scale;
@@ -49,15 +86,57 @@ public class CanvasMapView implements MapView {
 	@Override
 	public void setMap(map.Map mapModel) {
 		map = mapModel;
+		// Release the fills of the previous map's tiles.
+		tex.invalidateFills();
 		
 		double scale = fittingScale();
 		canvas.setWidth(scale * map.width());
 		canvas.setHeight(scale * map.height());
 		
 		initTileCoords();
+		initTileGrid();
+		if (rasterCache != null)
+			rasterCache.setMap(map, tileGrid, tex, fittingScale());
+		if (frameRenderer != null)
+			frameRenderer.setMap(map, tileGrid, tex);
 		render();
 	}
 	
+	// Changes the spec of the texture and redraws the map.
+	public void setTextureSpec(Texture.Spec spec) {
+		tex.setSpec(spec);
+		invalidateFills();
+	}
+	
+	// Redraws the map after the fills of its tiles changed, e.g. because the
+	// elevations of the map changed. Discards the cached fills and the images
+	// that were drawn with them.
+	public void invalidateFills() {
+		tex.invalidateFills();
+		discardDrawnImages();
+		if (map != null)
+			render();
+	}
+	
+	// Redraws the map after the fill of a given tile changed, e.g. because the
+	// elevation of the tile or its nodes changed.
+	public void invalidateFill(MapTile tile) {
+		tex.invalidateFill(tile);
+		discardDrawnImages();
+		if (map != null)
+			render();
+	}
+	
+	// Discards the images and frames that were drawn with the previous fills.
+	// The raster cache doesn't track which images show which tiles, so all are
+	// dropped.
+	private void discardDrawnImages() {
+		if (rasterCache != null)
+			rasterCache.clear();
+		if (frameRenderer != null)
+			frameRenderer.invalidate();
+	}
+	
 	private void initTileCoords() {
 		int numTiles = map.countTiles();
 
@@ -71,6 +150,14 @@ public class CanvasMapView implements MapView {
 		}
 	}
 	
+	private void initTileGrid() {
+		int numTiles = map.countTiles();
+		List<Rect2D> tileBounds = new ArrayList<Rect2D>(numTiles);
+		for (int i = 0; i < numTiles; ++i)
+			tileBounds.add(map.tile(i).bounds);
+		tileGrid = new RectGrid(tileBounds);
+	}
+	
 	@Override
 	public void setScale(double scale) {
 		Point2D center = normalizedMapCenter();
@@ -81,19 +168,39 @@ public class CanvasMapView implements MapView {
 	
 	@Override
 	public void move(double dx, double dy) {
+		if (frameRenderer != null) {
+			// Mouse positions are fractional on scaled displays. Moving by whole
+			// pixels lets the frame renderer shift the last frame instead of
+			// rendering a full one. The remainder is added to the next move.
+			pendingDx += dx;
+			pendingDy += dy;
+			dx = Math.rint(pendingDx);
+			dy = Math.rint(pendingDy);
+			pendingDx -= dx;
+			pendingDy -= dy;
+			if (dx == 0 && dy == 0)
+				return;
+		}
 		originX += dx;
 		originY += dy;
 		render();
 	}
 	
 	private void render() {
+		if (frameRenderer != null) {
+			frameRenderer.requestFrame(originX, originY, compositeScale());
+			return;
+		}
 		var gc = canvas.getGraphicsContext2D();
 		renderBackground(gc);
+		if (rasterCache != null && rasterCache.draw(gc, originX, originY,
+				compositeScale(), canvas.getWidth(), canvas.getHeight()))
+			return;
 		renderMap(gc);
 	}
 	
 	private void renderBackground(GraphicsContext gc) {
-		gc.setFill(Color.web("#FFFFDC"));
+		gc.setFill(BACKGROUND);
 		gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
 		gc.setStroke(Color.BLACK);
 		gc.strokeRect(0, 0, canvas.getWidth(), canvas.getHeight());
@@ -103,34 +210,21 @@ public class CanvasMapView implements MapView {
 		gc.setStroke(Color.BLACK);
 		
 		long startTime = System.currentTimeMillis();
-		int numRenderedTiles = 0;
 		
 		double scale = compositeScale();
-		int numTiles = map.countTiles();
-		for (int i = 0; i < numTiles; ++i) {
-			MapTile tile = map.tile(i);
-			if (isTileVisible(tile, scale)) {
-				renderTile(gc, tile, tileXCoords.get(i), tileYCoords.get(i), scale);
-				numRenderedTiles++;
-			}
-		}
+		int numRenderedTiles = tileGrid.forEachOverlapping(visibleMapArea(scale),
+				i -> renderTile(gc, map.tile(i), tileXCoords.get(i),
+						tileYCoords.get(i), scale));
 		
 		System.out.println("Rendered tiles: " + numRenderedTiles);
 		System.out.println("Render time: " + (System.currentTimeMillis() - startTime));
 	}
 	
-	// Returns whether a given tile is on the canvas.
-	private boolean isTileVisible(MapTile tile, double scale) {
-		Rect2D cvTileBounds = tile.bounds();
-		cvTileBounds.setLeft(canvasXFromMap(cvTileBounds.left(), scale));
-		cvTileBounds.setRight(canvasXFromMap(cvTileBounds.right(), scale));
-		cvTileBounds.setTop(canvasYFromMap(cvTileBounds.top(), scale));
-		cvTileBounds.setBottom(canvasYFromMap(cvTileBounds.bottom(), scale));
-		
-		return !(cvTileBounds.right() < 0 ||
-				cvTileBounds.left() > canvas.getWidth() ||
-				cvTileBounds.bottom() < 0 ||
-				cvTileBounds.top() > canvas.getHeight());
+	// Returns the area of the map that is on the canvas.
+	private Rect2D visibleMapArea(double scale) {
+		return new Rect2D(mapXFromCanvas(0, scale), mapYFromCanvas(0, scale),
+				mapXFromCanvas(canvas.getWidth(), scale),
+				mapYFromCanvas(canvas.getHeight(), scale));
 	}
 	
 	private void renderTile(GraphicsContext gc, MapTile tile, double[] xCoords,
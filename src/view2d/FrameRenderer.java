@@ -0,0 +1,261 @@
+package view2d;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import geometry.RectGrid;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+// Renders frames of the map on a background thread into off-screen pixel
+// buffers and shows the finished frames on a canvas. The FX thread only copies
+// finished frames, so it stays responsive however large the map is.
+// - Frames are double-buffered. A frame is rendered into one buffer while the
+//   last finished frame is copied from another. A third buffer lets the
+//   render thread keep the last finished frame while the FX thread still
+//   copies an older one.
+// - Requesting a frame cancels the frame that is being rendered. Only the
+//   latest requested frame is shown.
+// - Until the requested frame is finished, the last shown frame is moved and
+//   scaled to the requested position as a preview.
+// - Panning by whole pixels shifts the pixels of the last finished frame and
+//   only renders the strips that became exposed. The tiles in the strips are
+//   found through the tile grid, so a drag costs time proportional to the
+//   exposed area instead of the whole view.
+// - Must be used on the FX thread. Only the rasterizing runs on another thread.
+class FrameRenderer {
+
+	// Pixel buffer of a frame and the position of the map in it.
+	private static class Frame {
+		int[] pixels = new int[0];
+		int width;
+		int height;
+		map.Map map;
+		double originX;
+		double originY;
+		double scale;
+		// Whether the FX thread still has to copy the frame's pixels.
+		boolean isCopying = false;
+	}
+
+	///////////////
+
+	private final Canvas canvas;
+	private final Color background;
+	private final ExecutorService renderer =
+			Executors.newSingleThreadExecutor(task -> {
+				Thread thread = new Thread(task, "map-frame-renderer");
+				thread.setDaemon(true);
+				return thread;
+			});
+	// Buffers of the last finished frame, of the frame that is rendered and of
+	// a frame that is copied by the FX thread. Accessed under their lock.
+	private final Frame[] frames = { new Frame(), new Frame(), new Frame() };
+	// Last finished frame. Not reused until another frame is finished, so that
+	// its pixels can be shifted into the next frame. Only accessed by the
+	// render thread.
+	private Frame lastFrame = null;
+	// Number of the latest requested frame. Renderings of older frames are
+	// cancelled.
+	private final AtomicInteger latestFrame = new AtomicInteger();
+	// Images that finished frames are copied into. The front image holds the
+	// shown frame. Null if no frame was shown yet.
+	private WritableImage frontImage;
+	private WritableImage backImage;
+	// Position of the map in the shown frame.
+	private double shownOriginX;
+	private double shownOriginY;
+	private double shownScale;
+	private map.Map map;
+	private RectGrid tileGrid;
+	private Texture tex;
+
+	FrameRenderer(Canvas canvas, Color background) {
+		this.canvas = canvas;
+		this.background = background;
+	}
+
+	// Sets the map that is rendered. Cancels the frame that is being rendered.
+	// The map must not change while it is rendered. Calling tileFill() on the
+	// texture must be thread-safe.
+	void setMap(map.Map map, RectGrid tileGrid, Texture tex) {
+		latestFrame.incrementAndGet();
+		this.map = map;
+		this.tileGrid = tileGrid;
+		this.tex = tex;
+		frontImage = null;
+	}
+
+	// Discards the last finished frame, e.g. when the map's fills changed, so
+	// that the next frame is rendered completely instead of shifting its
+	// pixels. Cancels the frame that is being rendered. The shown frame stays
+	// as preview until the next frame is finished.
+	void invalidate() {
+		latestFrame.incrementAndGet();
+		// The last frame is only accessed by the render thread. Frames that are
+		// requested later are rendered after it was discarded.
+		renderer.execute(() -> lastFrame = null);
+	}
+
+	// Requests a frame that shows the map's origin at a given canvas position
+	// with a given scale. Cancels the frame that is being rendered and shows a
+	// preview until the frame is finished.
+	void requestFrame(double originX, double originY, double scale) {
+		int frame = latestFrame.incrementAndGet();
+		drawShownFrame(originX, originY, scale);
+		if (map == null)
+			return;
+
+		int width = (int) Math.ceil(canvas.getWidth());
+		int height = (int) Math.ceil(canvas.getHeight());
+		final map.Map frameMap = map;
+		final RectGrid frameGrid = tileGrid;
+		final Texture frameTex = tex;
+		renderer.execute(() -> {
+			if (frame != latestFrame.get())
+				return;
+			Frame target;
+			try {
+				target = takeFreeFrame();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (target.pixels.length != width * height)
+				target.pixels = new int[width * height];
+			target.width = width;
+			target.height = height;
+			target.map = frameMap;
+			target.originX = originX;
+			target.originY = originY;
+			target.scale = scale;
+
+			TileRasterizer rasterizer =
+					new TileRasterizer(target.pixels, width, height);
+			rasterizer.setCancelCheck(() -> frame != latestFrame.get());
+			if (!renderShifted(target, rasterizer, frameGrid, frameTex))
+				renderArea(target, rasterizer, frameGrid, frameTex, 0, 0, width,
+						height);
+			if (frame != latestFrame.get())
+				return;
+
+			lastFrame = target;
+			synchronized (frames) {
+				target.isCopying = true;
+			}
+			Platform.runLater(() -> {
+				if (frame == latestFrame.get())
+					showFrame(target);
+				synchronized (frames) {
+					target.isCopying = false;
+					frames.notifyAll();
+				}
+			});
+		});
+	}
+
+	// Returns a frame that is neither the last finished frame nor copied by
+	// the FX thread. Waits for the FX thread if needed. Called on the render
+	// thread.
+	private Frame takeFreeFrame() throws InterruptedException {
+		synchronized (frames) {
+			while (true) {
+				for (Frame frame : frames)
+					if (frame != lastFrame && !frame.isCopying)
+						return frame;
+				frames.wait();
+			}
+		}
+	}
+
+	// Renders a frame by shifting the pixels of the last finished frame and
+	// rendering the exposed strips. Returns false without rendering if the
+	// last frame doesn't show the same map at the same scale and size or is
+	// not offset by whole pixels.
+	private boolean renderShifted(Frame target, TileRasterizer rasterizer,
+			RectGrid frameGrid, Texture frameTex) {
+		Frame last = lastFrame;
+		if (last == null || last.map != target.map || last.scale != target.scale ||
+				last.width != target.width || last.height != target.height)
+			return false;
+		double dx = target.originX - last.originX;
+		double dy = target.originY - last.originY;
+		int shiftX = (int) Math.rint(dx);
+		int shiftY = (int) Math.rint(dy);
+		int width = target.width;
+		int height = target.height;
+		if (Math.abs(dx - shiftX) > 1e-9 || Math.abs(dy - shiftY) > 1e-9 ||
+				Math.abs(shiftX) >= width || Math.abs(shiftY) >= height)
+			return false;
+
+		// Rows and columns of the target that the last frame covers.
+		int copyWidth = width - Math.abs(shiftX);
+		int srcCol = Math.max(-shiftX, 0);
+		int dstCol = Math.max(shiftX, 0);
+		int firstRow = Math.max(shiftY, 0);
+		int lastRow = height - 1 + Math.min(shiftY, 0);
+		for (int row = firstRow; row <= lastRow; ++row)
+			System.arraycopy(last.pixels, (row - shiftY) * width + srcCol,
+					target.pixels, row * width + dstCol, copyWidth);
+
+		// Exposed strips: full rows above or below the copied rows and columns
+		// left or right of them.
+		if (firstRow > 0)
+			renderArea(target, rasterizer, frameGrid, frameTex, 0, 0, width,
+					firstRow);
+		if (lastRow < height - 1)
+			renderArea(target, rasterizer, frameGrid, frameTex, 0, lastRow + 1,
+					width, height - lastRow - 1);
+		int numRows = lastRow - firstRow + 1;
+		if (shiftX > 0)
+			renderArea(target, rasterizer, frameGrid, frameTex, 0, firstRow,
+					shiftX, numRows);
+		else if (shiftX < 0)
+			renderArea(target, rasterizer, frameGrid, frameTex, width + shiftX,
+					firstRow, -shiftX, numRows);
+		return true;
+	}
+
+	private void renderArea(Frame target, TileRasterizer rasterizer,
+			RectGrid frameGrid, Texture frameTex, int x, int y, int w, int h) {
+		rasterizer.renderMap(target.map, frameGrid, frameTex, target.originX,
+				target.originY, target.scale, x, y, w, h,
+				TileRasterizer.toArgb(background));
+	}
+
+	// Copies a finished frame into the back image and makes it the shown
+	// frame.
+	private void showFrame(Frame frame) {
+		if (backImage == null || backImage.getWidth() != frame.width ||
+				backImage.getHeight() != frame.height)
+			backImage = new WritableImage(frame.width, frame.height);
+		backImage.getPixelWriter().setPixels(0, 0, frame.width, frame.height,
+				PixelFormat.getIntArgbInstance(), frame.pixels, 0, frame.width);
+
+		WritableImage shown = backImage;
+		backImage = frontImage;
+		frontImage = shown;
+		shownOriginX = frame.originX;
+		shownOriginY = frame.originY;
+		shownScale = frame.scale;
+		drawShownFrame(frame.originX, frame.originY, frame.scale);
+	}
+
+	// Draws the shown frame onto the canvas moved and scaled so that the map's
+	// origin is at a given canvas position with a given scale.
+	private void drawShownFrame(double originX, double originY, double scale) {
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+		gc.setFill(background);
+		gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+		if (frontImage == null)
+			return;
+		double factor = scale / shownScale;
+		gc.drawImage(frontImage, originX - shownOriginX * factor,
+				originY - shownOriginY * factor, frontImage.getWidth() * factor,
+				frontImage.getHeight() * factor);
+	}
+}
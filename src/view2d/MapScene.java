@@ -25,10 +25,18 @@ public class MapScene {
 		public final Texture.ElevationRendering elevRendering;
 		public final boolean showWaterDepth;
 		public final boolean hasFirmShoreline;
+		public final CanvasMapView.RenderMode renderMode;
 		
 		public Spec(int width, int height, double scaleFactor, double seaLevel,
 				Texture.ElevationRendering elevRendering, boolean showWaterDepth,
 				boolean haveFirmShoreline) {
+			this(width, height, scaleFactor, seaLevel, elevRendering,
+					showWaterDepth, haveFirmShoreline, CanvasMapView.RenderMode.VECTOR);
+		}
+		
+		public Spec(int width, int height, double scaleFactor, double seaLevel,
+				Texture.ElevationRendering elevRendering, boolean showWaterDepth,
+				boolean haveFirmShoreline, CanvasMapView.RenderMode renderMode) {
 			this.width = width;
 			this.height = height;
 			this.initialScale = scaleFactor;
@@ -36,6 +44,7 @@ public class MapScene {
 			this.elevRendering = elevRendering;
 			this.showWaterDepth = showWaterDepth;
 			this.hasFirmShoreline = haveFirmShoreline;
+			this.renderMode = renderMode;
 		}
 	}
 	
@@ -63,7 +72,7 @@ public class MapScene {
 		this.spec = spec;
 		this.editedScale = spec.initialScale;
 		this.mapView = new CanvasMapView(new Texture(makeTextureSpec(spec)), spec.width,
-				spec.height, spec.initialScale);
+				spec.height, spec.initialScale, spec.renderMode);
 		this.layout = setupLayout(mapView.node());
 		this.scene = setupScene(spec.width, spec.height, this.layout);
 		setupEditing();
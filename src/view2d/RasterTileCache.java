@@ -0,0 +1,223 @@
+package view2d;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import geometry.RectGrid;
+import javafx.application.Platform;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+// Images of the map at a fixed set of zoom levels, cut into square image tiles.
+// Panning and zooming draws the cached images instead of filling the shapes of
+// the map tiles again.
+// - Level 0 shows the map at a base scale, the scale that fits the map into the
+//   view. Each following level doubles the scale. A frame is drawn from the
+//   level with the smallest scale that is not smaller than the frame's scale.
+//   Its images are scaled down to the frame's scale.
+// - Missing image tiles are rendered by TileRasterizers on background threads
+//   and handed to the FX thread when they are done. Until then the matching
+//   part of a cached tile of a lower level is scaled up in their place.
+// - The least recently drawn image tiles are dropped when the cache is full.
+// - Must be used on the FX thread. Only the rasterizing runs on other threads.
+class RasterTileCache {
+
+	// Edge length of the image tiles in pixels.
+	static final int TILE_SIZE = 256;
+	// Highest zoom level. Its scale is 2^MAX_LEVEL times the base scale.
+	static final int MAX_LEVEL = 6;
+	// Limits the memory of the cached images to 256 KB per tile.
+	private static final int MAX_CACHED_TILES = 384;
+	private final LinkedHashMap<Long, WritableImage> images =
+			new LinkedHashMap<Long, WritableImage>(16, .75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						java.util.Map.Entry<Long, WritableImage> eldest) {
+					return size() > MAX_CACHED_TILES;
+				}
+			};
+	// Image tiles that are being rendered.
+	private final Set<Long> pending = new HashSet<Long>();
+	// Image tiles that the last drawn frame showed. Pending tiles that are no
+	// longer shown are skipped when their turn to be rendered comes.
+	private volatile Set<Long> shownTiles = new HashSet<Long>();
+	// Incremented whenever the cached images become invalid. Renderings for an
+	// older generation are discarded.
+	private volatile int generation = 0;
+	private final ExecutorService renderer;
+	// Called on the FX thread after rendered tiles were added to the cache.
+	private final Runnable onTilesAdded;
+	private boolean isNotifyScheduled = false;
+	private map.Map map;
+	private RectGrid tileGrid;
+	private Texture tex;
+	private double baseScale;
+	private final int backgroundArgb;
+
+	RasterTileCache(int backgroundArgb, Runnable onTilesAdded) {
+		this.backgroundArgb = backgroundArgb;
+		this.onTilesAdded = onTilesAdded;
+		int numThreads = Math.max(Runtime.getRuntime().availableProcessors() - 1, 1);
+		this.renderer = Executors.newFixedThreadPool(numThreads, task -> {
+			Thread thread = new Thread(task, "raster-tile-renderer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// Sets the map whose images are cached. Drops all cached images. The map
+	// and its tiles must not change while they are cached. Calling tileFill()
+	// on the texture must be thread-safe.
+	void setMap(map.Map map, RectGrid tileGrid, Texture tex, double baseScale) {
+		this.map = map;
+		this.tileGrid = tileGrid;
+		this.tex = tex;
+		this.baseScale = baseScale;
+		clear();
+	}
+
+	// Drops all cached images, e.g. when the map's fills changed.
+	void clear() {
+		++generation;
+		images.clear();
+		pending.clear();
+	}
+
+	// Returns the zoom level that a frame at a given scale is drawn from or -1
+	// if the scale is larger than the scale of the highest level.
+	int levelFor(double scale) {
+		// Small tolerance so that the exact scale of a level selects it.
+		double level = Math.ceil(Math.log(scale / baseScale) / Math.log(2) - 1e-9);
+		if (level > MAX_LEVEL)
+			return -1;
+		return (int) Math.max(level, 0);
+	}
+
+	// Draws the part of the map that is visible in a view of given size. The
+	// map's origin is drawn at a given view position with a given scale.
+	// Returns false without drawing if the scale is too large for the cached
+	// levels.
+	boolean draw(GraphicsContext gc, double originX, double originY,
+			double scale, double viewWidth, double viewHeight) {
+		int level = levelFor(scale);
+		if (map == null || level < 0)
+			return false;
+
+		double levelScale = levelScale(level);
+		// Size of an image tile in the view.
+		double tileSize = TILE_SIZE * scale / levelScale;
+		int numCols = (int) Math.ceil(map.width() * levelScale / TILE_SIZE);
+		int numRows = (int) Math.ceil(map.height() * levelScale / TILE_SIZE);
+		int firstCol = Math.max((int) Math.floor(-originX / tileSize), 0);
+		int lastCol = Math.min((int) Math.floor((viewWidth - originX) / tileSize),
+				numCols - 1);
+		int firstRow = Math.max((int) Math.floor(-originY / tileSize), 0);
+		int lastRow = Math.min((int) Math.floor((viewHeight - originY) / tileSize),
+				numRows - 1);
+
+		Set<Long> shown = new HashSet<Long>();
+		for (int row = firstRow; row <= lastRow; ++row) {
+			for (int col = firstCol; col <= lastCol; ++col) {
+				// Round to whole pixels so that neighboring images don't leave
+				// seams.
+				double left = Math.floor(originX + col * tileSize);
+				double top = Math.floor(originY + row * tileSize);
+				double w = Math.floor(originX + (col + 1) * tileSize) - left;
+				double h = Math.floor(originY + (row + 1) * tileSize) - top;
+
+				long key = makeKey(level, col, row);
+				shown.add(key);
+				WritableImage image = images.get(key);
+				if (image != null) {
+					gc.drawImage(image, left, top, w, h);
+				} else {
+					requestTile(level, col, row, key);
+					drawFromLowerLevel(gc, level, col, row, left, top, w, h);
+				}
+			}
+		}
+		shownTiles = shown;
+		return true;
+	}
+
+	private double levelScale(int level) {
+		return baseScale * (1 << level);
+	}
+
+	private static long makeKey(int level, int col, int row) {
+		return ((long) level << 56) | ((long) col << 28) | row;
+	}
+
+	// Draws the part of the nearest cached lower level image that covers a
+	// given image tile.
+	private void drawFromLowerLevel(GraphicsContext gc, int level, int col,
+			int row, double left, double top, double w, double h) {
+		for (int down = 1; down <= level; ++down) {
+			WritableImage image =
+					images.get(makeKey(level - down, col >> down, row >> down));
+			if (image != null) {
+				double partSize = TILE_SIZE / (double) (1 << down);
+				double partX = (col - ((col >> down) << down)) * partSize;
+				double partY = (row - ((row >> down) << down)) * partSize;
+				gc.drawImage(image, partX, partY, partSize, partSize, left, top, w, h);
+				return;
+			}
+		}
+	}
+
+	// Renders a given image tile on a background thread unless it is already
+	// being rendered.
+	private void requestTile(int level, int col, int row, long key) {
+		if (!pending.add(key))
+			return;
+		final int requestGeneration = generation;
+		final map.Map requestMap = map;
+		final RectGrid requestGrid = tileGrid;
+		final Texture requestTex = tex;
+		final double scale = levelScale(level);
+		renderer.execute(() -> {
+			if (requestGeneration != generation)
+				return;
+			if (!shownTiles.contains(key)) {
+				Platform.runLater(() -> {
+					if (requestGeneration == generation)
+						pending.remove(key);
+				});
+				return;
+			}
+
+			int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+			new TileRasterizer(pixels, TILE_SIZE, TILE_SIZE).renderMap(requestMap,
+					requestGrid, requestTex, -col * TILE_SIZE, -row * TILE_SIZE,
+					scale, 0, 0, TILE_SIZE, TILE_SIZE, backgroundArgb);
+
+			Platform.runLater(() -> {
+				if (requestGeneration != generation)
+					return;
+				pending.remove(key);
+				WritableImage image = new WritableImage(TILE_SIZE, TILE_SIZE);
+				image.getPixelWriter().setPixels(0, 0, TILE_SIZE, TILE_SIZE,
+						PixelFormat.getIntArgbInstance(), pixels, 0, TILE_SIZE);
+				images.put(key, image);
+				notifyTilesAdded();
+			});
+		});
+	}
+
+	// Calls the listener once for all tiles that are added before it runs.
+	private void notifyTilesAdded() {
+		if (isNotifyScheduled)
+			return;
+		isNotifyScheduled = true;
+		Platform.runLater(() -> {
+			isNotifyScheduled = false;
+			onTilesAdded.run();
+		});
+	}
+}
@@ -24,6 +24,8 @@ public class ShapeMapView implements MapView {
 	
 	@Override
 	public void setMap(map.Map mapModel) {
+		// Release the fills of the previous map's tiles.
+		tex.invalidateFills();
 		int numTiles = mapModel.countTiles();
 		for (int i = 0; i < numTiles; ++i)
 			addTile(mapModel.tile(i));
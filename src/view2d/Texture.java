@@ -2,6 +2,7 @@ package view2d;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import geometry.Rect2D;
 import javafx.scene.paint.Color;
@@ -36,17 +37,75 @@ public class Texture {
 	
 	///////////////
 	
-	private Spec spec;
+	// Fill of a tile and the tile that it was made for. A fill is only valid
+	// for the tile object stored with it, so fills of tiles of other maps with
+	// the same ids are made again.
+	private static class CachedFill {
+		final MapTile tile;
+		final Paint fill;
+		
+		CachedFill(MapTile tile, Paint fill) {
+			this.tile = tile;
+			this.fill = fill;
+		}
+	}
+	
+	///////////////
+	
+	// Spec and the fills of tiles by tile id that were made with it. Replaced
+	// as a whole when the spec changes, so that fills of different specs never
+	// get mixed.
+	private static class FillCache {
+		final Spec spec;
+		final AtomicReferenceArray<CachedFill> fills;
+		
+		FillCache(Spec spec, AtomicReferenceArray<CachedFill> fills) {
+			this.spec = spec;
+			this.fills = fills;
+		}
+	}
+	
+	///////////////
+	
 	private List<Color> landColors;
 	private List<Color> waterColors;
 	private Color mountainTops = Color.web("CCCCCC");
+	// Read without locking by the threads that fill tiles. Replaced and
+	// modified under the texture's lock.
+	private volatile FillCache cache;
 	
 	public Texture(Spec spec) {
-		this.spec = spec;
+		this.cache = new FillCache(spec, new AtomicReferenceArray<CachedFill>(0));
 		this.landColors = makeLandColors();
 		this.waterColors = makeWaterColors();
 	}
 	
+	public Spec spec() {
+		return cache.spec;
+	}
+	
+	// Changes the spec. Discards the cached fills. Views that keep images drawn
+	// with the fills have to be redrawn, see CanvasMapView.setTextureSpec().
+	public synchronized void setSpec(Spec spec) {
+		cache = new FillCache(spec,
+				new AtomicReferenceArray<CachedFill>(cache.fills.length()));
+	}
+	
+	// Discards the cached fills of all tiles. Call when the elevations of the
+	// map changed. Views that keep images drawn with the fills have to be
+	// redrawn, see CanvasMapView.invalidateFills().
+	public synchronized void invalidateFills() {
+		setSpec(cache.spec);
+	}
+	
+	// Discards the cached fill of a given tile. Call when the elevation of the
+	// tile or its nodes changed. See CanvasMapView.invalidateFill().
+	public synchronized void invalidateFill(MapTile tile) {
+		int id = tile.id();
+		if (id >= 0 && id < cache.fills.length())
+			cache.fills.set(id, null);
+	}
+	
 	private static List<Color> makeLandColors() {
 		// Lighter to darker
 		List<Color> colors = new ArrayList<Color>();
@@ -79,23 +138,59 @@ public class Texture {
 		return colors;
 	}
 	
+	// Returns the fill of a given tile. Fills of tiles that are part of a map
+	// are made once and cached until they are invalidated. Thread-safe without
+	// locking, so that tiles can be rendered on multiple background threads.
+	// Threads that fill the same tile at the same time can both make its fill.
 	public Paint tileFill(MapTile tile) {
+		FillCache current = cache;
+		int id = tile.id();
+		if (id < 0)
+			return makeTileFill(tile, current.spec);
+		if (id >= current.fills.length())
+			current = growCache(id + 1);
+		CachedFill cached = current.fills.get(id);
+		if (cached == null || cached.tile != tile) {
+			cached = new CachedFill(tile, makeTileFill(tile, current.spec));
+			current.fills.set(id, cached);
+		}
+		return cached.fill;
+	}
+	
+	// Makes room for the fills of tiles with ids below a given length. Fills
+	// that other threads store in the previous cache at the same time are made
+	// again later.
+	private synchronized FillCache growCache(int minLength) {
+		FillCache current = cache;
+		int length = current.fills.length();
+		if (minLength > length) {
+			var grown = new AtomicReferenceArray<CachedFill>(
+					Math.max(minLength, 2 * length));
+			for (int i = 0; i < length; ++i)
+				grown.set(i, current.fills.get(i));
+			current = new FillCache(current.spec, grown);
+			cache = current;
+		}
+		return current;
+	}
+	
+	private Paint makeTileFill(MapTile tile, Spec spec) {
 		switch (spec.elevRendering) {
 			case TILE_BASED: {
-				return makeTileBasedTileFill(tile);
+				return makeTileBasedTileFill(tile, spec);
 			}
 			case NODE_BASED: {
-				return makeNodeBasedTileFill(tile);
+				return makeNodeBasedTileFill(tile, spec);
 			}
 		}
-		return makeNodeBasedTileFill(tile);
+		return makeNodeBasedTileFill(tile, spec);
 	}
 	
-	private Paint makeTileBasedTileFill(MapTile tile) {
+	private Paint makeTileBasedTileFill(MapTile tile, Spec spec) {
 		return getFill(tile.elevation(), spec.seaLevel, spec.showWaterDepth);
 	}
 	
-	private Paint makeNodeBasedTileFill(MapTile tile) {
+	private Paint makeNodeBasedTileFill(MapTile tile, Spec spec) {
 		var elevExtremes = new ExtremeElevationFinder();
 		elevExtremes.find(tile);	
 		double seedElev = tile.elevation();
@@ -0,0 +1,265 @@
+package view2d;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import geometry.Rect2D;
+import geometry.RectGrid;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Paint;
+import javafx.scene.paint.Stop;
+import map.MapNode;
+import map.MapTile;
+
+// Fills the shapes of map tiles into a buffer of ARGB pixels. Doesn't use the
+// JavaFX graphics pipeline, so it can run on any thread.
+// - A pixel is filled if its center is inside a tile's shape. Tiles that share
+//   an edge neither overlap nor leave gaps. Edges are not anti-aliased.
+// - Supports the fills that Texture makes: colors and proportional linear
+//   gradients without cycles.
+// - The map is placed in the buffer by the buffer position of the map's origin
+//   and a scale, like on the canvas of CanvasMapView.
+// - Not thread-safe. Use one object per thread.
+final class TileRasterizer {
+
+	private final int[] pixels;
+	private final int width;
+	private final int height;
+	// Buffer coordinates of the current tile's shape.
+	private double[] xs = new double[16];
+	private double[] ys = new double[16];
+	// Buffer x coordinates where the current scanline crosses the tile's edges.
+	private double[] crossings = new double[16];
+	// Fill of the current tile. Either a color or a gradient.
+	private int fillArgb;
+	private boolean isGradient;
+	// Gradient of the current tile. The gradient parameter of a pixel is the
+	// projection of the pixel onto the line from the gradient's start to its
+	// end, 0 at the start and 1 at the end.
+	private double gradStartX;
+	private double gradStartY;
+	private double gradDirX;
+	private double gradDirY;
+	private double[] stopOffsets = new double[4];
+	// Color components of the stops in [0, 1].
+	private double[][] stopColors = new double[4][4];
+	private int numStops;
+	// Checked before each tile is rendered. Rendering stops once it returns
+	// true.
+	private BooleanSupplier cancelCheck = () -> false;
+
+	TileRasterizer(int[] pixels, int width, int height) {
+		this.pixels = pixels;
+		this.width = width;
+		this.height = height;
+	}
+
+	// Sets a check that is called before each tile is rendered. Once it
+	// returns true the remaining tiles are skipped.
+	void setCancelCheck(BooleanSupplier cancelCheck) {
+		this.cancelCheck = cancelCheck;
+	}
+
+	// Fills an area of the buffer with a given ARGB color. The area is clipped
+	// to the buffer.
+	void fillRect(int x, int y, int w, int h, int argb) {
+		int left = Math.max(x, 0);
+		int right = Math.min(x + w, width);
+		int top = Math.max(y, 0);
+		int bottom = Math.min(y + h, height);
+		for (int row = top; row < bottom; ++row)
+			Arrays.fill(pixels, row * width + left, row * width + right, argb);
+	}
+
+	// Fills an area of the buffer with a given background color and renders
+	// the map tiles that overlap it. Only pixels in the area are changed. The
+	// tiles are found through a given grid of their bounds. Returns the number
+	// of rendered tiles. Stops at the first tile for which the cancel check
+	// returns true.
+	int renderMap(map.Map map, RectGrid tileGrid, Texture tex, double originX,
+			double originY, double scale, int areaX, int areaY, int areaW,
+			int areaH, int backgroundArgb) {
+		fillRect(areaX, areaY, areaW, areaH, backgroundArgb);
+		int clipLeft = Math.max(areaX, 0);
+		int clipTop = Math.max(areaY, 0);
+		int clipRight = Math.min(areaX + areaW, width);
+		int clipBottom = Math.min(areaY + areaH, height);
+		if (clipLeft >= clipRight || clipTop >= clipBottom)
+			return 0;
+
+		Rect2D mapArea = new Rect2D((clipLeft - originX) / scale,
+				(clipTop - originY) / scale, (clipRight - originX) / scale,
+				(clipBottom - originY) / scale);
+		return tileGrid.forEachOverlappingWhile(mapArea, i -> {
+			if (cancelCheck.getAsBoolean())
+				return false;
+			MapTile tile = map.tile(i);
+			fillTile(tile, tex.tileFill(tile), originX, originY, scale, clipLeft,
+					clipTop, clipRight, clipBottom);
+			return true;
+		});
+	}
+
+	// Converts a color to an ARGB value.
+	static int toArgb(Color color) {
+		return (toByte(color.getOpacity()) << 24) | (toByte(color.getRed()) << 16) |
+				(toByte(color.getGreen()) << 8) | toByte(color.getBlue());
+	}
+
+	private static int toByte(double component) {
+		return (int) Math.round(component * 255);
+	}
+
+	// Fills the shape of a given tile with a given fill. Only pixels within
+	// given clip bounds are changed.
+	private void fillTile(MapTile tile, Paint fill, double originX,
+			double originY, double scale, int clipLeft, int clipTop,
+			int clipRight, int clipBottom) {
+		int numNodes = tile.countNodes();
+		if (numNodes > xs.length) {
+			xs = new double[numNodes];
+			ys = new double[numNodes];
+			crossings = new double[numNodes];
+		}
+		double left = Double.POSITIVE_INFINITY;
+		double top = Double.POSITIVE_INFINITY;
+		double right = Double.NEGATIVE_INFINITY;
+		double bottom = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < numNodes; ++i) {
+			MapNode node = tile.node(i);
+			xs[i] = originX + node.pos.x * scale;
+			ys[i] = originY + node.pos.y * scale;
+			left = Math.min(left, xs[i]);
+			right = Math.max(right, xs[i]);
+			top = Math.min(top, ys[i]);
+			bottom = Math.max(bottom, ys[i]);
+		}
+
+		// Rows whose pixel centers are within the shape's vertical extent.
+		int firstRow = Math.max(clipTop, (int) Math.ceil(top - .5));
+		int lastRow = Math.min(clipBottom - 1, (int) Math.ceil(bottom - .5) - 1);
+		if (firstRow > lastRow)
+			return;
+		setFill(fill, left, top, right, bottom);
+
+		for (int row = firstRow; row <= lastRow; ++row) {
+			double centerY = row + .5;
+			int numCrossings = 0;
+			for (int i = 0; i < numNodes; ++i) {
+				int next = (i + 1 < numNodes) ? i + 1 : 0;
+				double y0 = ys[i];
+				double y1 = ys[next];
+				// Half-open test so that a vertex on the scanline is counted once.
+				if ((y0 <= centerY) != (y1 <= centerY)) {
+					crossings[numCrossings++] = xs[i] +
+							(centerY - y0) * (xs[next] - xs[i]) / (y1 - y0);
+				}
+			}
+			sort(crossings, numCrossings);
+			// Fill between pairs of crossings (even-odd rule).
+			for (int c = 0; c + 1 < numCrossings; c += 2) {
+				int from = Math.max(clipLeft, (int) Math.ceil(crossings[c] - .5));
+				int to = Math.min(clipRight, (int) Math.ceil(crossings[c + 1] - .5));
+				fillSpan(row, from, to);
+			}
+		}
+	}
+
+	// Prepares a given fill for a tile with given buffer bounds.
+	private void setFill(Paint fill, double left, double top, double right,
+			double bottom) {
+		if (fill instanceof LinearGradient) {
+			LinearGradient grad = (LinearGradient) fill;
+			List<Stop> stops = grad.getStops();
+			if (stops.size() > stopOffsets.length) {
+				stopOffsets = new double[stops.size()];
+				stopColors = new double[stops.size()][4];
+			}
+			numStops = stops.size();
+			for (int i = 0; i < numStops; ++i) {
+				Color color = stops.get(i).getColor();
+				stopOffsets[i] = stops.get(i).getOffset();
+				stopColors[i][0] = color.getOpacity();
+				stopColors[i][1] = color.getRed();
+				stopColors[i][2] = color.getGreen();
+				stopColors[i][3] = color.getBlue();
+			}
+			// Texture only makes proportional gradients. Their coordinates are
+			// relative to the shape's bounds.
+			double w = right - left;
+			double h = bottom - top;
+			gradStartX = left + grad.getStartX() * w;
+			gradStartY = top + grad.getStartY() * h;
+			double dx = left + grad.getEndX() * w - gradStartX;
+			double dy = top + grad.getEndY() * h - gradStartY;
+			double lenSqr = dx * dx + dy * dy;
+			gradDirX = (lenSqr > 0) ? dx / lenSqr : 0;
+			gradDirY = (lenSqr > 0) ? dy / lenSqr : 0;
+			isGradient = numStops > 0;
+			if (!isGradient)
+				fillArgb = 0;
+		} else {
+			isGradient = false;
+			fillArgb = (fill instanceof Color) ? toArgb((Color) fill) : 0xFF000000;
+		}
+	}
+
+	// Fills the pixels [from, to) of a given row with the current fill.
+	private void fillSpan(int row, int from, int to) {
+		if (from >= to)
+			return;
+		int start = row * width;
+		if (!isGradient) {
+			Arrays.fill(pixels, start + from, start + to, fillArgb);
+			return;
+		}
+		// The gradient parameter changes linearly along the row.
+		double centerY = row + .5;
+		double param = (from + .5 - gradStartX) * gradDirX +
+				(centerY - gradStartY) * gradDirY;
+		for (int x = from; x < to; ++x) {
+			pixels[start + x] = gradientColor(param);
+			param += gradDirX;
+		}
+	}
+
+	// Returns the color of the current gradient for a given gradient
+	// parameter. Parameters outside of [0, 1] are clamped.
+	private int gradientColor(double param) {
+		if (param <= stopOffsets[0])
+			return toArgb(stopColors[0], stopColors[0], 0);
+		for (int i = 1; i < numStops; ++i) {
+			if (param <= stopOffsets[i]) {
+				double span = stopOffsets[i] - stopOffsets[i - 1];
+				double t = (span > 0) ? (param - stopOffsets[i - 1]) / span : 1;
+				return toArgb(stopColors[i - 1], stopColors[i], t);
+			}
+		}
+		return toArgb(stopColors[numStops - 1], stopColors[numStops - 1], 0);
+	}
+
+	// Returns the ARGB value of a color interpolated between two colors given
+	// as components.
+	private static int toArgb(double[] from, double[] to, double t) {
+		int argb = 0;
+		for (int c = 0; c < 4; ++c)
+			argb = (argb << 8) | toByte(from[c] + t * (to[c] - from[c]));
+		return argb;
+	}
+
+	// Sorts the first given number of values of an array. Insertion sort,
+	// since a scanline only crosses a few edges of a tile.
+	private static void sort(double[] vals, int num) {
+		for (int i = 1; i < num; ++i) {
+			double val = vals[i];
+			int j = i - 1;
+			while (j >= 0 && vals[j] > val) {
+				vals[j + 1] = vals[j];
+				--j;
+			}
+			vals[j + 1] = val;
+		}
+	}
+}
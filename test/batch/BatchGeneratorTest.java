@@ -0,0 +1,126 @@
+package batch;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import geometry.DelauneyTriangulation;
+import map.Map;
+import map.PerlinTopography;
+
+public class BatchGeneratorTest {
+
+	@Test
+	public void parseSeeds_ForListAndRanges() {
+		List<Long> seeds = BatchGenerator.parseSeeds("3, 10-12,-2,-5--4");
+
+		assertEquals(Arrays.asList(3L, 10L, 11L, 12L, -2L, -5L, -4L), seeds);
+	}
+
+	@Test
+	public void parseSeeds_ForInvalidSeed() {
+		try {
+			BatchGenerator.parseSeeds("1,x");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void parseJobs_OverridesDefaults() {
+		BatchGenerator.Settings defaults = new BatchGenerator.Settings();
+		defaults.mapWidth = 40;
+		List<BatchGenerator.Job> jobs = BatchGenerator.parseJobs(Arrays.asList(
+				"# comment", "", "7", "8 mapHeight=30 noiseAlgorithm=HASHED_GRADIENTS"),
+				defaults);
+
+		assertEquals(2, jobs.size());
+		assertEquals(7, jobs.get(0).seed);
+		assertEquals(40, jobs.get(0).settings.mapWidth);
+		assertEquals(200, jobs.get(0).settings.mapHeight);
+		assertEquals(8, jobs.get(1).seed);
+		assertEquals(40, jobs.get(1).settings.mapWidth);
+		assertEquals(30, jobs.get(1).settings.mapHeight);
+		assertEquals(PerlinTopography.NoiseAlgorithm.HASHED_GRADIENTS,
+				jobs.get(1).settings.noiseAlgorithm);
+		assertEquals(PerlinTopography.NoiseAlgorithm.GRADIENT_TABLE,
+				defaults.noiseAlgorithm);
+	}
+
+	@Test
+	public void parseJobs_ForUnknownSetting() {
+		try {
+			BatchGenerator.parseJobs(Arrays.asList("1 size=3"),
+					new BatchGenerator.Settings());
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void parseArgs_AppliesSettingsToAllSeeds() throws Exception {
+		BatchGenerator.Spec spec = BatchGenerator.parseArgs(new String[] {
+				"--seeds", "1-2", "--threads", "3", "--minSampleDistance", "2",
+				"--triangulationAlgorithm", "BOWYER_WATSON"});
+
+		assertEquals(2, spec.jobs.size());
+		assertEquals(3, spec.numThreads);
+		for (BatchGenerator.Job job : spec.jobs) {
+			assertEquals(2, job.settings.minSampleDistance, 0.0);
+			assertEquals(DelauneyTriangulation.Algorithm.BOWYER_WATSON,
+					job.settings.triangulationAlgorithm);
+		}
+	}
+
+	@Test
+	public void parseArgs_ForFormat() throws Exception {
+		assertEquals(BatchGenerator.Format.MAP,
+				BatchGenerator.parseArgs(new String[] { "--seeds", "1" }).format);
+		assertEquals(BatchGenerator.Format.TEXT, BatchGenerator.parseArgs(
+				new String[] { "--seeds", "1", "--format", "text" }).format);
+		try {
+			BatchGenerator.parseArgs(new String[] { "--seeds", "1", "--format", "x" });
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void run_WritesMapsAndSummary() throws Exception {
+		Path dir = Files.createTempDirectory("batch");
+		BatchGenerator.Settings settings = new BatchGenerator.Settings();
+		settings.mapWidth = 30;
+		settings.mapHeight = 20;
+		settings.minSampleDistance = 2;
+		List<BatchGenerator.Job> jobs = Arrays.asList(
+				new BatchGenerator.Job(1, settings),
+				new BatchGenerator.Job(1, settings),
+				new BatchGenerator.Job(2, settings));
+
+		List<BatchGenerator.Result> results = new BatchGenerator(
+				new BatchGenerator.Spec(jobs, 2, dir)).run();
+
+		assertEquals(3, results.size());
+		for (BatchGenerator.Result res : results) {
+			assertTrue(res.succeeded());
+			assertTrue(res.numTiles > 0);
+			assertTrue(Files.exists(res.file));
+		}
+		// Same seed and settings generate the same map.
+		assertEquals(results.get(0).numTiles, results.get(1).numTiles);
+		assertArrayEquals(Files.readAllBytes(results.get(0).file),
+				Files.readAllBytes(results.get(1).file));
+		assertNotEquals(results.get(0).file, results.get(1).file);
+		// Maps can be loaded again.
+		Map loaded = Map.load(settings.makeMapSpec(), results.get(2).file);
+		assertEquals(results.get(2).numTiles, loaded.countTiles());
+		assertEquals(results.get(2).numNodes, loaded.countNodes());
+		// Header and a line for each map.
+		assertEquals(4, Files.readAllLines(dir.resolve("summary.csv")).size());
+	}
+}
@@ -0,0 +1,118 @@
+package geometry;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+
+public class ConvexPolygonRectIntersection2DTest {
+
+	private static Polygon2D makePolygon(Point2D[] pts) {
+		Polygon2D poly = new Polygon2D();
+		for (var pt : pts)
+			poly.addVertex(pt);
+		return poly;
+	}
+
+	@Test
+	public void intersect_ForEmptyPolygon() {
+		Polygon2D res = ConvexPolygonRectIntersection2D.intersect(new Polygon2D(),
+				new Rect2D(0, 0, 10, 10));
+		assertEquals(0, res.countVertices());
+	}
+
+	@Test
+	public void intersect_ForPolygonInsideRect() {
+		Polygon2D poly = makePolygon(new Point2D[] {
+				new Point2D(1, 1),
+				new Point2D(1, 5),
+				new Point2D(4, 3),
+		});
+		Rect2D rect = new Rect2D(0, 0, 10, 10);
+		
+		assertTrue(ConvexPolygonRectIntersection2D.isInside(poly, rect));
+		assertEquals(poly, ConvexPolygonRectIntersection2D.intersect(poly, rect));
+	}
+
+	@Test
+	public void intersect_ForPolygonOutsideRect() {
+		Polygon2D poly = makePolygon(new Point2D[] {
+				new Point2D(11, 1),
+				new Point2D(11, 5),
+				new Point2D(14, 3),
+		});
+		Rect2D rect = new Rect2D(0, 0, 10, 10);
+		
+		assertFalse(ConvexPolygonRectIntersection2D.isInside(poly, rect));
+		assertEquals(0,
+				ConvexPolygonRectIntersection2D.intersect(poly, rect).countVertices());
+	}
+
+	@Test
+	public void intersect_ForPolygonTouchingRect() {
+		Polygon2D poly = makePolygon(new Point2D[] {
+				new Point2D(0, 2),
+				new Point2D(2, 4),
+				new Point2D(4, 2),
+		});
+		Rect2D rect = new Rect2D(0, 0, 10, 10);
+		
+		assertFalse(ConvexPolygonRectIntersection2D.isInside(poly, rect));
+		assertEquals(poly, ConvexPolygonRectIntersection2D.intersect(poly, rect));
+	}
+
+	@Test
+	public void intersect_ForPolygonOverlappingCorner() {
+		Polygon2D poly = makePolygon(new Point2D[] {
+				new Point2D(-2, -2),
+				new Point2D(-2, 2),
+				new Point2D(2, 2),
+				new Point2D(2, -2),
+		});
+		Rect2D rect = new Rect2D(0, 0, 10, 10);
+		
+		Polygon2D expected = makePolygon(new Point2D[] {
+				new Point2D(0, 0),
+				new Point2D(0, 2),
+				new Point2D(2, 2),
+				new Point2D(2, 0),
+		});
+		assertEquals(expected, ConvexPolygonRectIntersection2D.intersect(poly, rect));
+	}
+
+	@Test
+	public void intersect_ForRectInsidePolygon() {
+		Polygon2D poly = makePolygon(new Point2D[] {
+				new Point2D(5, -10),
+				new Point2D(-10, 5),
+				new Point2D(5, 20),
+				new Point2D(20, 5),
+		});
+		Rect2D rect = new Rect2D(0, 0, 10, 10);
+		
+		Polygon2D res = ConvexPolygonRectIntersection2D.intersect(poly, rect);
+		assertEquals(4, res.countVertices());
+		assertTrue(res.hasVertex(new Point2D(0, 0)));
+		assertTrue(res.hasVertex(new Point2D(0, 10)));
+		assertTrue(res.hasVertex(new Point2D(10, 10)));
+		assertTrue(res.hasVertex(new Point2D(10, 0)));
+	}
+
+	@Test
+	public void intersect_ForLongPolygonCrossingRect() {
+		Polygon2D poly = makePolygon(new Point2D[] {
+				new Point2D(-100, 4),
+				new Point2D(-100, 6),
+				new Point2D(100, 6),
+				new Point2D(100, 4),
+		});
+		Rect2D rect = new Rect2D(0, 0, 10, 10);
+		
+		Polygon2D res = ConvexPolygonRectIntersection2D.intersect(poly, rect);
+		assertEquals(4, res.countVertices());
+		assertTrue(res.hasVertex(new Point2D(0, 4)));
+		assertTrue(res.hasVertex(new Point2D(0, 6)));
+		assertTrue(res.hasVertex(new Point2D(10, 6)));
+		assertTrue(res.hasVertex(new Point2D(10, 4)));
+	}
+}
@@ -2,6 +2,7 @@ package geometry;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 import org.junit.Test;
@@ -90,6 +91,52 @@ public class DelauneyTriangulationTest {
 		assertTrue(DelauneyTriangulation.isDelauneyConditionSatisfied(triangles));
 	}
 
+	@Test
+	public void triangulate_ForManyPoints() {
+		Random rand = new Random(9876);
+		List<Point2D> samples = new ArrayList<Point2D>();
+		for (int i = 0; i < 200; ++i)
+			samples.add(new Point2D(rand.nextDouble() * 50, rand.nextDouble() * 20));
+		DelauneyTriangulation dt = new DelauneyTriangulation(samples);
+		List<Triangle2D> triangles = dt.triangulate();
+		
+		assertFalse(triangles.isEmpty());
+		assertTrue(DelauneyTriangulation.isDelauneyConditionSatisfied(triangles));
+	}
+
+	@Test
+	public void triangulate_WithSweepHullForTenPoints() {
+		List<Point2D> samples = new ArrayList<Point2D>();
+		samples.add(new Point2D(2, 1));
+		samples.add(new Point2D(5, 2));
+		samples.add(new Point2D(2, 4));
+		samples.add(new Point2D(5, 4));
+		samples.add(new Point2D(9, 5));
+		samples.add(new Point2D(5, 7));
+		samples.add(new Point2D(10, 7));
+		samples.add(new Point2D(3, 8));
+		samples.add(new Point2D(1, 10));
+		DelauneyTriangulation dt = new DelauneyTriangulation(samples,
+				DelauneyTriangulation.Algorithm.SWEEP_HULL);
+		List<Triangle2D> triangles = dt.triangulate();
+		
+		assertEquals(9, samples.size());
+		assertTrue(DelauneyTriangulation.isDelauneyConditionSatisfied(triangles));
+		assertEquals(triangles.size(), dt.delauneyTriangles().size());
+	}
+
+	@Test
+	public void triangulate_WithSweepHullForTwoPoints() {
+		List<Point2D> samples = new ArrayList<Point2D>();
+		samples.add(new Point2D(1, 2));
+		samples.add(new Point2D(6, -3));
+		DelauneyTriangulation dt = new DelauneyTriangulation(samples,
+				DelauneyTriangulation.Algorithm.SWEEP_HULL);
+		List<Triangle2D> triangles = dt.triangulate();
+		
+		assertTrue(triangles.isEmpty());
+	}
+
 	@Test
 	public void delauneyTriangles() {
 		List<Point2D> samples = new ArrayList<Point2D>();
@@ -0,0 +1,159 @@
+package geometry;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class HalfEdgeMeshTest {
+
+	private static HalfEdgeMesh makeMesh(List<Point2D> samples) {
+		SweepHullTriangulation sh = new SweepHullTriangulation(samples);
+		sh.triangulate();
+		return sh.mesh();
+	}
+
+	private static List<Point2D> makeRandomSamples(int num, long seed) {
+		Random rand = new Random(seed);
+		List<Point2D> samples = new ArrayList<Point2D>();
+		for (int i = 0; i < num; ++i)
+			samples.add(new Point2D(rand.nextDouble() * 100, rand.nextDouble() * 100));
+		return samples;
+	}
+
+	// Counts the outgoing half-edges of a vertex when walking around it.
+	private static int countEdgesAroundVertex(HalfEdgeMesh mesh, int v) {
+		int first = mesh.firstEdgeAroundVertex(v);
+		if (first == HalfEdgeMesh.NO_EDGE)
+			return 0;
+
+		int count = 0;
+		int e = first;
+		do {
+			++count;
+			e = mesh.nextEdgeAroundVertex(e);
+		} while (e != HalfEdgeMesh.NO_EDGE && e != first);
+		return count;
+	}
+
+	@Test
+	public void navigation_ForSingleTriangle() {
+		List<Point2D> samples = new ArrayList<Point2D>();
+		samples.add(new Point2D(0, 0));
+		samples.add(new Point2D(4, 0));
+		samples.add(new Point2D(0, 3));
+		HalfEdgeMesh mesh = makeMesh(samples);
+
+		assertEquals(3, mesh.countVertices());
+		assertEquals(1, mesh.countTriangles());
+		assertEquals(3, mesh.countHalfEdges());
+		for (int e = 0; e < 3; ++e) {
+			assertTrue(mesh.isBoundaryEdge(e));
+			assertEquals(0, HalfEdgeMesh.triangleOfEdge(e));
+			assertEquals(e, HalfEdgeMesh.nextHalfEdge(HalfEdgeMesh.prevHalfEdge(e)));
+			assertEquals(mesh.startVertex(HalfEdgeMesh.nextHalfEdge(e)),
+					mesh.endVertex(e));
+		}
+		for (int v = 0; v < 3; ++v) {
+			assertTrue(mesh.isBoundaryVertex(v));
+			assertEquals(1, countEdgesAroundVertex(mesh, v));
+		}
+	}
+
+	@Test
+	public void vertexCoordinates() {
+		List<Point2D> samples = makeRandomSamples(50, 3);
+		HalfEdgeMesh mesh = makeMesh(samples);
+
+		assertEquals(samples.size(), mesh.countVertices());
+		for (int v = 0; v < samples.size(); ++v) {
+			assertEquals(samples.get(v).x, mesh.vertexX(v), 0.0);
+			assertEquals(samples.get(v).y, mesh.vertexY(v), 0.0);
+		}
+	}
+
+	@Test
+	public void circumcenter() {
+		List<Point2D> samples = makeRandomSamples(50, 5);
+		HalfEdgeMesh mesh = makeMesh(samples);
+
+		for (int t = 0; t < mesh.countTriangles(); ++t) {
+			Point2D center = new Point2D(mesh.circumcenterX(t), mesh.circumcenterY(t));
+			double ra = Point2D.distance(center,
+					samples.get(mesh.triangleVertex(t, 0)));
+			double rb = Point2D.distance(center,
+					samples.get(mesh.triangleVertex(t, 1)));
+			double rc = Point2D.distance(center,
+					samples.get(mesh.triangleVertex(t, 2)));
+			assertEquals(ra, rb, 1e-6);
+			assertEquals(ra, rc, 1e-6);
+		}
+	}
+
+	@Test
+	public void walkAroundVertex_VisitsAllTriangles() {
+		List<Point2D> samples = makeRandomSamples(200, 7);
+		HalfEdgeMesh mesh = makeMesh(samples);
+
+		// Count triangles of each vertex directly.
+		int[] numTriangles = new int[mesh.countVertices()];
+		for (int e = 0; e < mesh.countHalfEdges(); ++e)
+			++numTriangles[mesh.startVertex(e)];
+
+		for (int v = 0; v < mesh.countVertices(); ++v)
+			assertEquals(numTriangles[v], countEdgesAroundVertex(mesh, v));
+	}
+
+	@Test
+	public void walkAroundVertex_IsCcw() {
+		List<Point2D> samples = makeRandomSamples(200, 11);
+		HalfEdgeMesh mesh = makeMesh(samples);
+
+		for (int v = 0; v < mesh.countVertices(); ++v) {
+			int first = mesh.firstEdgeAroundVertex(v);
+			int e = first;
+			int next = mesh.nextEdgeAroundVertex(e);
+			while (next != HalfEdgeMesh.NO_EDGE && next != first) {
+				Vector2D a = new Vector2D(samples.get(v), samples.get(mesh.endVertex(e)));
+				Vector2D b = new Vector2D(samples.get(v),
+						samples.get(mesh.endVertex(next)));
+				assertTrue(a.isCcw(b));
+				e = next;
+				next = mesh.nextEdgeAroundVertex(e);
+			}
+		}
+	}
+
+	@Test
+	public void boundaryVertices_AreHull() {
+		List<Point2D> samples = makeRandomSamples(100, 13);
+		HalfEdgeMesh mesh = makeMesh(samples);
+
+		int numBoundary = 0;
+		for (int v = 0; v < mesh.countVertices(); ++v)
+			if (mesh.isBoundaryVertex(v))
+				++numBoundary;
+		assertEquals(mesh.hull().length, numBoundary);
+		for (int v : mesh.hull())
+			assertTrue(mesh.isBoundaryVertex(v));
+	}
+
+	@Test
+	public void opposite() {
+		List<Point2D> samples = makeRandomSamples(100, 17);
+		HalfEdgeMesh mesh = makeMesh(samples);
+
+		for (int e = 0; e < mesh.countHalfEdges(); ++e) {
+			int opp = mesh.opposite(e);
+			if (opp == HalfEdgeMesh.NO_EDGE)
+				continue;
+			assertEquals(e, mesh.opposite(opp));
+			assertEquals(mesh.startVertex(e), mesh.endVertex(opp));
+			assertEquals(mesh.endVertex(e), mesh.startVertex(opp));
+		}
+	}
+}
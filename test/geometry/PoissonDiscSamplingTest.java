@@ -1,7 +1,9 @@
 package geometry;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -87,4 +89,181 @@ public class PoissonDiscSamplingTest {
 			assertTrue(verifyMinDistance(samples, minDist));
 		}
 	}
+	
+	@Test
+	public void generateParallel_KeepsMinDistance() {
+		Rect2D domain = new Rect2D(-30, -50, 100, 200);
+		double minDist = 3;
+		
+		PoissonDiscSampling sampler = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT, new Random(5555));
+		List<Point2D> samples = sampler.generateParallel();
+		
+		assertTrue(!samples.isEmpty());
+		assertTrue(verifyMinDistance(samples, minDist));
+		for (var sample : samples)
+			assertTrue(domain.isPointInRect(sample));
+	}
+	
+	@Test
+	public void generateParallel_IsDeterministic() {
+		Rect2D domain = new Rect2D(0, 0, 150, 100);
+		double minDist = 2;
+		
+		List<Point2D> expected = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT,
+				new Random(6666)).generateParallel();
+		final int numRuns = 5;
+		for (int i = 0; i < numRuns; ++i) {
+			List<Point2D> samples = new PoissonDiscSampling(domain, minDist,
+					PoissonDiscSampling.NUM_CANDIDATES_DEFAULT,
+					new Random(6666)).generateParallel();
+			
+			assertEquals(expected.size(), samples.size());
+			for (int j = 0; j < samples.size(); ++j)
+				assertEquals(expected.get(j), samples.get(j));
+		}
+	}
+	
+	@Test
+	public void generateParallel_ForDomainSmallerThanTile() {
+		Rect2D domain = new Rect2D(0, 0, 20, 20);
+		double minDist = 3;
+		
+		PoissonDiscSampling sampler = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT, new Random(7777));
+		List<Point2D> samples = sampler.generateParallel();
+		
+		assertTrue(!samples.isEmpty());
+		assertTrue(verifyMinDistance(samples, minDist));
+	}
+	
+	@Test
+	public void generate_ForEachSeedSelection() {
+		Rect2D domain = new Rect2D(-30, -50, 100, 200);
+		double minDist = 4;
+		
+		for (var selection : PoissonDiscSampling.SeedSelection.values()) {
+			PoissonDiscSampling sampler = new PoissonDiscSampling(domain, minDist,
+					PoissonDiscSampling.NUM_CANDIDATES_DEFAULT, new Random(8888),
+					selection);
+			List<Point2D> samples = sampler.generate();
+			
+			assertTrue(samples.size() > 1);
+			assertTrue(verifyMinDistance(samples, minDist));
+		}
+	}
+	
+	@Test
+	public void generate_WithSpatialSeedSelectionCoversDomain() {
+		Rect2D domain = new Rect2D(0, 0, 80, 60);
+		double minDist = 2;
+		
+		int numFifo = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT, new Random(7777),
+				PoissonDiscSampling.SeedSelection.FIFO).generate().size();
+		PoissonDiscSampling sampler = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT, new Random(7777),
+				PoissonDiscSampling.SeedSelection.SPATIAL);
+		List<Point2D> samples = sampler.generate();
+		
+		// Sweeping through the rows must not leave gaps behind.
+		assertTrue(Math.abs(samples.size() - numFifo) < numFifo / 10);
+		assertTrue(verifyMinDistance(samples, minDist));
+		for (var sample : samples)
+			assertTrue(domain.isPointInRect(sample));
+	}
+	
+	@Test
+	public void generate_DefaultsToFifoSeedSelection() {
+		Rect2D domain = new Rect2D(0, 0, 50, 50);
+		double minDist = 2;
+		
+		List<Point2D> expected = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT,
+				new Random(9999)).generate();
+		List<Point2D> samples = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT, new Random(9999),
+				PoissonDiscSampling.SeedSelection.FIFO).generate();
+		
+		assertEquals(expected.size(), samples.size());
+		for (int i = 0; i < samples.size(); ++i)
+			assertEquals(expected.get(i), samples.get(i));
+	}
+	
+	@Test
+	public void generate_KeepsSamplesInDomain() {
+		Rect2D domain = new Rect2D(10, -20, 40, 15);
+		double minDist = 1.5;
+		
+		PoissonDiscSampling sampler = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT, new Random(1212));
+		List<Point2D> samples = sampler.generate();
+		
+		assertTrue(samples.size() > 1);
+		for (var sample : samples)
+			assertTrue(domain.isPointInRect(sample));
+	}
+	
+	@Test
+	public void generate_WithSmallerCellSize() {
+		Rect2D domain = new Rect2D(-30, -50, 100, 200);
+		double minDist = 4;
+		double cellSize = PoissonDiscSampling.maxCellSize(minDist) / 3;
+		
+		PoissonDiscSampling sampler = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT, new Random(1313),
+				new ArrayList<Point2D>(), PoissonDiscSampling.SeedSelection.FIFO,
+				cellSize);
+		List<Point2D> samples = sampler.generate();
+		
+		assertTrue(samples.size() > 1);
+		assertTrue(verifyMinDistance(samples, minDist));
+	}
+	
+	@Test
+	public void generate_WithTooLargeCellSize() {
+		Rect2D domain = new Rect2D(0, 0, 50, 50);
+		double minDist = 2;
+		
+		PoissonDiscSampling sampler = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT, new Random(1414),
+				new ArrayList<Point2D>(), PoissonDiscSampling.SeedSelection.FIFO,
+				10 * minDist);
+		List<Point2D> samples = sampler.generate();
+		
+		assertTrue(samples.size() > 1);
+		assertTrue(verifyMinDistance(samples, minDist));
+	}
+	
+	@Test
+	public void generate_KeepsMinDistanceToExistingSamples() {
+		Rect2D domain = new Rect2D(0, 0, 30, 30);
+		double minDist = 2;
+		List<Point2D> existing = new ArrayList<Point2D>();
+		for (int i = 0; i <= 30; i += 3)
+			existing.add(new Point2D(i, -1));
+		
+		PoissonDiscSampling sampler = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT, new Random(1515), existing);
+		List<Point2D> samples = sampler.generate();
+		
+		assertTrue(samples.size() > 1);
+		for (var sample : samples)
+			for (var other : existing)
+				assertTrue(Point2D.distance(sample, other) >= minDist);
+	}
+	
+	@Test
+	public void generate_ForDomainSmallerThanMinDistance() {
+		Rect2D domain = new Rect2D(0, 0, 0.5, 0.5);
+		double minDist = 1;
+		
+		PoissonDiscSampling sampler = new PoissonDiscSampling(domain, minDist,
+				PoissonDiscSampling.NUM_CANDIDATES_DEFAULT, new Random(1616));
+		List<Point2D> samples = sampler.generate();
+		
+		assertEquals(1, samples.size());
+		assertTrue(domain.isPointInRect(samples.get(0)));
+	}
 }
@@ -0,0 +1,121 @@
+package geometry;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RectGridTest {
+
+	private static List<Integer> findOverlapping(RectGrid grid, Rect2D area) {
+		List<Integer> found = new ArrayList<Integer>();
+		grid.forEachOverlapping(area, found::add);
+		return found;
+	}
+
+	private static boolean overlap(Rect2D a, Rect2D b) {
+		return !(a.right() < b.left() || a.left() > b.right() ||
+				a.bottom() < b.top() || a.top() > b.bottom());
+	}
+
+	@Test
+	public void forEachOverlapping_ForEmptyGrid() {
+		RectGrid grid = new RectGrid(new ArrayList<Rect2D>());
+
+		assertEquals(0, grid.size());
+		assertEquals(0, grid.forEachOverlapping(new Rect2D(0, 0, 10, 10),
+				i -> fail()));
+	}
+
+	@Test
+	public void forEachOverlapping_ReportsEachRectOnce() {
+		List<Rect2D> rects = new ArrayList<Rect2D>();
+		rects.add(new Rect2D(0, 0, 1, 1));
+		rects.add(new Rect2D(9, 9, 10, 10));
+		// Spans many cells.
+		rects.add(new Rect2D(0, 4, 10, 6));
+		RectGrid grid = new RectGrid(rects);
+
+		List<Integer> found = findOverlapping(grid, new Rect2D(-5, -5, 20, 20));
+
+		assertEquals(3, found.size());
+		assertTrue(found.contains(0));
+		assertTrue(found.contains(1));
+		assertTrue(found.contains(2));
+	}
+
+	@Test
+	public void forEachOverlapping_ForAreaOutsideOfRects() {
+		List<Rect2D> rects = new ArrayList<Rect2D>();
+		rects.add(new Rect2D(0, 0, 1, 1));
+		rects.add(new Rect2D(2, 2, 3, 3));
+		RectGrid grid = new RectGrid(rects);
+
+		assertTrue(findOverlapping(grid, new Rect2D(4, 0, 5, 5)).isEmpty());
+		assertTrue(findOverlapping(grid, new Rect2D(-3, -3, -1, -1)).isEmpty());
+		assertTrue(findOverlapping(grid, new Rect2D(1.5, 0, 1.8, 1)).isEmpty());
+	}
+
+	@Test
+	public void forEachOverlapping_ForTouchingRect() {
+		List<Rect2D> rects = new ArrayList<Rect2D>();
+		rects.add(new Rect2D(0, 0, 1, 1));
+		RectGrid grid = new RectGrid(rects);
+
+		List<Integer> found = findOverlapping(grid, new Rect2D(1, 1, 2, 2));
+
+		assertEquals(1, found.size());
+	}
+
+	@Test
+	public void forEachOverlapping_MatchesBruteForce() {
+		Random rand = new Random(3);
+		List<Rect2D> rects = new ArrayList<Rect2D>();
+		for (int i = 0; i < 2000; ++i) {
+			double x = rand.nextDouble() * 100;
+			double y = rand.nextDouble() * 50;
+			rects.add(new Rect2D(x, y, x + rand.nextDouble() * 3,
+					y + rand.nextDouble() * 3));
+		}
+		RectGrid grid = new RectGrid(rects);
+
+		for (int q = 0; q < 50; ++q) {
+			double x = rand.nextDouble() * 110 - 5;
+			double y = rand.nextDouble() * 60 - 5;
+			Rect2D area = new Rect2D(x, y, x + rand.nextDouble() * 30,
+					y + rand.nextDouble() * 20);
+
+			List<Integer> found = findOverlapping(grid, area);
+
+			int numExpected = 0;
+			for (int i = 0; i < rects.size(); ++i) {
+				if (overlap(rects.get(i), area)) {
+					++numExpected;
+					assertTrue(found.contains(i));
+				}
+			}
+			assertEquals(numExpected, found.size());
+		}
+	}
+
+	@Test
+	public void forEachOverlappingWhile_StopsWhenActionReturnsFalse() {
+		List<Rect2D> rects = new ArrayList<Rect2D>();
+		for (int i = 0; i < 10; ++i)
+			rects.add(new Rect2D(i, 0, i + 1, 1));
+		RectGrid grid = new RectGrid(rects);
+		List<Integer> found = new ArrayList<Integer>();
+
+		int numFound = grid.forEachOverlappingWhile(new Rect2D(0, 0, 10, 1),
+				i -> {
+					found.add(i);
+					return found.size() < 4;
+				});
+
+		assertEquals(3, numFound);
+		assertEquals(4, found.size());
+	}
+}
@@ -0,0 +1,84 @@
+package geometry;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import math.FpUtil;
+
+public class SpatialHash2DTest {
+
+	@Test
+	public void get_ForEmptyHash() {
+		SpatialHash2D<Integer> hash = new SpatialHash2D<Integer>();
+
+		assertTrue(hash.isEmpty());
+		assertNull(hash.get(new Point2D(1, 2)));
+	}
+
+	@Test
+	public void get_ForStoredPoint() {
+		SpatialHash2D<Integer> hash = new SpatialHash2D<Integer>();
+		hash.put(new Point2D(1, 2), 1);
+		hash.put(new Point2D(-3, 4.5), 2);
+
+		assertEquals(2, hash.size());
+		assertEquals(Integer.valueOf(1), hash.get(new Point2D(1, 2)));
+		assertEquals(Integer.valueOf(2), hash.get(new Point2D(-3, 4.5)));
+		assertNull(hash.get(new Point2D(1, 4.5)));
+	}
+
+	@Test
+	public void get_ForPointWithinThreshold() {
+		double thres = FpUtil.globalFpThreshold();
+		SpatialHash2D<Integer> hash = new SpatialHash2D<Integer>();
+		hash.put(new Point2D(1, 2), 1);
+
+		assertEquals(Integer.valueOf(1), hash.get(new Point2D(1 + thres / 2, 2)));
+		assertEquals(Integer.valueOf(1), hash.get(new Point2D(1, 2 - thres / 2)));
+		assertEquals(Integer.valueOf(1),
+				hash.get(new Point2D(1 - thres / 2, 2 + thres / 2)));
+		assertNull(hash.get(new Point2D(1 + 2 * thres, 2)));
+	}
+
+	@Test
+	public void get_ForPointWithinThresholdInNeighboringCell() {
+		double thres = FpUtil.globalFpThreshold();
+		SpatialHash2D<Integer> hash = new SpatialHash2D<Integer>();
+		// Cell borders are at multiples of the cell size, including zero.
+		hash.put(new Point2D(thres / 4, -thres / 4), 1);
+
+		assertEquals(Integer.valueOf(1),
+				hash.get(new Point2D(-thres / 4, thres / 4)));
+		assertTrue(hash.containsKey(new Point2D(-thres / 2, thres / 2)));
+	}
+
+	@Test
+	public void put_ReplacesValueOfEqualPoint() {
+		double thres = FpUtil.globalFpThreshold();
+		SpatialHash2D<Integer> hash = new SpatialHash2D<Integer>();
+		assertNull(hash.put(new Point2D(1, 2), 1));
+
+		assertEquals(Integer.valueOf(1), hash.put(new Point2D(1, 2 + thres / 2), 2));
+		assertEquals(1, hash.size());
+		assertEquals(Integer.valueOf(2), hash.get(new Point2D(1, 2)));
+	}
+
+	@Test
+	public void put_ForManyPoints() {
+		final int numPoints = 10000;
+		Random rand = new Random(1);
+		Point2D[] pts = new Point2D[numPoints];
+		SpatialHash2D<Integer> hash = new SpatialHash2D<Integer>();
+		for (int i = 0; i < numPoints; ++i) {
+			pts[i] = new Point2D(rand.nextDouble() * 1000, rand.nextDouble() * 1000);
+			hash.put(pts[i], i);
+		}
+
+		assertEquals(numPoints, hash.size());
+		for (int i = 0; i < numPoints; ++i)
+			assertEquals(Integer.valueOf(i), hash.get(pts[i]));
+	}
+}
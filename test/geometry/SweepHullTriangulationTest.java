@@ -0,0 +1,133 @@
+package geometry;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class SweepHullTriangulationTest {
+
+	// Verifies that each half-edge and its opposite half-edge connect the same
+	// vertices in opposite directions.
+	private static boolean verifyHalfedges(SweepHullTriangulation sh) {
+		int[] triangles = sh.triangles();
+		int[] halfedges = sh.halfedges();
+		for (int e = 0; e < halfedges.length; ++e) {
+			int opp = halfedges[e];
+			if (opp == SweepHullTriangulation.NO_EDGE)
+				continue;
+			if (halfedges[opp] != e)
+				return false;
+			int next = (e % 3 == 2) ? e - 2 : e + 1;
+			if (triangles[opp] != triangles[next])
+				return false;
+		}
+		return true;
+	}
+	
+	@Test
+	public void triangulate_ForNoPoints() {
+		SweepHullTriangulation sh =
+				new SweepHullTriangulation(new ArrayList<Point2D>());
+		sh.triangulate();
+		assertEquals(0, sh.countTriangles());
+		assertEquals(0, sh.hull().length);
+	}
+
+	@Test
+	public void triangulate_ForTwoPoints() {
+		List<Point2D> samples = new ArrayList<Point2D>();
+		samples.add(new Point2D(1, 2));
+		samples.add(new Point2D(6, -3));
+		SweepHullTriangulation sh = new SweepHullTriangulation(samples);
+		sh.triangulate();
+		
+		assertEquals(0, sh.countTriangles());
+	}
+
+	@Test
+	public void triangulate_ForCollinearPoints() {
+		List<Point2D> samples = new ArrayList<Point2D>();
+		samples.add(new Point2D(1, 1));
+		samples.add(new Point2D(2, 2));
+		samples.add(new Point2D(3, 3));
+		samples.add(new Point2D(5, 5));
+		SweepHullTriangulation sh = new SweepHullTriangulation(samples);
+		sh.triangulate();
+		
+		assertEquals(0, sh.countTriangles());
+	}
+
+	@Test
+	public void triangulate_ForThreePoints() {
+		Point2D a = new Point2D(1, 2);
+		Point2D b = new Point2D(6, -3);
+		Point2D c = new Point2D(-2, -1);
+		List<Point2D> samples = new ArrayList<Point2D>();
+		samples.add(a);
+		samples.add(b);
+		samples.add(c);
+		SweepHullTriangulation sh = new SweepHullTriangulation(samples);
+		sh.triangulate();
+		
+		assertEquals(1, sh.countTriangles());
+		assertEquals(3, sh.hull().length);
+		Triangle2D t = sh.triangle(0);
+		assertTrue(t.hasVertex(a));
+		assertTrue(t.hasVertex(b));
+		assertTrue(t.hasVertex(c));
+	}
+
+	@Test
+	public void triangulate_ForFourPointsAsRect() {
+		List<Point2D> samples = new ArrayList<Point2D>();
+		samples.add(new Point2D(1, 10));
+		samples.add(new Point2D(5, 10));
+		samples.add(new Point2D(5, 1));
+		samples.add(new Point2D(1, 1));
+		SweepHullTriangulation sh = new SweepHullTriangulation(samples);
+		sh.triangulate();
+		
+		assertEquals(2, sh.countTriangles());
+		assertTrue(DelauneyTriangulation.isDelauneyConditionSatisfied(
+				sh.triangleList()));
+	}
+
+	@Test
+	public void triangulate_ForRandomPoints() {
+		Random rand = new Random(1234);
+		List<Point2D> samples = new ArrayList<Point2D>();
+		for (int i = 0; i < 300; ++i)
+			samples.add(new Point2D(rand.nextDouble() * 100, rand.nextDouble() * 50));
+		SweepHullTriangulation sh = new SweepHullTriangulation(samples);
+		sh.triangulate();
+		
+		// Euler's formula for triangulations of point sets.
+		int numHullPoints = sh.hull().length;
+		assertEquals(2 * samples.size() - numHullPoints - 2, sh.countTriangles());
+		assertTrue(verifyHalfedges(sh));
+		assertTrue(DelauneyTriangulation.isDelauneyConditionSatisfied(
+				sh.triangleList()));
+	}
+
+	@Test
+	public void triangulate_TrianglesAreCcw() {
+		Random rand = new Random(4321);
+		List<Point2D> samples = new ArrayList<Point2D>();
+		for (int i = 0; i < 100; ++i)
+			samples.add(new Point2D(rand.nextDouble() * 10, rand.nextDouble() * 10));
+		SweepHullTriangulation sh = new SweepHullTriangulation(samples);
+		sh.triangulate();
+		
+		for (int t = 0; t < sh.countTriangles(); ++t) {
+			Point2D a = samples.get(sh.vertex(t, 0));
+			Point2D b = samples.get(sh.vertex(t, 1));
+			Point2D c = samples.get(sh.vertex(t, 2));
+			assertTrue(new Vector2D(a, b).isCcw(new Vector2D(b, c)));
+		}
+	}
+}
@@ -4,12 +4,25 @@ import static org.junit.Assert.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
 
 public class VoronoiTesselationTest {
 
+	// Calculates the unsigned area of a given polygon.
+	private static double calcArea(Polygon2D poly) {
+		double area = 0;
+		int n = poly.countVertices();
+		for (int i = 0; i < n; ++i) {
+			Point2D a = poly.vertex(i);
+			Point2D b = poly.vertex((i + 1) % n);
+			area += a.x * b.y - b.x * a.y;
+		}
+		return Math.abs(area) / 2;
+	}
+	
 	// Verifies that a given tile contains given points.
 	// Avoids depending on the order of points in the tile.
 	private static boolean hasVertices(VoronoiTile r, Point2D[] pts) {
@@ -338,6 +351,141 @@ public class VoronoiTesselationTest {
 		}));
 	}
 
+	@Test
+	public void tesselate_WithSweepHullForRectWithBorder() {
+		List<Point2D> samples = new ArrayList<Point2D>();
+		samples.add(new Point2D(-1, -2));
+		samples.add(new Point2D(-1, 3));
+		samples.add(new Point2D(5, 3));
+		samples.add(new Point2D(5, -2));
+		Rect2D border = new Rect2D(-10, -10, 10, 10);
+		VoronoiTesselation vt = new VoronoiTesselation(samples, border,
+				DelauneyTriangulation.Algorithm.SWEEP_HULL);
+		List<VoronoiTile> tiles = vt.tesselate();
+		
+		assertTrue(tiles.size() == 4);
+		assertTrue(hasTileWithVertices(tiles, new Point2D[] {
+				new Point2D(-10, 0.5),
+				new Point2D(2, 0.5),
+				new Point2D(2, -10),
+				new Point2D(-10, -10),
+		}));
+		assertTrue(hasTileWithVertices(tiles, new Point2D[] {
+				new Point2D(2, 10),
+				new Point2D(10, 10),
+				new Point2D(10, 0.5),
+				new Point2D(2, 0.5),
+		}));
+		assertTrue(hasTileWithVertices(tiles, new Point2D[] {
+				new Point2D(2, 10),
+				new Point2D(2, 0.5),
+				new Point2D(-10, 0.5),
+				new Point2D(-10, 10),
+		}));
+		assertTrue(hasTileWithVertices(tiles, new Point2D[] {
+				new Point2D(10, 0.5),
+				new Point2D(10, -10),
+				new Point2D(2, -10),
+				new Point2D(2, 0.5),
+		}));
+	}
+
+	@Test
+	public void tesselate_WithSweepHullForRectWithCenterPoint() {
+		List<Point2D> samples = new ArrayList<Point2D>();
+		samples.add(new Point2D(-2, -2));
+		samples.add(new Point2D(-2, 2));
+		samples.add(new Point2D(2, 2));
+		samples.add(new Point2D(2, -2));
+		samples.add(new Point2D(0, 0));
+		Rect2D border = new Rect2D(-10, -10, 10, 10);
+		VoronoiTesselation vt = new VoronoiTesselation(samples, border,
+				DelauneyTriangulation.Algorithm.SWEEP_HULL);
+		List<VoronoiTile> tiles = vt.tesselate();
+		
+		assertEquals(5, tiles.size());
+		// The tile of the center point is an unclipped ring of circumcenters.
+		assertTrue(hasTileWithVertices(tiles, new Point2D[] {
+				new Point2D(-2, 0),
+				new Point2D(0, 2),
+				new Point2D(2, 0),
+				new Point2D(0, -2),
+		}));
+		assertTrue(hasTileWithVertices(tiles, new Point2D[] {
+				new Point2D(-10, -10),
+				new Point2D(-10, 0),
+				new Point2D(-2, 0),
+				new Point2D(0, -2),
+				new Point2D(0, -10),
+		}));
+	}
+
+	@Test
+	public void tesselate_WithSweepHullCoversBorder() {
+		Random rand = new Random(42);
+		List<Point2D> samples = new ArrayList<Point2D>();
+		for (int i = 0; i < 2000; ++i)
+			samples.add(new Point2D(rand.nextDouble() * 100, rand.nextDouble() * 100));
+		Rect2D border = new Rect2D(0, 0, 100, 100);
+		VoronoiTesselation vt = new VoronoiTesselation(samples, border,
+				DelauneyTriangulation.Algorithm.SWEEP_HULL);
+		List<VoronoiTile> tiles = vt.tesselate();
+		
+		assertEquals(samples.size(), tiles.size());
+		double area = 0;
+		for (VoronoiTile tile : tiles) {
+			assertTrue(tile.outline.isConvex());
+			for (int i = 0; i < tile.countVertices(); ++i)
+				assertTrue(border.isPointInRect(tile.outline.vertex(i)));
+			area += calcArea(tile.outline);
+		}
+		assertEquals(border.width() * border.height(), area, 1e-6);
+	}
+
+	@Test
+	public void tesselate_WithSweepHullForSliversAlongHull() {
+		// Points close to a straight line at the border create very thin
+		// triangles along the hull whose circumcenters are far away.
+		Random rand = new Random(7);
+		List<Point2D> samples = new ArrayList<Point2D>();
+		for (int i = 0; i < 200; ++i)
+			samples.add(new Point2D(rand.nextDouble() * 100, rand.nextDouble() * 0.01));
+		for (int i = 0; i < 500; ++i)
+			samples.add(new Point2D(rand.nextDouble() * 100, rand.nextDouble() * 100));
+		Rect2D border = new Rect2D(0, 0, 100, 100);
+		VoronoiTesselation vt = new VoronoiTesselation(samples, border,
+				DelauneyTriangulation.Algorithm.SWEEP_HULL);
+		List<VoronoiTile> tiles = vt.tesselate();
+		
+		assertEquals(samples.size(), tiles.size());
+		double area = 0;
+		for (VoronoiTile tile : tiles)
+			area += calcArea(tile.outline);
+		assertEquals(border.width() * border.height(), area, 1e-6);
+	}
+
+	@Test
+	public void tesselate_InParallelKeepsOrder() {
+		Random rand = new Random(3);
+		List<Point2D> samples = new ArrayList<Point2D>();
+		for (int i = 0; i < 3000; ++i)
+			samples.add(new Point2D(rand.nextDouble() * 100, rand.nextDouble() * 100));
+		Rect2D border = new Rect2D(0, 0, 100, 100);
+		
+		for (var algo : DelauneyTriangulation.Algorithm.values()) {
+			List<VoronoiTile> sequential = new VoronoiTesselation(
+					new ArrayList<Point2D>(samples), border, algo, false).tesselate();
+			List<VoronoiTile> parallel = new VoronoiTesselation(
+					new ArrayList<Point2D>(samples), border, algo, true).tesselate();
+			
+			assertEquals(sequential.size(), parallel.size());
+			for (int i = 0; i < sequential.size(); ++i) {
+				assertEquals(sequential.get(i).seed, parallel.get(i).seed);
+				assertEquals(sequential.get(i).outline, parallel.get(i).outline);
+			}
+		}
+	}
+
 	@Test
 	public void tesselate_ForRectWithCenterPoint() {
 		List<Point2D> samples = new ArrayList<Point2D>();
@@ -0,0 +1,92 @@
+package map;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class AdjacencyTest {
+
+	@Test
+	public void compact_ForNoNeighbors() {
+		Adjacency adj = new Adjacency();
+		adj.compact(3);
+		
+		assertTrue(adj.isCompact());
+		assertEquals(4, adj.offsets().length);
+		assertEquals(0, adj.neighbors().length);
+		for (int i = 0; i < 3; ++i)
+			assertEquals(0, adj.countNeighbors(i));
+	}
+
+	@Test
+	public void connect() {
+		Adjacency adj = new Adjacency();
+		adj.connect(0, 1);
+		adj.connect(1, 2);
+		assertFalse(adj.isCompact());
+		adj.compact(3);
+		
+		assertEquals(1, adj.countNeighbors(0));
+		assertEquals(1, adj.neighbor(0, 0));
+		assertEquals(2, adj.countNeighbors(1));
+		assertEquals(0, adj.neighbor(1, 0));
+		assertEquals(2, adj.neighbor(1, 1));
+		assertEquals(1, adj.countNeighbors(2));
+		assertEquals(1, adj.neighbor(2, 0));
+	}
+
+	@Test
+	public void compact_KeepsOrderAndRemovesDuplicates() {
+		Adjacency adj = new Adjacency();
+		adj.addNeighbor(0, 3);
+		adj.addNeighbor(0, 1);
+		adj.addNeighbor(0, 3);
+		adj.addNeighbor(0, 2);
+		adj.addNeighbor(0, 1);
+		adj.compact(4);
+		
+		assertEquals(3, adj.countNeighbors(0));
+		assertEquals(3, adj.neighbor(0, 0));
+		assertEquals(1, adj.neighbor(0, 1));
+		assertEquals(2, adj.neighbor(0, 2));
+		assertArrayEquals(new int[] {0, 3, 3, 3, 3}, adj.offsets());
+	}
+
+	@Test
+	public void compact_MergesWithPreviousNeighbors() {
+		Adjacency adj = new Adjacency();
+		adj.connect(0, 1);
+		adj.compact(2);
+		adj.connect(0, 2);
+		adj.connect(0, 1);
+		adj.compact(3);
+		
+		assertEquals(2, adj.countNeighbors(0));
+		assertEquals(1, adj.neighbor(0, 0));
+		assertEquals(2, adj.neighbor(0, 1));
+		assertEquals(1, adj.countNeighbors(1));
+		assertEquals(1, adj.countNeighbors(2));
+	}
+
+	@Test
+	public void countNeighbors_ForElementAddedAfterCompaction() {
+		Adjacency adj = new Adjacency();
+		adj.connect(0, 1);
+		adj.compact(2);
+		
+		assertEquals(0, adj.countNeighbors(5));
+	}
+
+	@Test
+	public void addNeighbor_ForManyNeighbors() {
+		final int numElems = 1000;
+		Adjacency adj = new Adjacency();
+		for (int i = 0; i < numElems; ++i)
+			adj.connect(i, (i + 1) % numElems);
+		adj.compact(numElems);
+		
+		assertEquals(2 * numElems, adj.neighbors().length);
+		for (int i = 0; i < numElems; ++i)
+			assertEquals(2, adj.countNeighbors(i));
+	}
+}
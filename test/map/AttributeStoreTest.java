@@ -0,0 +1,67 @@
+package map;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class AttributeStoreTest {
+
+	private static final AttributeStore.DoubleAttribute MOISTURE =
+			new AttributeStore.DoubleAttribute("moisture", 0.5);
+	private static final AttributeStore.FloatAttribute TEMPERATURE =
+			new AttributeStore.FloatAttribute("temperature", 20f);
+
+	@Test
+	public void channel_FilledWithDefaultValue() {
+		AttributeStore store = new AttributeStore();
+		store.resize(3);
+		
+		double[] elevs = store.channel(AttributeStore.ELEVATION);
+		float[] temps = store.channel(TEMPERATURE);
+		for (int i = 0; i < store.size(); ++i) {
+			assertEquals(-1, elevs[i], 0.0);
+			assertEquals(20f, temps[i], 0.0f);
+		}
+	}
+
+	@Test
+	public void channel_CreatedOnFirstAccess() {
+		AttributeStore store = new AttributeStore();
+		assertFalse(store.hasChannel(MOISTURE));
+		
+		store.channel(MOISTURE);
+		
+		assertTrue(store.hasChannel(MOISTURE));
+		assertFalse(store.hasChannel(TEMPERATURE));
+	}
+
+	@Test
+	public void set() {
+		AttributeStore store = new AttributeStore();
+		store.resize(2);
+		store.set(MOISTURE, 1, 0.8);
+		store.set(TEMPERATURE, 0, -4f);
+		
+		assertEquals(0.5, store.get(MOISTURE, 0), 0.0);
+		assertEquals(0.8, store.get(MOISTURE, 1), 0.0);
+		assertEquals(-4f, store.get(TEMPERATURE, 0), 0.0f);
+		assertEquals(0.8, store.channel(MOISTURE)[1], 0.0);
+	}
+
+	@Test
+	public void resize_KeepsValuesAndFillsNewElements() {
+		AttributeStore store = new AttributeStore();
+		store.resize(1);
+		store.set(AttributeStore.ELEVATION, 0, 0.3);
+		store.set(TEMPERATURE, 0, 5f);
+		
+		store.resize(1000);
+		
+		assertEquals(1000, store.size());
+		assertEquals(0.3, store.get(AttributeStore.ELEVATION, 0), 0.0);
+		assertEquals(5f, store.get(TEMPERATURE, 0), 0.0f);
+		assertEquals(-1, store.get(AttributeStore.ELEVATION, 999), 0.0);
+		assertEquals(20f, store.get(TEMPERATURE, 999), 0.0f);
+		assertTrue(store.channel(AttributeStore.ELEVATION).length >= 1000);
+	}
+}
@@ -0,0 +1,167 @@
+package map;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import geometry.DelauneyTriangulation;
+import geometry.Point2D;
+import geometry.Rect2D;
+
+public class ChunkedMapGeometryGeneratorTest {
+
+	private static MapGeometryGenerator.Spec makeGeomSpec(Rect2D bounds) {
+		return new MapGeometryGenerator.Spec(bounds, 1, 30,
+				DelauneyTriangulation.Algorithm.SWEEP_HULL);
+	}
+
+	private static List<Point2D> collectSeeds(Map.Representation rep) {
+		List<Point2D> seeds = new ArrayList<Point2D>();
+		for (int i = 0; i < rep.countTiles(); ++i)
+			seeds.add(rep.tile(i).seed);
+		return seeds;
+	}
+
+	// Checks if two tiles have the same shape. Avoids depending on the order of
+	// the vertices.
+	private static boolean haveSameShape(MapTile a, MapTile b) {
+		if (a.shape.countVertices() != b.shape.countVertices())
+			return false;
+		for (int i = 0; i < a.shape.countVertices(); ++i)
+			if (!b.shape.hasVertex(a.shape.vertex(i)))
+				return false;
+		return true;
+	}
+
+	private static Set<Point2D> collectNeighborSeeds(MapTile tile) {
+		Set<Point2D> seeds = new HashSet<Point2D>();
+		for (int i = 0; i < tile.countNeighbors(); ++i)
+			seeds.add(tile.neighbor(i).seed);
+		return seeds;
+	}
+
+	// Checks if two tiles have the same neighbors. Avoids depending on the
+	// order of the neighbors.
+	private static boolean haveSameNeighbors(MapTile a, MapTile b) {
+		return collectNeighborSeeds(a).equals(collectNeighborSeeds(b));
+	}
+
+	@Test
+	public void generate_KeepsMinDistanceAcrossSeams() {
+		var geomSpec = makeGeomSpec(new Rect2D(0, 0, 40, 30));
+		var spec = new ChunkedMapGeometryGenerator.Spec(10, geomSpec);
+		var gen = new ChunkedMapGeometryGenerator(geomSpec, spec);
+		List<Point2D> seeds = collectSeeds(gen.generate(new Random(1)));
+
+		assertEquals(3, gen.countChunkRows());
+		assertEquals(4, gen.countChunkColumns());
+		assertTrue(seeds.size() > 0);
+		for (int i = 0; i < seeds.size(); ++i) {
+			assertTrue(geomSpec.bounds.isPointInRect(seeds.get(i)));
+			for (int j = i + 1; j < seeds.size(); ++j)
+				assertTrue(Point2D.distance(seeds.get(i), seeds.get(j)) >=
+						geomSpec.minSampleDistance);
+		}
+	}
+
+	@Test
+	public void generate_MatchesSinglePass() {
+		var geomSpec = makeGeomSpec(new Rect2D(0, 0, 45, 35));
+		var spec = new ChunkedMapGeometryGenerator.Spec(12, geomSpec);
+		var gen = new ChunkedMapGeometryGenerator(geomSpec, spec);
+		Map.Representation chunked = gen.generate(new Random(2));
+
+		var singleGen = new MapGeometryGenerator(null, geomSpec);
+		Map.Representation single = singleGen.generate(collectSeeds(chunked));
+
+		assertEquals(single.countTiles(), chunked.countTiles());
+		assertEquals(single.countNodes(), chunked.countNodes());
+		for (int i = 0; i < chunked.countTiles(); ++i) {
+			MapTile tile = chunked.tile(i);
+			MapTile expected = single.findTileAt(tile.seed);
+			assertNotNull(expected);
+			assertTrue(haveSameShape(expected, tile));
+			assertTrue(haveSameNeighbors(expected, tile));
+		}
+		for (int i = 0; i < chunked.countNodes(); ++i) {
+			MapNode node = chunked.node(i);
+			MapNode expected = single.findNodeAt(node.pos);
+			assertNotNull(expected);
+			assertEquals(expected.countNeighbors(), node.countNeighbors());
+		}
+	}
+
+	@Test
+	public void generate_InParallelMatchesSequential() {
+		var geomSpec = makeGeomSpec(new Rect2D(0, 0, 40, 30));
+		var sequential = new ChunkedMapGeometryGenerator(geomSpec,
+				new ChunkedMapGeometryGenerator.Spec(10, 5, false)).generate(
+						new Random(3));
+		var parallel = new ChunkedMapGeometryGenerator(geomSpec,
+				new ChunkedMapGeometryGenerator.Spec(10, 5, true)).generate(
+						new Random(3));
+
+		assertEquals(sequential.countTiles(), parallel.countTiles());
+		for (int i = 0; i < sequential.countTiles(); ++i) {
+			assertEquals(sequential.tile(i).seed, parallel.tile(i).seed);
+			assertEquals(sequential.tile(i).shape, parallel.tile(i).shape);
+		}
+	}
+
+	@Test
+	public void generate_PassesChunksInOrder() {
+		var geomSpec = makeGeomSpec(new Rect2D(0, 0, 35, 25));
+		var gen = new ChunkedMapGeometryGenerator(geomSpec,
+				new ChunkedMapGeometryGenerator.Spec(10, geomSpec));
+		List<ChunkedMapGeometryGenerator.Chunk> chunks =
+				new ArrayList<ChunkedMapGeometryGenerator.Chunk>();
+		gen.generate(new Random(4), chunks::add);
+
+		assertEquals(6, chunks.size());
+		for (int i = 0; i < chunks.size(); ++i) {
+			var chunk = chunks.get(i);
+			assertEquals(i / 3, chunk.row);
+			assertEquals(i % 3, chunk.col);
+			assertTrue(chunk.countOwnTiles() > 0);
+			for (int t = 0; t < chunk.rep.countTiles(); ++t) {
+				MapTile tile = chunk.rep.tile(t);
+				if (chunk.isOwnTile(tile))
+					assertTrue(chunk.bounds.isPointInRect(tile.seed));
+			}
+		}
+		// Last chunk also covers the remainder of the map's bounds.
+		assertEquals(new Rect2D(20, 10, 35, 25), chunks.get(5).bounds);
+	}
+
+	@Test
+	public void generate_ForSizeThatIsNotMultipleOfChunkSize() {
+		var geomSpec = makeGeomSpec(new Rect2D(0, 0, 100.5, 100.5));
+		var spec = new ChunkedMapGeometryGenerator.Spec(50, geomSpec);
+		var gen = new ChunkedMapGeometryGenerator(geomSpec, spec);
+
+		assertEquals(2, gen.countChunkRows());
+		assertEquals(2, gen.countChunkColumns());
+		assertEquals(new Rect2D(50, 50, 100.5, 100.5), gen.chunkBounds(1, 1));
+		for (long seed : new long[] { 1, 3 }) {
+			List<Point2D> seeds = collectSeeds(gen.generate(new Random(seed)));
+			assertTrue(seeds.size() > 0);
+			for (Point2D pt : seeds)
+				assertTrue(geomSpec.bounds.isPointInRect(pt));
+		}
+	}
+
+	@Test
+	public void spec_WithChunkSizeSmallerThanGuardBand() {
+		try {
+			new ChunkedMapGeometryGenerator.Spec(4, 5, false);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+}
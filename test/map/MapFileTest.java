@@ -0,0 +1,220 @@
+package map;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import geometry.DelauneyTriangulation;
+import geometry.Point2D;
+import geometry.Rect2D;
+
+public class MapFileTest {
+
+	private static final AttributeStore.DoubleAttribute MOISTURE =
+			new AttributeStore.DoubleAttribute("moisture", .5);
+	private static final AttributeStore.FloatAttribute TEMPERATURE =
+			new AttributeStore.FloatAttribute("temperature", 20f);
+
+	private static Map generateMap(long seed) {
+		Rect2D bounds = new Rect2D(0, 0, 40, 30);
+		Map.Spec spec = new Map.Spec(
+				new MapGeometryGenerator.Spec(bounds, 2, 30,
+						DelauneyTriangulation.Algorithm.SWEEP_HULL),
+				new PerlinTopography.Spec(bounds, 5, .5));
+		Map map = new Map(spec, new Random(seed));
+		map.generate();
+		return map;
+	}
+
+	private static Map.Representation saveAndLoad(Map map) throws Exception {
+		Path file = Files.createTempFile("map", ".bin");
+		try {
+			map.save(file);
+			return MapFile.load(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void load_RestoresTilesAndNodes() throws Exception {
+		Map map = generateMap(1);
+
+		Map.Representation loaded = saveAndLoad(map);
+
+		assertTrue(loaded.isLazy());
+		assertEquals(map.countTiles(), loaded.countTiles());
+		assertEquals(map.countNodes(), loaded.countNodes());
+		for (int i = 0; i < map.countNodes(); ++i) {
+			MapNode node = map.node(i);
+			MapNode loadedNode = loaded.node(i);
+			assertEquals(node.pos, loadedNode.pos);
+			assertEquals(i, loadedNode.id());
+			assertEquals(node.elevation(), loadedNode.elevation(), 0.0);
+		}
+		for (int i = 0; i < map.countTiles(); ++i) {
+			MapTile tile = map.tile(i);
+			MapTile loadedTile = loaded.tile(i);
+			assertEquals(tile.seed, loadedTile.seed);
+			assertEquals(tile.elevation(), loadedTile.elevation(), 0.0);
+			assertEquals(tile.countNodes(), loadedTile.countNodes());
+			assertEquals(tile.shape.countVertices(),
+					loadedTile.shape.countVertices());
+			for (int n = 0; n < tile.countNodes(); ++n) {
+				assertEquals(tile.node(n).id(), loadedTile.node(n).id());
+				assertTrue(loaded.node(tile.node(n).id()) == loadedTile.node(n));
+			}
+		}
+	}
+
+	@Test
+	public void load_RestoresNeighbors() throws Exception {
+		Map map = generateMap(2);
+
+		Map.Representation loaded = saveAndLoad(map);
+
+		for (int i = 0; i < map.countTiles(); ++i) {
+			MapTile tile = map.tile(i);
+			MapTile loadedTile = loaded.tile(i);
+			assertEquals(tile.countNeighbors(), loadedTile.countNeighbors());
+			for (int n = 0; n < tile.countNeighbors(); ++n)
+				assertEquals(tile.neighbor(n).id(), loadedTile.neighbor(n).id());
+		}
+		for (int i = 0; i < map.countNodes(); ++i) {
+			MapNode node = map.node(i);
+			MapNode loadedNode = loaded.node(i);
+			assertEquals(node.countNeighbors(), loadedNode.countNeighbors());
+			for (int n = 0; n < node.countNeighbors(); ++n)
+				assertEquals(node.neighbor(n).id(), loadedNode.neighbor(n).id());
+		}
+	}
+
+	@Test
+	public void load_RestoresAdditionalAttributes() throws Exception {
+		Map.Representation rep = new Map.Representation();
+		rep.addNode(new MapNode(new Point2D(1, 2)));
+		rep.addNode(new MapNode(new Point2D(3, 4)));
+		var moisture = new AttributeStore.DoubleAttribute("moisture", .5);
+		rep.nodeAttributes().set(moisture, 1, .25);
+		Path file = Files.createTempFile("map", ".bin");
+
+		Map.Representation loaded;
+		try {
+			MapFile.write(rep, file);
+			loaded = MapFile.load(file);
+		} finally {
+			Files.delete(file);
+		}
+
+		AttributeStore.DoubleAttribute loadedMoisture = null;
+		for (var attrib : loaded.nodeAttributes().doubleAttributes())
+			if (attrib.name.equals("moisture"))
+				loadedMoisture = attrib;
+		assertNotNull(loadedMoisture);
+		assertEquals(.5, loadedMoisture.defaultValue, 0.0);
+		assertEquals(.5, loaded.nodeAttributes().get(loadedMoisture, 0), 0.0);
+		assertEquals(.25, loaded.nodeAttributes().get(loadedMoisture, 1), 0.0);
+		assertEquals(-1, loaded.node(0).elevation(), 0.0);
+	}
+
+	@Test
+	public void load_ReadsThroughGivenAttributes() throws Exception {
+		Map.Representation rep = new Map.Representation();
+		rep.addNode(new MapNode(new Point2D(1, 2)));
+		rep.addNode(new MapNode(new Point2D(3, 4)));
+		rep.nodeAttributes().set(MOISTURE, 1, .25);
+		Path file = Files.createTempFile("map", ".bin");
+
+		Map.Representation loaded;
+		try {
+			MapFile.write(rep, file);
+			loaded = MapFile.load(file, List.of(MOISTURE), List.of());
+		} finally {
+			Files.delete(file);
+		}
+
+		assertTrue(loaded.nodeAttributes().hasChannel(MOISTURE));
+		assertEquals(.5, loaded.nodeAttributes().get(MOISTURE, 0), 0.0);
+		assertEquals(.25, loaded.nodeAttributes().get(MOISTURE, 1), 0.0);
+	}
+
+	@Test
+	public void load_RestoresFloatAttributes() throws Exception {
+		Map.Representation rep = new Map.Representation();
+		rep.addNode(new MapNode(new Point2D(1, 2)));
+		rep.addNode(new MapNode(new Point2D(3, 4)));
+		rep.nodeAttributes().set(TEMPERATURE, 1, 12.5f);
+		Path file = Files.createTempFile("map", ".bin");
+
+		Map.Representation loaded;
+		try {
+			MapFile.write(rep, file);
+			loaded = MapFile.load(file, List.of(), List.of(TEMPERATURE));
+		} finally {
+			Files.delete(file);
+		}
+
+		assertTrue(loaded.nodeAttributes().hasChannel(TEMPERATURE));
+		assertEquals(20f, loaded.nodeAttributes().get(TEMPERATURE, 0), 0f);
+		assertEquals(12.5f, loaded.nodeAttributes().get(TEMPERATURE, 1), 0f);
+	}
+
+	@Test
+	public void write_StoresAttributesInSameOrder() throws Exception {
+		var names = List.of("a", "b", "c", "d", "e", "f", "g", "h");
+		Map.Representation rep = new Map.Representation();
+		rep.addNode(new MapNode(new Point2D(1, 2)));
+		Map.Representation reversed = new Map.Representation();
+		reversed.addNode(new MapNode(new Point2D(1, 2)));
+		for (int i = 0; i < names.size(); ++i) {
+			rep.nodeAttributes().set(
+					new AttributeStore.DoubleAttribute(names.get(i), 0), 0, i);
+			int j = names.size() - 1 - i;
+			reversed.nodeAttributes().set(
+					new AttributeStore.DoubleAttribute(names.get(j), 0), 0, j);
+		}
+		Path file = Files.createTempFile("map", ".bin");
+		Path reversedFile = Files.createTempFile("map", ".bin");
+
+		try {
+			MapFile.write(rep, file);
+			MapFile.write(reversed, reversedFile);
+			assertTrue(Arrays.equals(Files.readAllBytes(file),
+					Files.readAllBytes(reversedFile)));
+		} finally {
+			Files.delete(file);
+			Files.delete(reversedFile);
+		}
+	}
+
+	@Test
+	public void decodeAll_BuildsLookups() throws Exception {
+		Map map = generateMap(3);
+
+		Map.Representation loaded = saveAndLoad(map);
+		MapTile tile = loaded.findTileAt(map.tile(5).seed);
+
+		assertFalse(loaded.isLazy());
+		assertEquals(5, tile.id());
+		assertEquals(7, loaded.findNodeAt(map.node(7).pos).id());
+	}
+
+	@Test
+	public void load_ForOtherFile() throws Exception {
+		Path file = Files.createTempFile("map", ".txt");
+		try {
+			Files.write(file, "map 40 30\nnodes 0\ntiles 0\n".getBytes());
+			MapFile.load(file);
+			fail();
+		} catch (java.io.IOException e) {
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -3,11 +3,16 @@ package map;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import org.junit.Test;
 
+import geometry.DelauneyTriangulation;
 import geometry.Point2D;
+import geometry.PoissonDiscSampling;
 import geometry.Rect2D;
 
 public class MapGeometryGeneratorTest {
@@ -32,6 +37,22 @@ public class MapGeometryGeneratorTest {
 		return true;
 	}
 	
+	private static Set<Point2D> collectNeighborSeeds(MapTile tile) {
+		Set<Point2D> seeds = new HashSet<Point2D>();
+		for (int i = 0; i < tile.countNeighbors(); ++i)
+			seeds.add(tile.neighbor(i).seed);
+		return seeds;
+	}
+	
+	// Checks if the shapes of two tiles share at least two vertices.
+	private static boolean shareBorder(MapTile a, MapTile b) {
+		int numShared = 0;
+		for (int i = 0; i < a.shape.countVertices(); ++i)
+			if (b.shape.hasVertex(a.shape.vertex(i)))
+				++numShared;
+		return numShared >= 2;
+	}
+	
 	@Test
 	public void generate_TileNeighbors() {
 		var bounds = new Rect2D(10, 10, 15, 15);
@@ -65,18 +86,18 @@ public class MapGeometryGeneratorTest {
 		assertTrue(verifyTileNeighbors(rep.tile(1), rep, new int[] {0, 3, 5, 2}));
 		assertTrue(verifyTileNeighbors(rep.tile(2), rep, new int[] {1, 5, 6}));
 		assertTrue(verifyTileNeighbors(rep.tile(3), rep, new int[] {0, 1, 4, 5, 7, 8}));
-		// The neighoring relationship with tile 11 happens outside the given bounds!
-		// This might cause problems when defining tile properties.
-		assertTrue(verifyTileNeighbors(rep.tile(4), rep, new int[] {0, 3, 8, 11}));
+		// The triangulation also connects tile 11, but their shapes only meet
+		// outside the given bounds.
+		assertTrue(verifyTileNeighbors(rep.tile(4), rep, new int[] {0, 3, 8}));
 		assertTrue(verifyTileNeighbors(rep.tile(5), rep, new int[] {1, 2, 3, 6, 7, 9}));
 		assertTrue(verifyTileNeighbors(rep.tile(6), rep, new int[] {5, 2, 9}));
 		assertTrue(verifyTileNeighbors(rep.tile(7), rep, new int[] {3, 5, 8, 9, 10}));
 		assertTrue(verifyTileNeighbors(rep.tile(8), rep, new int[] {4, 3, 7, 10, 11}));
 		assertTrue(verifyTileNeighbors(rep.tile(9), rep, new int[] {7, 5, 6, 10}));
 		assertTrue(verifyTileNeighbors(rep.tile(10), rep, new int[] {8, 7, 9, 11}));
-		// The neighoring relationship with tile 4 happens outside the given bounds!
-		// This might cause problems when defining tile properties.
-		assertTrue(verifyTileNeighbors(rep.tile(11), rep, new int[] {4, 8, 10}));
+		// The triangulation also connects tile 4, but their shapes only meet
+		// outside the given bounds.
+		assertTrue(verifyTileNeighbors(rep.tile(11), rep, new int[] {8, 10}));
 	}
 	
 	@Test
@@ -192,4 +213,34 @@ public class MapGeometryGeneratorTest {
 		assertTrue(verifyNodeNeighbors(rep.node(24), rep, new int[] {23, 21, 25}));
 		assertTrue(verifyNodeNeighbors(rep.node(25), rep, new int[] {24, 20}));
 	}
+	
+	@Test
+	public void generate_SameTileNeighborsForAllTriangulations() {
+		var bounds = new Rect2D(0, 0, 60, 40);
+		for (long seed = 1; seed <= 5; ++seed) {
+			List<Point2D> samples = new PoissonDiscSampling(bounds, 1,
+					PoissonDiscSampling.NUM_CANDIDATES_DEFAULT,
+					new Random(seed)).generate();
+			Map.Representation bowyerWatson = new MapGeometryGenerator(null,
+					new MapGeometryGenerator.Spec(bounds, 1, 30,
+							DelauneyTriangulation.Algorithm.BOWYER_WATSON))
+					.generate(samples);
+			Map.Representation sweepHull = new MapGeometryGenerator(null,
+					new MapGeometryGenerator.Spec(bounds, 1, 30,
+							DelauneyTriangulation.Algorithm.SWEEP_HULL))
+					.generate(samples);
+			
+			assertEquals(bowyerWatson.countTiles(), sweepHull.countTiles());
+			for (int i = 0; i < sweepHull.countTiles(); ++i) {
+				MapTile tile = sweepHull.tile(i);
+				MapTile expected = bowyerWatson.findTileAt(tile.seed);
+				assertNotNull(expected);
+				assertEquals(collectNeighborSeeds(expected),
+						collectNeighborSeeds(tile));
+				// Neighbors touch along a border of their shapes.
+				for (int n = 0; n < tile.countNeighbors(); ++n)
+					assertTrue(shareBorder(tile, tile.neighbor(n)));
+			}
+		}
+	}
 }
@@ -2,6 +2,7 @@ package map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -214,4 +215,83 @@ public class MapRepresentationTest {
 		var result = rep.findNodeAt(new Point2D(0, 1));
 		assertNull(result);
 	}
+
+	@Test
+	public void addNode_AssignsIds() {
+		var nodeA = new MapNode(new Point2D(2, 0));
+		var nodeB = new MapNode(new Point2D(3, 2));
+		assertEquals(-1, nodeA.id());
+		
+		Map.Representation rep = new Map.Representation();
+		rep.addNode(nodeA);
+		rep.addNode(nodeB);
+		
+		assertEquals(0, nodeA.id());
+		assertEquals(1, nodeB.id());
+	}
+
+	@Test
+	public void connectNodes() {
+		var nodeA = new MapNode(new Point2D(2, 0));
+		var nodeB = new MapNode(new Point2D(3, 2));
+		var nodeC = new MapNode(new Point2D(-1, 3));
+		
+		Map.Representation rep = new Map.Representation();
+		rep.addNode(nodeA);
+		rep.addNode(nodeB);
+		rep.addNode(nodeC);
+		rep.connectNodes(nodeA.id(), nodeB.id());
+		rep.connectNodes(nodeA.id(), nodeC.id());
+		rep.connectNodes(nodeB.id(), nodeA.id());
+		
+		assertEquals(2, nodeA.countNeighbors());
+		assertEquals(nodeB, nodeA.neighbor(0));
+		assertEquals(nodeC, nodeA.neighbor(1));
+		assertEquals(1, nodeB.countNeighbors());
+		assertEquals(nodeA, nodeB.neighbor(0));
+		
+		Adjacency adj = rep.nodeAdjacency();
+		assertTrue(adj.isCompact());
+		assertEquals(4, adj.neighbors().length);
+	}
+
+	@Test
+	public void connectTiles() {
+		List<Point2D> shapePts = new ArrayList<Point2D>();
+		shapePts.add(new Point2D(1, 2));
+		shapePts.add(new Point2D(2, -2));
+		shapePts.add(new Point2D(3, 2));
+		var tileA = new MapTile(new Point2D(2, 0), new Polygon2D(shapePts));
+		var tileB = new MapTile(new Point2D(4, 2), new Polygon2D(shapePts));
+		
+		Map.Representation rep = new Map.Representation();
+		rep.addTile(tileA);
+		rep.addTile(tileB);
+		rep.connectTiles(tileA.id(), tileB.id());
+		tileA.addNeighbor(tileB);
+		
+		assertEquals(1, tileA.countNeighbors());
+		assertEquals(tileB, tileA.neighbor(0));
+		assertEquals(1, tileB.countNeighbors());
+		assertEquals(tileA, tileB.neighbor(0));
+	}
+
+	@Test
+	public void nodeAttributes_HoldElevationOfNodes() {
+		var nodeA = new MapNode(new Point2D(2, 0));
+		var nodeB = new MapNode(new Point2D(3, 2));
+		nodeA.setElevation(0.5);
+		
+		Map.Representation rep = new Map.Representation();
+		rep.addNode(nodeA);
+		rep.addNode(nodeB);
+		nodeB.setElevation(-0.25);
+		
+		double[] elevs = rep.nodeAttributes().channel(AttributeStore.ELEVATION);
+		assertEquals(0.5, elevs[0], 0.0);
+		assertEquals(-0.25, elevs[1], 0.0);
+		
+		elevs[0] = 0.75;
+		assertEquals(0.75, nodeA.elevation(), 0.0);
+	}
 }
@@ -0,0 +1,74 @@
+package math;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class HashedPerlinNoiseTest {
+
+	@Test
+	public void calcNoise_NoiseInRange() {
+		HashedPerlinNoise gen = new HashedPerlinNoise(new Random(7777L));
+		Random rand = new Random(1);
+		
+		for (int i = 0; i < 10000; ++i) {
+			double x = -1000 + rand.nextDouble() * 2000;
+			double y = -1000 + rand.nextDouble() * 2000;
+			double noise = gen.calcNoise(x, y);
+			assertTrue(-1 <= noise && noise < 1);
+		}
+	}
+
+	@Test
+	public void calcNoise_ZeroAtGridPoints() {
+		HashedPerlinNoise gen = new HashedPerlinNoise(new Random(7778L));
+		
+		for (int x = -5; x <= 5; ++x)
+			for (int y = -5; y <= 5; ++y)
+				assertEquals(0, gen.calcNoise(x, y), 0.0);
+	}
+
+	@Test
+	public void calcNoise_ContinuousAcrossGridLines() {
+		HashedPerlinNoise gen = new HashedPerlinNoise(new Random(7779L));
+		final double eps = 1e-9;
+		
+		for (int x = -3; x <= 3; ++x) {
+			double y = 0.37;
+			assertEquals(gen.calcNoise(x - eps, y), gen.calcNoise(x + eps, y), 1e-6);
+		}
+		for (int y = -3; y <= 3; ++y) {
+			double x = 0.61;
+			assertEquals(gen.calcNoise(x, y - eps), gen.calcNoise(x, y + eps), 1e-6);
+		}
+	}
+
+	@Test
+	public void calcNoise_SameForSameSeed() {
+		HashedPerlinNoise genA = new HashedPerlinNoise(new Random(7780L));
+		HashedPerlinNoise genB = new HashedPerlinNoise(new Random(7780L));
+		HashedPerlinNoise genC = new HashedPerlinNoise(new Random(7781L));
+		
+		boolean isDifferent = false;
+		for (int i = 0; i < 100; ++i) {
+			double x = i * 13.37;
+			double y = i * -7.1;
+			assertEquals(genA.calcNoise(x, y), genB.calcNoise(x, y), 0.0);
+			if (genA.calcNoise(x, y) != genC.calcNoise(x, y))
+				isDifferent = true;
+		}
+		assertTrue(isDifferent);
+	}
+
+	@Test
+	public void calcOctaveNoise_NoiseInRange() {
+		HashedPerlinNoise gen = new HashedPerlinNoise(new Random(6666L));
+		
+		for (int i = 0; i < 100; ++i)
+			for (int j = 0; j < 100; ++j) {
+				double noise = gen.calcOctaveNoise(i * 1.3, j * 0.7, 7, 2);
+				assertTrue(-1 <= noise && noise < 1);
+			}
+	}
+}
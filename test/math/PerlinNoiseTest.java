@@ -69,4 +69,68 @@ public class PerlinNoiseTest {
 			persistence += .5;
 		}
 	}
+
+	@Test
+	public void calcOctaveNoise_ForCoordinatesSameAsForPoint() {
+		int width = 50;
+		int height = 40;
+		PerlinNoise gen = new PerlinNoise(width, height, new Random(6668L));
+		Random rand = new Random(1);
+		
+		for (int i = 0; i < 1000; ++i) {
+			double x = rand.nextDouble() * width;
+			double y = rand.nextDouble() * height;
+			assertEquals(gen.calcOctaveNoise(new Point2D(x, y), 7, 2),
+					gen.calcOctaveNoise(x, y, 7, 2), 0.0);
+			assertEquals(gen.calcNoise(new Point2D(x, y)), gen.calcNoise(x, y), 0.0);
+		}
+	}
+
+	@Test
+	public void calcOctaveNoise_ForBatchSameAsForEachPoint() {
+		int width = 50;
+		int height = 40;
+		PerlinNoise gen = new PerlinNoise(width, height, new Random(6669L));
+		Random rand = new Random(2);
+		final int numPoints = 5000;
+		double[] xs = new double[numPoints];
+		double[] ys = new double[numPoints];
+		for (int i = 0; i < numPoints; ++i) {
+			xs[i] = rand.nextDouble() * width;
+			ys[i] = rand.nextDouble() * height;
+		}
+		
+		double[] noise = new double[numPoints];
+		gen.calcOctaveNoise(xs, ys, noise, 5, 1.5);
+		
+		for (int i = 0; i < numPoints; ++i)
+			assertEquals(gen.calcOctaveNoise(xs[i], ys[i], 5, 1.5), noise[i], 0.0);
+	}
+
+	@Test
+	public void calcOctaveNoise_ForBatchWithPointsOutOfRangeSameAsForEachPoint() {
+		int width = 50;
+		int height = 40;
+		PerlinNoise gen = new PerlinNoise(width, height, new Random(6670L));
+		Random rand = new Random(3);
+		// Not a multiple of the vector lanes or of the batch parts.
+		final int numPoints = 3001;
+		double[] xs = new double[numPoints];
+		double[] ys = new double[numPoints];
+		for (int i = 0; i < numPoints; ++i) {
+			xs[i] = rand.nextDouble() * width;
+			ys[i] = rand.nextDouble() * height;
+		}
+		// Points on the far edges of the range and beyond.
+		xs[10] = width;
+		ys[20] = height + 2.5;
+		xs[30] = 3 * width + .5;
+		xs[numPoints - 1] = width;
+		
+		double[] noise = new double[numPoints];
+		gen.calcOctaveNoise(xs, ys, noise, 6, .5);
+		
+		for (int i = 0; i < numPoints; ++i)
+			assertEquals(gen.calcOctaveNoise(xs[i], ys[i], 6, .5), noise[i], 0.0);
+	}
 }
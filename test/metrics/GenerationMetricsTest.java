@@ -0,0 +1,114 @@
+package metrics;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import geometry.DelauneyTriangulation;
+import geometry.Rect2D;
+import map.Map;
+import map.MapGeometryGenerator;
+import map.PerlinTopography;
+
+public class GenerationMetricsTest {
+
+	@Test
+	public void beginStage_NestsOpenStages() {
+		GenerationMetrics metrics = new GenerationMetrics();
+		try (GenerationMetrics.Stage outer = metrics.beginStage("outer")) {
+			try (GenerationMetrics.Stage inner = metrics.beginStage("inner")) {
+				inner.count("items", 3);
+				inner.count("items", 2);
+			}
+			try (GenerationMetrics.Stage inner = metrics.beginStage("second")) {
+				inner.count("items", 1);
+			}
+			outer.count("items", 4);
+		}
+		try (GenerationMetrics.Stage next = metrics.beginStage("next")) {
+			next.count("items", 6);
+		}
+
+		assertEquals(2, metrics.stages().size());
+		GenerationMetrics.Stage outer = metrics.stage("outer");
+		assertEquals(2, outer.subStages().size());
+		assertEquals(4, outer.count("items"));
+		assertEquals(5, outer.subStage("inner").count("items"));
+		assertEquals(0, outer.subStage("inner").count("other"));
+		assertEquals(1, outer.subStage("second").count("items"));
+		assertEquals(6, metrics.stage("next").count("items"));
+		assertTrue(outer.wallNanos() >= outer.subStage("inner").wallNanos());
+	}
+
+	@Test
+	public void close_MeasuresAllocatedBytes() {
+		GenerationMetrics metrics = new GenerationMetrics();
+		List<int[]> arrays = new ArrayList<int[]>();
+		try (GenerationMetrics.Stage stage = metrics.beginStage("alloc")) {
+			for (int i = 0; i < 100; ++i)
+				arrays.add(new int[10000]);
+			stage.count("arrays", arrays.size());
+		}
+
+		long allocated = metrics.stage("alloc").allocatedBytes();
+		// Not measurable on all JVMs.
+		assertTrue(allocated == -1 || allocated >= 100 * 10000 * 4);
+		assertEquals(100, metrics.stage("alloc").count("arrays"));
+	}
+
+	@Test
+	public void beginStage_ForDisabledMetrics() {
+		GenerationMetrics metrics = GenerationMetrics.DISABLED;
+		try (GenerationMetrics.Stage stage = metrics.beginStage("stage")) {
+			stage.count("items", 3);
+		}
+
+		assertFalse(metrics.isEnabled());
+		assertTrue(metrics.stages().isEmpty());
+		assertEquals("{\"stages\":[]}", metrics.toJson());
+	}
+
+	@Test
+	public void toJson() {
+		GenerationMetrics metrics = new GenerationMetrics();
+		try (GenerationMetrics.Stage outer = metrics.beginStage("a\"b")) {
+			outer.count("tiles", 4);
+			try (GenerationMetrics.Stage inner = metrics.beginStage("c")) {
+				inner.count("nodes", 2);
+			}
+		}
+
+		String json = metrics.toJson();
+		assertTrue(json.startsWith("{\"stages\":[{\"name\":\"a\\\"b\",\"wallNanos\":"));
+		assertTrue(json.contains(",\"counts\":{\"tiles\":4},\"stages\":[{\"name\":\"c\""));
+		assertTrue(json.endsWith("\"counts\":{\"nodes\":2},\"stages\":[]}]}]}"));
+	}
+
+	@Test
+	public void generate_ReportsStagesOfMap() {
+		Rect2D bounds = new Rect2D(0, 0, 40, 30);
+		Map.Spec spec = new Map.Spec(
+				new MapGeometryGenerator.Spec(bounds, 2, 30,
+						DelauneyTriangulation.Algorithm.SWEEP_HULL),
+				new PerlinTopography.Spec(bounds, 5, 2));
+		GenerationMetrics metrics = new GenerationMetrics();
+		Map map = new Map(spec, new Random(1), metrics);
+		map.generate();
+
+		GenerationMetrics.Stage geom = metrics.stage("geometry");
+		assertEquals(map.countTiles(), geom.count("tiles"));
+		assertEquals(map.countNodes(), geom.count("nodes"));
+		long numSamples = geom.subStage("sampling").count("samples");
+		assertTrue(numSamples >= map.countTiles());
+		assertTrue(geom.subStage("triangulation").count("triangles") > 0);
+		assertEquals(map.countTiles(), geom.subStage("tiles").count("tiles"));
+		assertEquals(map.countNodes(), geom.subStage("graph").count("nodes"));
+		GenerationMetrics.Stage topo = metrics.stage("topography");
+		assertEquals(map.countTiles() + map.countNodes(),
+				topo.subStage("noise").count("points"));
+	}
+}